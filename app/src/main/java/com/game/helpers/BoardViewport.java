@@ -0,0 +1,226 @@
+package com.game.helpers;
+
+/**
+ * Visible part of a board larger than the screen. Board is laid out from the
+ * top left corner of the view, cell centers at (column + 0.5) * tile and
+ * view height - (row + 0.5) * tile, and moved by an offset, the position of
+ * the node holding the tiles. Offset is kept so the board covers the view,
+ * or is centered along an axis where it is smaller than the view.
+ *
+ * <p>Plain math without cocos2d, so the camera can be tested on the JVM.
+ *
+ * @author niewinskip
+ */
+public final class BoardViewport {
+
+  /**
+   * Cells kept around the visible window, hides tiles popping in while
+   * panning.
+   */
+  private static final int MARGIN = 1;
+
+  /**
+   * Number of columns.
+   */
+  private final int columns;
+
+  /**
+   * Number of rows.
+   */
+  private final int rows;
+
+  /**
+   * Tile side.
+   */
+  private final float tile;
+
+  /**
+   * View width.
+   */
+  private final float width;
+
+  /**
+   * View height.
+   */
+  private final float height;
+
+  /**
+   * Horizontal offset.
+   */
+  private float x;
+
+  /**
+   * Vertical offset.
+   */
+  private float y;
+
+  /**
+   * Constructor. Offset starts at the top left corner of the board.
+   *
+   * @param columns Number of columns.
+   * @param rows Number of rows.
+   * @param tile Tile side.
+   * @param width View width.
+   * @param height View height.
+   */
+  public BoardViewport(final int columns, final int rows, final float tile, final float width,
+      final float height) {
+    this.columns = columns;
+    this.rows = rows;
+    this.tile = tile;
+    this.width = width;
+    this.height = height;
+    moveTo(0, 0);
+  }
+
+  /**
+   * Move board, offset is clamped.
+   *
+   * @param offsetX Horizontal offset.
+   * @param offsetY Vertical offset.
+   */
+  public void moveTo(final float offsetX, final float offsetY) {
+    x = clamp(offsetX, width - columns * tile, 0);
+    // Moving the board up shows lower rows.
+    y = clamp(offsetY, 0, rows * tile - height);
+  }
+
+  /**
+   * Move board by a distance, offset is clamped.
+   *
+   * @param dx Horizontal distance.
+   * @param dy Vertical distance.
+   */
+  public void moveBy(final float dx, final float dy) {
+    moveTo(x + dx, y + dy);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Horizontal offset.
+   */
+  public float getX() {
+    return x;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Vertical offset.
+   */
+  public float getY() {
+    return y;
+  }
+
+  /**
+   * Horizontal offset putting a cell in the middle of the view, clamped.
+   *
+   * @param cell Cell index.
+   * @return Offset.
+   */
+  public float centerX(final int cell) {
+    return clamp(width / 2.0f - (cell % columns + 0.5f) * tile, width - columns * tile, 0);
+  }
+
+  /**
+   * Vertical offset putting a cell in the middle of the view, clamped.
+   *
+   * @param cell Cell index.
+   * @return Offset.
+   */
+  public float centerY(final int cell) {
+    return clamp((cell / columns + 0.5f) * tile - height / 2.0f, 0, rows * tile - height);
+  }
+
+  /**
+   * Check if a cell is closer to an edge of the view than a number of cells,
+   * or outside of it. Edges the board cannot move past do not count.
+   *
+   * @param cell Cell index.
+   * @param cells Distance from the edge, in cells.
+   * @return True if camera should move.
+   */
+  public boolean isNearEdge(final int cell, final int cells) {
+    return Math.abs(centerX(cell) - x) >= 0.5f && !isInside((cell % columns + 0.5f) * tile + x, width, cells)
+        || Math.abs(centerY(cell) - y) >= 0.5f && !isInside(height - (cell / columns + 0.5f) * tile + y,
+        height, cells);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return First column of visible window, margin included.
+   */
+  public int getFirstColumn() {
+    return Math.max(0, (int) Math.floor(-x / tile) - MARGIN);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Last column of visible window, margin included.
+   */
+  public int getLastColumn() {
+    return Math.min(columns - 1, (int) Math.ceil((width - x) / tile) - 1 + MARGIN);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return First row of visible window, margin included.
+   */
+  public int getFirstRow() {
+    return Math.max(0, (int) Math.floor(y / tile) - MARGIN);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Last row of visible window, margin included.
+   */
+  public int getLastRow() {
+    return Math.min(rows - 1, (int) Math.ceil((height + y) / tile) - 1 + MARGIN);
+  }
+
+  /**
+   * Check if a cell is in visible window.
+   *
+   * @param cell Cell index.
+   * @return True if cell needs nodes.
+   */
+  public boolean contains(final int cell) {
+    int column = cell % columns;
+    int row = cell / columns;
+    return column >= getFirstColumn() && column <= getLastColumn() && row >= getFirstRow()
+        && row <= getLastRow();
+  }
+
+  /**
+   * Check if a position is far enough from both ends of the view.
+   *
+   * @param position Position of cell center in the view.
+   * @param size View size along the axis.
+   * @param cells Distance from the ends, in cells.
+   * @return True if inside.
+   */
+  private boolean isInside(final float position, final float size, final int cells) {
+    return position >= (cells + 0.5f) * tile && position <= size - (cells + 0.5f) * tile;
+  }
+
+  /**
+   * Clamp offset. If the range is empty, board is smaller than the view, the
+   * middle of the range centers it.
+   *
+   * @param value Offset.
+   * @param low Lowest offset.
+   * @param high Highest offset.
+   * @return Clamped offset.
+   */
+  private static float clamp(final float value, final float low, final float high) {
+    if (low > high) {
+      return (low + high) / 2.0f;
+    }
+    return Math.max(low, Math.min(high, value));
+  }
+}
@@ -85,9 +85,9 @@ public final class InGameHelper {
    *
    * @param startLocation Touch.
    * @param endLocation Release.
-   * @return True if swipe, false if not.
+   * @return One of GlobalPreferences.MOVE_* values, NO_MOVE if not a swipe.
    */
-  public static String detectMove(final CGPoint startLocation, final CGPoint endLocation) {
+  public static int detectMove(final CGPoint startLocation, final CGPoint endLocation) {
     if (detectClick(startLocation, endLocation)) {
       return GlobalPreferences.NO_MOVE;
     }
@@ -1,27 +1,39 @@
 package com.game.helpers;
 
-import android.content.res.AssetManager;
+import com.game.engine.Level;
+import com.game.engine.LevelCache;
+import com.game.engine.LevelPack;
 import com.game.logger.Logger;
-import com.game.model.Portal;
 import com.game.model.Skull;
-import com.game.preferences.GlobalPreferences;
-import java.io.BufferedReader;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 import org.cocos2d.nodes.CCDirector;
 
 /**
- * Class for parsing level data files. Creates instances of objects used later
- * in game.
+ * Class for loading levels from the level pack asset. Creates instances of
+ * objects used later in game.
  *
  * @author niewinskip
  */
 public class LevelParser {
 
+  /**
+   * Level pack, read from assets on first use and kept for the whole session.
+   */
+  private static LevelPack pack;
+
+  /**
+   * Number of decoded levels kept: current, next and a few recently played.
+   */
+  private static final int CACHE_SIZE = 4;
+
+  /**
+   * Decoded levels, shared by all parsers.
+   */
+  private static final LevelCache CACHE = new LevelCache(CACHE_SIZE, LevelParser::decode);
+
   /**
    * Hero starting position.
    */
@@ -58,9 +70,19 @@ public class LevelParser {
   private final List<Skull> skullsList;
 
   /**
-   * List of portals positions.
+   * Portal destination for each cell, -1 if there is no portal.
+   */
+  private int[] portalTargets;
+
+  /**
+   * Parsed level data.
+   */
+  private Level level;
+
+  /**
+   * Hash of level file, identifies its solution in the solution pack.
    */
-  private List<Portal> portalsList;
+  private long fileHash;
 
   /**
    * Constructor.
@@ -68,139 +90,96 @@ public class LevelParser {
    * @param levelId Selected level id.
    */
   public LevelParser(final int levelId) {
-    portalsList = new ArrayList<>();
     skullsList = new ArrayList<>();
     parseLevel(levelId);
   }
 
   /**
-   * Parse selected level for core parameters.
+   * Get level pack, read it from assets on first call.
    *
-   * @param levelId Selected level id.
+   * @return Level pack, null if it cannot be read.
    */
-  private void parseLevel(final int levelId) {
-    BufferedReader br = null;
+  private static synchronized LevelPack getPack() {
+    if (pack != null) {
+      return pack;
+    }
+    InputStream is = null;
     try {
-      AssetManager assetManager = CCDirector.sharedDirector().getActivity().getAssets();
-      InputStream is = assetManager.open("Levels" + File.separator + "level" + levelId);
-      br = new BufferedReader(new InputStreamReader(is, "UTF-8"));
-      String line = br.readLine();
-      while (line != null) {
-        if (line.startsWith("columns")) {
-          numberOfColumns = getValue(line);
-        } else if (line.startsWith("rows")) {
-          numberOfRows = getValue(line);
-        } else if (line.startsWith("pushes")) {
-          minimumPushes = getValue(line);
-        } else if (line.startsWith("position")) {
-          firstPosition = getValue(line);
-        } else if (line.startsWith("teleports")) {
-          portalsList = parsePortals(line);
-        } else if (line.startsWith("skulls")) {
-          skullsTable = new boolean[numberOfColumns * numberOfRows + 1];
-          parseSkulls(line);
-        } else if (line.startsWith("map")) {
-          gameBoard = new int[numberOfRows * numberOfColumns + 1];
-          line = br.readLine();
-          int i = 0;
-          while (line != null && i < numberOfRows) {
-            Logger.log("Map line parsed " + (i + 1) + ": " + line);
-            for (int x = 0; x < numberOfColumns; x++) {
-              gameBoard[i * numberOfColumns + x] = mapCharToInt(line.charAt(x));
-            }
-            i++;
-            line = br.readLine();
-          }
-        }
-        line = br.readLine();
-      }
+      is = CCDirector.sharedDirector().getActivity().getAssets().open(LevelPack.ASSET);
+      pack = LevelPack.read(is);
     } catch (IOException e) {
-      Logger.log("IOException. Parsing error. Level " + levelId + " datafile.");
+      Logger.log("IOException. Cannot read level pack.");
       e.printStackTrace();
     } finally {
       try {
-        br.close();
+        if (is != null) {
+          is.close();
+        }
       } catch (IOException e) {
         Logger.log("IOException. Cannot close file.");
         e.printStackTrace();
       }
     }
-    Logger.log(numberOfColumns + " " + numberOfRows + " " + firstPosition + " " + minimumPushes);
+    return pack;
   }
 
   /**
-   * Parse line of text in search for specified value.
+   * Start decoding a level in background, so it is ready when the player gets
+   * to it.
    *
-   * @param line Line to parse.
-   * @return Integer value.
+   * @param levelId Level id.
    */
-  private int getValue(final String line) {
-    int start = line.lastIndexOf(':') + 1;
-    String value = line.substring(start).replaceAll("\\s", "");
-    Logger.log("Value parsed: " + value);
-    return Integer.parseInt(value);
+  public static void prefetch(final int levelId) {
+    CACHE.prefetch(levelId);
   }
 
   /**
-   * Parse line of text in search for portals. Add each portal to list.
+   * Decode level from the level pack.
    *
-   * @param line Line to parse.
-   * @return List of portals.
+   * @param levelId Level id.
+   * @return Level, null if it is missing or corrupted.
    */
-  private List<Portal> parsePortals(final String line) {
-    List<Portal> portals = new ArrayList<>();
-    int start = line.lastIndexOf(':') + 1;
-    String value = line.substring(start).replaceAll("\\s", "");
-    Logger.log("Portals parsed: " + value);
-    String[] chunks = value.split(",");
-    for (String v : chunks) {
-      String[] inside = v.split("-");
-      int src = Integer.parseInt(inside[0]);
-      int dst = Integer.parseInt(inside[1]);
-      portals.add(new Portal(src, dst));
+  private static Level decode(final int levelId) {
+    LevelPack levels = getPack();
+    if (levels == null || !levels.contains(levelId)) {
+      Logger.log("Level " + levelId + " is missing in level pack.");
+      return null;
+    }
+    try {
+      return levels.getLevel(levelId, "level" + levelId);
+    } catch (IllegalArgumentException e) {
+      Logger.log("Corrupted level " + levelId + " in level pack.");
+      e.printStackTrace();
+      return null;
     }
-    return portals;
   }
 
   /**
-   * Parse line of text in search for skulls. Add each skull to list and to
-   * booleans table.
+   * Load selected level for core parameters. Level comes from the cache,
+   * skulls are created for this game.
    *
-   * @param line Line to parse.
+   * @param levelId Selected level id.
    */
-  private void parseSkulls(final String line) {
-    int start = line.lastIndexOf(':') + 1;
-    String value = line.substring(start).replaceAll("\\s", "");
-    Logger.log("Skulls parsed: " + value);
-    String[] chunks = value.split(",");
-    for (String v : chunks) {
-      int i = Integer.parseInt(v);
+  private void parseLevel(final int levelId) {
+    Level parsed = CACHE.get(levelId);
+    if (parsed != null) {
+      fileHash = getPack().getHash(levelId);
+    } else {
+      parsed = new Level("level" + levelId, 0, 0, 0, 0, new int[1], new int[0], new int[]{-1});
+    }
+    numberOfColumns = parsed.getNumberOfColumns();
+    numberOfRows = parsed.getNumberOfRows();
+    minimumPushes = parsed.getMinimumPushes();
+    firstPosition = parsed.getHeroPosition();
+    gameBoard = parsed.getGameBoard();
+    portalTargets = parsed.getPortalTargets();
+    skullsTable = new boolean[numberOfColumns * numberOfRows + 1];
+    for (int i : parsed.getSkulls()) {
       skullsList.add(new Skull(i));
       skullsTable[i] = true;
     }
-  }
-
-  /**
-   * Transform block's graphical representation to constant number.
-   *
-   * @param c Character used in map.
-   * @return Integer representation of character.
-   */
-  private int mapCharToInt(final char c) {
-    if (c == 'X') {
-      return GlobalPreferences.BLOCK;
-    } else if (c == '*') {
-      return GlobalPreferences.FLOOR;
-    } else if (c == 'T') {
-      return GlobalPreferences.TELEP;
-    } else if (c == 'D') {
-      return GlobalPreferences.DESTY;
-    } else if (c == 'S') {
-      return GlobalPreferences.SLIDE;
-    } else if (c == 'E') {
-      return GlobalPreferences.EMPTY;
-    }
-    return GlobalPreferences.FLOOR;
+    this.level = parsed;
+    Logger.log(numberOfColumns + " " + numberOfRows + " " + firstPosition + " " + minimumPushes);
   }
 
   /**
@@ -276,11 +255,47 @@ public class LevelParser {
   }
 
   /**
-   * Get list of portals objects.
+   * Get portal destination for each cell.
+   *
+   * @return Portal destinations, -1 if cell has no portal.
+   */
+  public final int[] getPortalTargets() {
+    return portalTargets;
+  }
+
+  /**
+   * Check if level has portals, solver uses reverse search only without them.
+   *
+   * @return True if any cell is a portal.
+   */
+  public final boolean hasTeleports() {
+    return level.hasTeleports();
+  }
+
+  /**
+   * Check if level has ice.
+   *
+   * @return True if any cell is ice.
+   */
+  public final boolean hasIce() {
+    return level.hasIce();
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Hash of level text file, SolutionPack.fingerprint of its bytes.
+   */
+  public final long getFileHash() {
+    return fileHash;
+  }
+
+  /**
+   * Get parsed level data.
    *
-   * @return List of portals.
+   * @return Level.
    */
-  public final List<Portal> getPortalsList() {
-    return portalsList;
+  public final Level getLevel() {
+    return level;
   }
 }
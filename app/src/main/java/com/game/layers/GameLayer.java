@@ -6,13 +6,20 @@ import android.preference.PreferenceManager;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import com.game.MonsterSokoban.R;
+import com.game.engine.BoardEngine;
+import com.game.engine.DeadlockDetector;
+import com.game.engine.MoveJournal;
+import com.game.engine.Level;
+import com.game.engine.MoveResult;
+import com.game.engine.solver.HintEngine;
+import com.game.engine.solver.Solution;
+import com.game.engine.solver.SolutionPack;
 import com.game.helpers.AchievementHelper;
+import com.game.helpers.BoardViewport;
 import com.game.helpers.InGameHelper;
 import com.game.helpers.LevelParser;
 import com.game.helpers.ParticleHelper;
 import com.game.logger.Logger;
-import com.game.model.MoveBackup;
-import com.game.model.Portal;
 import com.game.model.Skull;
 import com.game.model.SpriteAnimationBinder;
 import com.game.model.extensions.CCNodeExt;
@@ -20,9 +27,14 @@ import com.game.preferences.DevicePreferences;
 import com.game.preferences.GlobalPreferences;
 import com.game.preferences.SharedPreferencesKeys;
 import com.game.preferences.SpritePreferences;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import org.cocos2d.actions.base.CCFiniteTimeAction;
 import org.cocos2d.actions.instant.CCCallFunc;
 import org.cocos2d.actions.instant.CCCallFuncN;
 import org.cocos2d.actions.instant.CCCallFuncND;
@@ -32,6 +44,7 @@ import org.cocos2d.actions.interval.CCFadeOut;
 import org.cocos2d.actions.interval.CCMoveTo;
 import org.cocos2d.actions.interval.CCScaleTo;
 import org.cocos2d.actions.interval.CCSequence;
+import org.cocos2d.extensions.scroll.CCClipNode;
 import org.cocos2d.layers.CCColorLayer;
 import org.cocos2d.layers.CCLayer;
 import org.cocos2d.layers.CCScene;
@@ -39,9 +52,11 @@ import org.cocos2d.nodes.CCDirector;
 import org.cocos2d.nodes.CCNode;
 import org.cocos2d.nodes.CCSprite;
 import org.cocos2d.opengl.CCBitmapFontAtlas;
+import org.cocos2d.particlesystem.CCParticleSystem;
 import org.cocos2d.sound.SoundEngine;
 import org.cocos2d.transitions.CCFadeTransition;
 import org.cocos2d.types.CGPoint;
+import org.cocos2d.types.CGRect;
 import org.cocos2d.types.CGSize;
 import org.cocos2d.types.ccColor3B;
 import org.cocos2d.types.ccColor4B;
@@ -95,9 +110,14 @@ public class GameLayer extends CCLayer {
    */
   private static final int SKULLS_LABEL_TAG = InGameHelper.generateUniqueTag();
   /**
-   * Tag of hero sprite.
+   * Tag of label warning that level cannot be completed without revert.
    */
-  private static final int HERO_TAG = InGameHelper.generateUniqueTag();
+  private static final int STUCK_LABEL_TAG = InGameHelper.generateUniqueTag();
+  /**
+   * Tag of hero sprite. Just below skull tags, which take as many tags as
+   * the board has cells.
+   */
+  private static final int HERO_TAG = GlobalPreferences.FIRST_SKULL_TAG - 1;
   /**
    * Tag.
    */
@@ -106,6 +126,43 @@ public class GameLayer extends CCLayer {
    * Tag.
    */
   private static final int REVERT_BUTTON_TAG = InGameHelper.generateUniqueTag();
+  /**
+   * Tag.
+   */
+  private static final int HINT_BUTTON_TAG = InGameHelper.generateUniqueTag();
+  /**
+   * Tag.
+   */
+  private static final int WATCH_BUTTON_TAG = InGameHelper.generateUniqueTag();
+  /**
+   * Seconds between swipes of solution playback.
+   */
+  private static final float PLAYBACK_INTERVAL = 0.4f;
+  /**
+   * Rows fitting the screen in large board mode. Boards that would need
+   * smaller tiles are not shrunk, a camera shows part of them.
+   */
+  private static final int LARGE_BOARD_ROWS = 12;
+  /**
+   * Cells kept between hero and edge of the screen before camera follows.
+   */
+  private static final int CAMERA_MARGIN = 2;
+  /**
+   * Duration of camera move to the hero.
+   */
+  private static final float CAMERA_TIME = 0.3f;
+  /**
+   * Pool key of portal emitters.
+   */
+  private static final String PORTAL_EFFECT = "portal";
+  /**
+   * Pool key of destination gas emitters.
+   */
+  private static final String GAS_EFFECT = "gas";
+  /**
+   * Time budget of hint search in milliseconds.
+   */
+  private static final long HINT_BUDGET_MILLIS = 1500;
   /**
    * Tag of winning color overlay.
    */
@@ -147,10 +204,6 @@ public class GameLayer extends CCLayer {
    * Tag of currently moved skull sprite.
    */
   private static int skullCurrentTag;
-  /**
-   * Position in table of currently moving skull sprite.
-   */
-  private static int skullCurrentPosition;
   /**
    * Calculated size of each tile.
    */
@@ -163,10 +216,6 @@ public class GameLayer extends CCLayer {
    * Number of  board's columns.
    */
   private static int numberOfColumns;
-  /**
-   * Game board size. Should be equal to columns * rows.
-   */
-  private static int tabSize;
   /**
    * Single move time multiplier. Should be greater than 1.
    */
@@ -183,6 +232,14 @@ public class GameLayer extends CCLayer {
    * Number of the current level.
    */
   private int levelNumber;
+  /**
+   * True if layer only plays the precomputed solution.
+   */
+  private final boolean playback;
+  /**
+   * Index of next swipe of solution playback.
+   */
+  private int playbackStep;
   /**
    * Click.
    */
@@ -220,29 +277,12 @@ public class GameLayer extends CCLayer {
    * Scale for tiles.
    */
   private float scaleFactor;
-  /**
-   * Remember sequence for  hero.
-   */
-  private CCSequence heroCurrSeq;
   /**
    * Blocks' sprites resolution. Available are 256 & 128. If calculated size
    * for block is less than 128, than set resolution to 128. Better image
    * quality.
    */
   private float spritesResolution;
-  /**
-   * Check if any moved was stored in list of the previous moves. Used for
-   * reverting moves.
-   */
-  private boolean anyMoveBackedUp;
-  /**
-   * Hero previous position. Used for reverting moves.
-   */
-  private int heroPreviousPosition;
-  /**
-   * Hero current position. Used for reverting moves.
-   */
-  private int heroCurrentPosition;
   /**
    * Number of move reverts.
    */
@@ -260,29 +300,94 @@ public class GameLayer extends CCLayer {
    */
   private int[] gameMap;
   /**
-   * Hero existence map.
+   * Game rules and board state.
+   */
+  private BoardEngine engine;
+  /**
+   * Swipes leading from level start to current state, for replays and bug
+   * reports.
+   */
+  private MoveJournal journal;
+  /**
+   * Dead squares and frozen skulls detector of current level.
+   */
+  private DeadlockDetector deadlocks;
+  /**
+   * Parsed data of current level, used by hint search.
    */
-  private boolean[] heroTable;
+  private Level level;
   /**
-   * Skulls existence map.
+   * Background search of the next swipe.
    */
-  private boolean[] skullsTable;
+  private final HintEngine hintEngine = new HintEngine();
   /**
-   * List of skulls.
+   * Finger showing swipe found by hint search.
    */
-  private List<Skull> skullsList;
+  private CCSprite solverHintSprite;
   /**
-   * List of portals.
+   * Hash of current level file, key of its precomputed solution.
    */
-  private List<Portal> portalList;
+  private long levelFileHash;
   /**
-   * List of backed up moves.
+   * Precomputed solution of current level, loaded on first use.
    */
-  private List<MoveBackup> prevMovesList;
+  private Solution packedSolution;
+  /**
+   * True once solution pack was read for current level.
+   */
+  private boolean packedSolutionLoaded;
+  /**
+   * Sprite tags of skulls, indexed by skull id.
+   */
+  private int[] skullTags;
   /**
    * CCNode to hold all tiles.
    */
   private CCNode tilesNode;
+  /**
+   * True if board is larger than the screen. Only cells in view get nodes,
+   * player pans with two fingers and camera follows the hero.
+   */
+  private boolean largeBoard;
+  /**
+   * Visible part of the board in large board mode.
+   */
+  private BoardViewport viewport;
+  /**
+   * Window of cells having nodes in large board mode: first column, last
+   * column, first row and last row.
+   */
+  private final int[] shownCells = new int[4];
+  /**
+   * Skull animated by last move, -1 if none. Stays visible until next cull,
+   * so a skull sliding out of view is not hidden before it gets there.
+   */
+  private int movingSkull = -1;
+  /**
+   * Floor, ice or empty tile node of each cell, null if cell is not shown.
+   */
+  private CCNode[] bottomNodes;
+  /**
+   * Destination or wall node of each cell, null if cell has none or is not
+   * shown.
+   */
+  private CCNode[] frontNodes;
+  /**
+   * Particle emitter of each portal or destination, null if not shown.
+   */
+  private CCNode[] effectNodes;
+  /**
+   * Hidden nodes ready for reuse, by sprite path or effect key.
+   */
+  private final Map<String, List<CCNode>> nodePool = new HashMap<>();
+  /**
+   * Middle of two fingers panning the board, null if not panning.
+   */
+  private CGPoint panLocation;
+  /**
+   * True from two finger touch until last finger is up, no swipe is played.
+   */
+  private boolean panned;
   /**
    * Chill out step counter.
    */
@@ -295,10 +400,20 @@ public class GameLayer extends CCLayer {
    * @param level Current level.
    */
   public GameLayer(final int level) {
+    this(level, false);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param level Current level.
+   * @param playback True to play precomputed solution instead of the player.
+   */
+  public GameLayer(final int level, final boolean playback) {
     this.levelNumber = level;
+    this.playback = playback;
     this.pushes = 0;
     this.revertsNumber = 0;
-    this.anyMoveBackedUp = false;
     this.spritesResolution = 256.0f;
 
     screenSize = DevicePreferences.screenSize;
@@ -321,6 +436,10 @@ public class GameLayer extends CCLayer {
       addChild(hintSprite, Z0);
     }
 
+    if (playback) {
+      schedule("playSolution", PLAYBACK_INTERVAL);
+    }
+
     InGameHelper.turnAllSensorsOn(this);
   }
 
@@ -331,8 +450,19 @@ public class GameLayer extends CCLayer {
    * @return Scene.
    */
   public static CCScene scene(final int levelNumber) {
+    return scene(levelNumber, false);
+  }
+
+  /**
+   * Start GameLayer scene.
+   *
+   * @param levelNumber Create layer, pass level number to constructor.
+   * @param playback True to play precomputed solution.
+   * @return Scene.
+   */
+  public static CCScene scene(final int levelNumber, final boolean playback) {
     CCScene scene = CCScene.node();
-    CCLayer layer = new GameLayer(levelNumber);
+    CCLayer layer = new GameLayer(levelNumber, playback);
     scene.addChild(layer);
     return scene;
   }
@@ -397,24 +527,42 @@ public class GameLayer extends CCLayer {
     pushesLabel.setPosition(screenSize.width * 0.9f, screenSize.height * 0.74f);
     addChild(pushesLabel, itemPanel.getZOrder() + 1, PUSHES_LABEL_TAG);
 
-    // Add Reset Button
+    // Add Revert Button, shares its row with Hint button.
     CCSprite revert = CCSprite.sprite(SpritePreferences.B_WIDE_DARK);
     revert.setScale(
-        InGameHelper.getPreferredScale(screenSize.width / 5, screenSize.height / 6, revert.getContentSize()));
-    revert.setPosition(screenSize.width * 0.9f, screenSize.height / 4.0f);
+        InGameHelper.getPreferredScale(screenSize.width / 10, screenSize.height / 6, revert.getContentSize()));
+    revert.setPosition(screenSize.width * 0.85f, screenSize.height / 4.0f);
     addChild(revert, Z1, REVERT_BUTTON_TAG);
 
     // Add text to button.
     InGameHelper.addTextToSprite(revert, "Revert");
 
-    // Add Revert Button
+    // Add Hint Button
+    CCSprite hint = CCSprite.sprite(SpritePreferences.B_WIDE_DARK);
+    hint.setScale(revert.getScale());
+    hint.setPosition(screenSize.width * 0.95f, screenSize.height / 4.0f);
+    addChild(hint, Z1, HINT_BUTTON_TAG);
+
+    // Add text to button.
+    InGameHelper.addTextToSprite(hint, "Hint");
+
+    // Add Reset Button, shares its row with Watch button.
     CCSprite reset = CCSprite.sprite(SpritePreferences.B_WIDE_DARK);
     reset.setScale(revert.getScale());
-    reset.setPosition(screenSize.width * 0.9f, screenSize.height / 12.0f);
+    reset.setPosition(screenSize.width * 0.85f, screenSize.height / 12.0f);
     addChild(reset, Z1, RESET_BUTTON_TAG);
 
     // Add text to button.
     InGameHelper.addTextToSprite(reset, "Reset");
+
+    // Add Watch Button, plays precomputed solution.
+    CCSprite watch = CCSprite.sprite(SpritePreferences.B_WIDE_DARK);
+    watch.setScale(revert.getScale());
+    watch.setPosition(screenSize.width * 0.95f, screenSize.height / 12.0f);
+    addChild(watch, Z1, WATCH_BUTTON_TAG);
+
+    // Add text to button.
+    InGameHelper.addTextToSprite(watch, "Watch");
   }
 
   /**
@@ -424,7 +572,6 @@ public class GameLayer extends CCLayer {
     // Create a node to hold all elements.
     tilesNode = CCNode.node();
     tilesNode.setTag(TILE_NODE_TAG);
-    addChild(tilesNode);
 
     initGame(levelNumber);
 
@@ -434,14 +581,32 @@ public class GameLayer extends CCLayer {
     int usableWidth = (int) (screenSize.width * 0.8f);
     int usableHeight = (int) (screenSize.height);
     tileSquareSize = Math.min((usableHeight / numberOfRows), (usableWidth / numberOfColumns));
-
-    // Position of first tile. Should be top Y.
-    startY = (int) (tileSquareSize * numberOfRows - tileSquareSize / 2.0f);
-    startY = (int) (startY + (usableHeight - tileSquareSize * numberOfRows) / 2.0f);
-
-    // Position of first tile. Should be left X.
-    startX = (int) (tileSquareSize / 2.0f);
-    startX = (int) (startX + (usableWidth - tileSquareSize * numberOfColumns) / 2.0f);
+    largeBoard = tileSquareSize < usableHeight / LARGE_BOARD_ROWS;
+
+    if (largeBoard) {
+      tileSquareSize = usableHeight / LARGE_BOARD_ROWS;
+      // Board starts at top left corner of the clipped area and is moved by
+      // the viewport.
+      startY = (int) (usableHeight - tileSquareSize / 2.0f);
+      startX = (int) (tileSquareSize / 2.0f);
+      viewport = new BoardViewport(numberOfColumns, numberOfRows, tileSquareSize, usableWidth, usableHeight);
+      int hero = engine.getHeroPosition();
+      viewport.moveTo(viewport.centerX(hero), viewport.centerY(hero));
+      tilesNode.setPosition(viewport.getX(), viewport.getY());
+      CCClipNode clipNode = new CCClipNode();
+      clipNode.setClipRect(CGRect.make(0, 0, usableWidth, usableHeight));
+      clipNode.addChild(tilesNode);
+      addChild(clipNode);
+    } else {
+      // Position of first tile. Should be top Y.
+      startY = (int) (tileSquareSize * numberOfRows - tileSquareSize / 2.0f);
+      startY = (int) (startY + (usableHeight - tileSquareSize * numberOfRows) / 2.0f);
+
+      // Position of first tile. Should be left X.
+      startX = (int) (tileSquareSize / 2.0f);
+      startX = (int) (startX + (usableWidth - tileSquareSize * numberOfColumns) / 2.0f);
+      addChild(tilesNode);
+    }
 
     // Decide which resolution should be used for blocks' sprites.
     spritesResolution = tileSquareSize <= 128 ? 128 : 256;
@@ -453,117 +618,362 @@ public class GameLayer extends CCLayer {
   }
 
   /**
-   * Update  state, load all tiles sprites.
+   * Update  state, load all tiles sprites. In large board mode only cells in
+   * view get tiles, see {@link #updateViewport(float)}.
    */
   private void loadTiles() {
-    int tI = 0;
-    CCSprite character;
     tilesNode.removeAllChildren(true);
+    int size = numberOfRows * numberOfColumns;
+    bottomNodes = new CCNode[size];
+    frontNodes = new CCNode[size];
+    effectNodes = new CCNode[size];
+    nodePool.clear();
+    for (int tI = 0; tI < size; tI++) {
+      if (!largeBoard || viewport.contains(tI)) {
+        showCell(tI);
+      }
+      addPiece(tI);
+    }
+    if (largeBoard) {
+      rememberShownCells();
+      cullPieces();
+      schedule("updateViewport");
+    }
+  }
 
-    for (int j = startY; j > startY - (tileSquareSize * numberOfRows); j -= tileSquareSize) {
-      for (int i = startX; i < startX + (tileSquareSize * numberOfColumns); i += tileSquareSize) {
-        if (tI >= (numberOfRows * numberOfColumns)) {
-          break;
-        }
-        CCSprite tile;
-        if (spritesResolution == 256) {
-          tile = CCSprite.sprite(SpritePreferences.FLOOR_BLOCK_256);
-        } else {
-          tile = CCSprite.sprite(SpritePreferences.FLOOR_BLOCK_128);
-        }
-        // tile = getFloorSprite(true, gameMap, tI);
-        CCNodeExt eachNode = new CCNodeExt();
-        CCNodeExt heroNode = new CCNodeExt();
-
-        int x = i; // i - j;
-        int y = j; // (i + j) / 2;
-
-        // Bottom tile.
-        if (gameMap[tI] == SLIDE) {
-          if (spritesResolution == 256) {
-            tile = CCSprite.sprite(SpritePreferences.ICE_BLOCK_256);
-          } else {
-            tile = CCSprite.sprite(SpritePreferences.ICE_BLOCK_128);
-          }
-        } else if (gameMap[tI] == TELEP) {
-          // Keep empty block.
-        } else if (gameMap[tI] == EMPTY) {
-          tile = CCSprite.sprite(SpritePreferences.EMPTY_BLOCK);
-        }
+  /**
+   * Add hero or skull node standing on a cell at level start.
+   *
+   * @param tI Cell index.
+   */
+  private void addPiece(final int tI) {
+    CCSprite character;
+    CCNodeExt heroNode = new CCNodeExt();
+    CGPoint position = getCellPosition(tI);
+    if (engine.isHero(tI)) {
+      character = InGameHelper.getHeroSprite(appContext, spritesResolution);
+      heroNode.setContentSize(character.getContentSize());
+      heroNode.addChild(character, Z1);
+      heroNode.setPosition(position);
+      heroNode.setScale(scaleFactor);
+      tilesNode.addChild(heroNode, Z4, HERO_TAG);
+    } else if (engine.isSkull(tI)) {
+      if (spritesResolution == 256) {
+        character = CCSprite.sprite(SpritePreferences.WHITE_SKULL_BLOCK_256);
+      } else {
+        character = CCSprite.sprite(SpritePreferences.WHITE_SKULL_BLOCK_128);
+      }
+      heroNode.setContentSize(character.getContentSize());
+      heroNode.addChild(character, Z1);
+      heroNode.setPosition(position);
+      heroNode.setScale(scaleFactor);
+      tilesNode.addChild(heroNode, Z4, FIRST_SKULL_TAG + tI);
+    }
+  }
 
-        CCNode bottomTile = new CCNodeExt();
-        bottomTile.setContentSize(tile.getContentSize());
-        bottomTile.addChild(tile, -1, 1);
-        bottomTile.setPosition(x, y);
-        bottomTile.setScale(scaleFactor);
-        tilesNode.addChild(bottomTile, Z2);
-
-        // Hero tile.
-        if (heroTable[tI]) {
-          character = InGameHelper.getHeroSprite(appContext, spritesResolution);
-          heroNode.setContentSize(character.getContentSize());
-          heroNode.addChild(character, Z1);
-          heroNode.setPosition(x, y);
-          heroNode.setScale(scaleFactor);
-          tilesNode.addChild(heroNode, Z4, HERO_TAG);
-        } else if (skullsTable[tI]) {
-          if (spritesResolution == 256) {
-            character = CCSprite.sprite(SpritePreferences.WHITE_SKULL_BLOCK_256);
-          } else {
-            character = CCSprite.sprite(SpritePreferences.WHITE_SKULL_BLOCK_128);
-          }
-          heroNode.setContentSize(character.getContentSize());
-          heroNode.addChild(character, Z1);
-          heroNode.setPosition(x, y);
-          heroNode.setScale(scaleFactor);
-          tilesNode.addChild(heroNode, Z4, FIRST_SKULL_TAG + tI);
-        }
+  /**
+   * Give a cell its tile nodes, reusing hidden ones.
+   *
+   * @param tI Cell index.
+   */
+  private void showCell(final int tI) {
+    CGPoint position = getCellPosition(tI);
+    bottomNodes[tI] = placeNode(getBottomSprite(tI), position, Z2);
+    String front = getFrontSprite(tI);
+    if (front != null) {
+      frontNodes[tI] = placeNode(front, position, Z3);
+    }
+    String effect = getEffect(tI);
+    if (effect != null) {
+      effectNodes[tI] = placeNode(effect, position, Z5);
+    }
+  }
 
-        boolean addGas = false;
-        // Front tile
-        if (gameMap[tI] == TELEP) {
-          addChild(ParticleHelper.portalEmitter(x, y, tileSquareSize), Z5);
-        } else if (gameMap[tI] == DESTY) {
-          if (spritesResolution == 256) {
-            tile = CCSprite.sprite(SpritePreferences.DESTINATION_BLOCK_256);
-          } else {
-            tile = CCSprite.sprite(SpritePreferences.DESTINATION_BLOCK_128);
-          }
-          eachNode.setContentSize(tile.getContentSize());
-          eachNode.addChild(tile, Z3);
-          addGas = true;
-        } else if (gameMap[tI] == BLOCK) {
-          if (spritesResolution == 256) {
-            tile = CCSprite.sprite(SpritePreferences.BLOCK_BLOCK_256);
-          } else {
-            tile = CCSprite.sprite(SpritePreferences.BLOCK_BLOCK_128);
-          }
-          eachNode.setContentSize(tile.getContentSize());
-          eachNode.addChild(tile, Z3);
+  /**
+   * Hide tile nodes of a cell and put them in the pool.
+   *
+   * @param tI Cell index.
+   */
+  private void hideCell(final int tI) {
+    releaseNode(bottomNodes, tI, getBottomSprite(tI));
+    releaseNode(frontNodes, tI, getFrontSprite(tI));
+    releaseNode(effectNodes, tI, getEffect(tI));
+  }
+
+  /**
+   * Take node from the pool or create it, and put it on a position.
+   *
+   * @param key Sprite path or effect key.
+   * @param position Cell position.
+   * @param z Z order of new node.
+   * @return Visible node.
+   */
+  private CCNode placeNode(final String key, final CGPoint position, final int z) {
+    List<CCNode> pool = nodePool.get(key);
+    CCNode node;
+    if (pool != null && !pool.isEmpty()) {
+      node = pool.remove(pool.size() - 1);
+      node.setVisible(true);
+      if (node instanceof CCParticleSystem) {
+        ((CCParticleSystem) node).resetSystem();
+      }
+    } else {
+      node = createNode(key);
+      // Effects of a fixed board stay on the layer, above the side panels.
+      if (largeBoard || !(node instanceof CCParticleSystem)) {
+        tilesNode.addChild(node, z);
+      } else {
+        addChild(node, z);
+      }
+    }
+    node.setPosition(position);
+    return node;
+  }
+
+  /**
+   * Hide node of a cell and put it in the pool.
+   *
+   * @param nodes Nodes by cell.
+   * @param tI Cell index.
+   * @param key Sprite path or effect key of the node.
+   */
+  private void releaseNode(final CCNode[] nodes, final int tI, final String key) {
+    CCNode node = nodes[tI];
+    if (node == null) {
+      return;
+    }
+    nodes[tI] = null;
+    node.setVisible(false);
+    if (node instanceof CCParticleSystem) {
+      ((CCParticleSystem) node).stopSystem();
+    }
+    List<CCNode> pool = nodePool.get(key);
+    if (pool == null) {
+      pool = new ArrayList<>();
+      nodePool.put(key, pool);
+    }
+    pool.add(node);
+  }
+
+  /**
+   * Create tile node or particle emitter.
+   *
+   * @param key Sprite path or effect key.
+   * @return Node.
+   */
+  private CCNode createNode(final String key) {
+    CCParticleSystem emitter = null;
+    if (PORTAL_EFFECT.equals(key)) {
+      emitter = ParticleHelper.portalEmitter(0, 0, tileSquareSize);
+    } else if (GAS_EFFECT.equals(key)) {
+      emitter = ParticleHelper.gasEmitter(0, 0, tileSquareSize / 2.0f);
+      if (largeBoard) {
+        // Gas follows the board when it pans.
+        emitter.setPositionType(CCParticleSystem.kCCPositionTypeGrouped);
+      }
+    }
+    if (emitter != null) {
+      // Pooled emitters are stopped, not removed.
+      emitter.setAutoRemoveOnFinish(!largeBoard);
+      return emitter;
+    }
+    CCSprite tile = CCSprite.sprite(key);
+    CCNodeExt node = new CCNodeExt();
+    node.setContentSize(tile.getContentSize());
+    node.addChild(tile, -1, 1);
+    node.setScale(scaleFactor);
+    return node;
+  }
+
+  /**
+   * Get sprite of the tile under pieces.
+   *
+   * @param tI Cell index.
+   * @return Sprite path.
+   */
+  private String getBottomSprite(final int tI) {
+    if (gameMap[tI] == SLIDE) {
+      return spritesResolution == 256 ? SpritePreferences.ICE_BLOCK_256 : SpritePreferences.ICE_BLOCK_128;
+    } else if (gameMap[tI] == EMPTY) {
+      return SpritePreferences.EMPTY_BLOCK;
+    }
+    // Portals keep floor, emitter shows them.
+    return spritesResolution == 256 ? SpritePreferences.FLOOR_BLOCK_256 : SpritePreferences.FLOOR_BLOCK_128;
+  }
+
+  /**
+   * Get sprite of the tile above floor.
+   *
+   * @param tI Cell index.
+   * @return Sprite path, null if cell has none.
+   */
+  private String getFrontSprite(final int tI) {
+    if (gameMap[tI] == DESTY) {
+      return spritesResolution == 256 ? SpritePreferences.DESTINATION_BLOCK_256
+          : SpritePreferences.DESTINATION_BLOCK_128;
+    } else if (gameMap[tI] == BLOCK) {
+      return spritesResolution == 256 ? SpritePreferences.BLOCK_BLOCK_256 : SpritePreferences.BLOCK_BLOCK_128;
+    }
+    return null;
+  }
+
+  /**
+   * Get particle effect of a cell.
+   *
+   * @param tI Cell index.
+   * @return Effect key, null if cell has none.
+   */
+  private String getEffect(final int tI) {
+    if (gameMap[tI] == TELEP) {
+      return PORTAL_EFFECT;
+    } else if (gameMap[tI] == DESTY) {
+      return GAS_EFFECT;
+    }
+    return null;
+  }
+
+  /**
+   * Follow board position, scheduled every frame in large board mode. When
+   * the visible window changes, cells that left it give their nodes to cells
+   * that entered it.
+   *
+   * @param dt Time since last call.
+   */
+  public void updateViewport(final float dt) {
+    CGPoint position = tilesNode.getPosition();
+    viewport.moveTo(position.x, position.y);
+    if (viewport.getFirstColumn() == shownCells[0] && viewport.getLastColumn() == shownCells[1]
+        && viewport.getFirstRow() == shownCells[2] && viewport.getLastRow() == shownCells[3]) {
+      return;
+    }
+    for (int row = shownCells[2]; row <= shownCells[3]; row++) {
+      for (int column = shownCells[0]; column <= shownCells[1]; column++) {
+        int tI = row * numberOfColumns + column;
+        if (!viewport.contains(tI)) {
+          hideCell(tI);
         }
-        eachNode.setPosition(x, y);
-        eachNode.setScale(scaleFactor);
-        tilesNode.addChild(eachNode, Z3, tI);
-        if (addGas) {
-          addChild(ParticleHelper.gasEmitter(x, y,
-              eachNode.getContentSize().width * eachNode.getScale() / 2.0f), Z5);
+      }
+    }
+    for (int row = viewport.getFirstRow(); row <= viewport.getLastRow(); row++) {
+      for (int column = viewport.getFirstColumn(); column <= viewport.getLastColumn(); column++) {
+        int tI = row * numberOfColumns + column;
+        if (bottomNodes[tI] == null) {
+          showCell(tI);
         }
-        tI++;
       }
     }
+    rememberShownCells();
+    cullPieces();
+  }
+
+  /**
+   * Store visible window of the viewport as the shown one.
+   */
+  private void rememberShownCells() {
+    shownCells[0] = viewport.getFirstColumn();
+    shownCells[1] = viewport.getLastColumn();
+    shownCells[2] = viewport.getFirstRow();
+    shownCells[3] = viewport.getLastRow();
+  }
+
+  /**
+   * Hide skulls whose cells are outside of visible window, they are not drawn
+   * then. Cells come from the engine, nodes may still be animated. Runs on
+   * every window change and after every move.
+   */
+  private void cullPieces() {
+    for (int id = 0; id < skullTags.length; id++) {
+      tilesNode.getChildByTag(skullTags[id]).setVisible(id == movingSkull
+          || viewport.contains(engine.getSkullPosition(id)));
+    }
+  }
+
+  /**
+   * Cull skulls after a move in large board mode.
+   *
+   * @param result Outcome of the move.
+   */
+  private void cullAfterMove(final MoveResult result) {
+    if (!largeBoard) {
+      return;
+    }
+    movingSkull = result.isPushed() ? result.getSkullId() : -1;
+    cullPieces();
+  }
+
+  /**
+   * Move camera to the hero if it gets close to an edge of the screen.
+   *
+   * @param cell Hero cell after the move.
+   */
+  private void followHero(final int cell) {
+    if (!largeBoard || panned || !viewport.isNearEdge(cell, CAMERA_MARGIN)) {
+      return;
+    }
+    tilesNode.stopAllActions();
+    tilesNode.runAction(CCMoveTo.action(CAMERA_TIME,
+        CGPoint.make(viewport.centerX(cell), viewport.centerY(cell))));
+  }
+
+  /**
+   * Get middle of first two fingers.
+   *
+   * @param event Touch event with at least two pointers.
+   * @return Position in GL coordinates.
+   */
+  private static CGPoint getPanLocation(final MotionEvent event) {
+    return CCDirector.sharedDirector().convertToGL(CGPoint.ccp((event.getX(0) + event.getX(1)) / 2.0f,
+        (event.getY(0) + event.getY(1)) / 2.0f));
   }
 
   @Override
   public final boolean ccTouchesBegan(final MotionEvent event) {
+    if (largeBoard && event.getPointerCount() >= 2) {
+      // Second finger turns the touch into panning.
+      panned = true;
+      panLocation = getPanLocation(event);
+      tilesNode.stopAllActions();
+      return true;
+    }
     startLocation = CCDirector.sharedDirector().convertToGL(CGPoint.ccp(event.getX(), event.getY()));
     return true;
   }
 
+  @Override
+  public final boolean ccTouchesMoved(final MotionEvent event) {
+    if (panLocation != null && event.getPointerCount() >= 2) {
+      CGPoint location = getPanLocation(event);
+      viewport.moveBy(location.x - panLocation.x, location.y - panLocation.y);
+      tilesNode.setPosition(viewport.getX(), viewport.getY());
+      panLocation = location;
+    }
+    return true;
+  }
+
   @Override
   public final boolean ccTouchesEnded(final MotionEvent event) {
+    if (panned) {
+      // Lifting a finger ends panning, last one ends the touch.
+      panLocation = null;
+      panned = event.getPointerCount() > 1;
+      return true;
+    }
     CGPoint endLocation = CCDirector.sharedDirector().convertToGL(CGPoint.ccp(event.getX(), event.getY()));
     CCSprite bsReset = (CCSprite) getChildByTag(RESET_BUTTON_TAG);
     CCSprite bsRevert = (CCSprite) getChildByTag(REVERT_BUTTON_TAG);
+    CCSprite bsHint = (CCSprite) getChildByTag(HINT_BUTTON_TAG);
+    CCSprite bsWatch = (CCSprite) getChildByTag(WATCH_BUTTON_TAG);
+
+    if (playback) {
+      // Player can only leave playback.
+      if (InGameHelper.detectClick(startLocation, endLocation)
+          && (InGameHelper.spriteClicked(bsReset, startLocation, endLocation)
+          || InGameHelper.spriteClicked(bsWatch, startLocation, endLocation))) {
+        unschedule("playSolution");
+        resetCallback();
+      }
+      return true;
+    }
 
     if (InGameHelper.detectClick(startLocation, endLocation)) {
       // Buttons in winOverlay.
@@ -584,9 +994,13 @@ public class GameLayer extends CCLayer {
       } else if (InGameHelper.spriteClicked(bsReset, startLocation, endLocation)) {
         AchievementHelper.graveMistake();
         resetCallback();
-      } else if (InGameHelper.spriteClicked(bsRevert, startLocation, endLocation) && !prevMovesList.isEmpty()) {
+      } else if (InGameHelper.spriteClicked(bsRevert, startLocation, endLocation) && engine.canRevert()) {
         AchievementHelper.backInTime();
         revertMove();
+      } else if (InGameHelper.spriteClicked(bsHint, startLocation, endLocation)) {
+        requestHint();
+      } else if (InGameHelper.spriteClicked(bsWatch, startLocation, endLocation) && getPackedSolution() != null) {
+        startPlayback();
       }
     } else if (!levelCompleted) {
       // Game logic
@@ -599,9 +1013,9 @@ public class GameLayer extends CCLayer {
       if (heroNode != null) {
         if (heroNode.numberOfRunningActions() == 0) {
           if (skullNode == null) {
-            slideHero(this, InGameHelper.detectMove(startLocation, endLocation));
+            slideHero(InGameHelper.detectMove(startLocation, endLocation));
           } else if (skullNode.numberOfRunningActions() == 0) {
-            slideHero(this, InGameHelper.detectMove(startLocation, endLocation));
+            slideHero(InGameHelper.detectMove(startLocation, endLocation));
           }
         }
       }
@@ -623,10 +1037,11 @@ public class GameLayer extends CCLayer {
 
   public void initializeHintAnimationScheduler(Object sender) {
     // Display hints during tutorial level
-    isHintUpActive = (heroTable[19] || heroTable[25] || heroTable[34]);
-    isHintRightActive = (heroTable[11] || heroTable[12] || heroTable[21]);
-    isHintDownActive = (heroTable[13] || heroTable[22] || heroTable[30]);
-    isHintLeftActive = (heroTable[26] || heroTable[35] || heroTable[36] || heroTable[37] || heroTable[38]);
+    isHintUpActive = (engine.isHero(19) || engine.isHero(25) || engine.isHero(34));
+    isHintRightActive = (engine.isHero(11) || engine.isHero(12) || engine.isHero(21));
+    isHintDownActive = (engine.isHero(13) || engine.isHero(22) || engine.isHero(30));
+    isHintLeftActive = (engine.isHero(26) || engine.isHero(35) || engine.isHero(36) || engine.isHero(37)
+        || engine.isHero(38));
     CGPoint startPosition;
     CCMoveTo moveTo;
     // Up
@@ -659,574 +1074,290 @@ public class GameLayer extends CCLayer {
   }
 
   /**
-   * Calculate hero move parameters.
+   * Apply swipe to the board and animate its outcome.
    *
-   * @param sender Sender callback.
-   * @param moveOb String object, should be one of 4 constants.
-   */
-  public void slideHero(Object sender, Object moveOb) {
-    String move = (String) moveOb;
-    int portTo = -1;
-    int heroToPush = -1;
-    /*
-     * UP
-     */
-    if (move.equals(GlobalPreferences.MOVE_UP)) {
-      for (int y = 0; y < tabSize; y++) {
-        if (heroTable[y]) {
-          int moveTo = y;
-          for (int f = y - numberOfColumns; f >= 0; f -= numberOfColumns) {
-            if (skullsTable[f]) {
-              if (gameMap[f + numberOfColumns] == SLIDE && f + numberOfColumns != y) {
-              } else {
-                heroToPush = f;
-                moveTo = f;
-              }
-              break;
-            } else if (gameMap[f] == FLOOR) {
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == SLIDE) {
-              chillOutSteps++;
-              moveTo = f;
-            } else if (gameMap[f] == DESTY) {
-              AchievementHelper.intoxicated();
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == TELEP) {
-              for (Portal t : portalList) {
-                if (f == t.getPos()) {
-                  moveTo = f;
-                  portTo = t.getDestination();
-                  break;
-                }
-              }
-              break;
-            } else if (gameMap[f] >= BLOCK) {
-              break;
-            }
-          }
-          if (moveTo != y || heroToPush > -1) {
-            // y->f
-            animateHero(y, moveTo, portTo, move, heroToPush);
-          }
-          break;
-        }
-      }
+   * @param move Direction of move, should be one of 4 constants.
+   */
+  private void slideHero(final int move) {
+    MoveResult result = engine.move(move);
+    if (!result.isMoved()) {
+      return;
     }
+    cancelHint();
+    journal.record(move, System.currentTimeMillis());
+    journal.setHash(engine.getHash());
 
-    /*
-     * DOWN
-     */
-    if (move.equals(GlobalPreferences.MOVE_DOWN)) {
-      for (int y = 0; y < tabSize; y++) {
-        if (heroTable[y]) {
-          int moveTo = y;
-          for (int f = y + numberOfColumns; f < tabSize; f += numberOfColumns) {
-            if (skullsTable[f]) {
-              if (gameMap[f - numberOfColumns] == SLIDE && f - numberOfColumns != y) {
-
-              } else {
-                heroToPush = f;
-                moveTo = f;
-              }
-              break;
-            } else if (gameMap[f] == FLOOR) {
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == SLIDE) {
-              chillOutSteps++;
-              moveTo = f;
-            } else if (gameMap[f] == DESTY) {
-              AchievementHelper.intoxicated();
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == TELEP) {
-              for (Portal t : portalList) {
-                if (f == t.getPos()) {
-                  moveTo = f;
-                  portTo = t.getDestination();
-                  break;
-                }
-              }
-              break;
-            } else if (gameMap[f] >= BLOCK) {
-              break;
-            }
-          }
-          if (moveTo != y || heroToPush > -1) {
-            // y->f
-            animateHero(y, moveTo, portTo, move, heroToPush);
-          }
-          break;
-        }
-      }
+    // Achievements.
+    chillOutSteps += result.getIceSteps();
+    if (chillOutSteps >= 45) {
+      AchievementHelper.chillOut();
+    }
+    if (result.isHeroOnDestination()) {
+      AchievementHelper.intoxicated();
+    }
+    for (int i = 0; i < result.getPortalHops(); i++) {
+      AchievementHelper.looper();
+    }
+    if (result.getPortalHops() > 0) {
+      playPortalSound();
     }
 
-    /*
-     * LEFT
-     */
-    if (move.equals(GlobalPreferences.MOVE_LEFT)) {
-      for (int y = 0; y < tabSize; y++) {
-        if (heroTable[y]) {
-          int numberOfMoves = y % numberOfColumns;
-          int moveTo = y;
-          for (int f = y - 1; f >= y - numberOfMoves; f--) {
-            if (skullsTable[f]) {
-              if (gameMap[f + 1] == SLIDE && f + 1 != y) {
-
-              } else {
-                heroToPush = f;
-                moveTo = f;
-              }
-              break;
-            } else if (gameMap[f] == FLOOR) {
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == SLIDE) {
-              chillOutSteps++;
-              moveTo = f;
-            } else if (gameMap[f] == DESTY) {
-              AchievementHelper.intoxicated();
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == TELEP) {
-              for (Portal t : portalList) {
-                if (f == t.getPos()) {
-                  moveTo = f;
-                  portTo = t.getDestination();
-                  break;
-                }
-              }
-              break;
-            } else if (gameMap[f] >= BLOCK) {
-              break;
-            }
-          }
-          if (moveTo != y || heroToPush > -1) {
-            // y->f
-            animateHero(y, moveTo, portTo, move, heroToPush);
-          }
-          break;
-        }
+    // Animate hero. If skull was pushed, hero's last step runs together with
+    // skull's slide.
+    List<CCFiniteTimeAction> heroActions = new ArrayList<>();
+    int heroPoints = result.getHeroPathLength();
+    float skullDelay = 0;
+    float lastStepTime = 0;
+    for (int i = 1; i < heroPoints; i++) {
+      lastStepTime = addStepActions(heroActions, result.getHeroPoint(i - 1), result.getHeroPoint(i),
+          result.isHeroHop(i), 0.05f);
+      if (i < heroPoints - 1) {
+        skullDelay += lastStepTime;
       }
     }
+    levelCompleted = result.isCompleted();
+    followHero(result.getHeroEnd());
+    cullAfterMove(result);
+    if (!result.isPushed()) {
+      tilesNode.getChildByTag(HERO_TAG).runAction(toSequence(heroActions));
+      return;
+    }
+    tilesNode.getChildByTag(HERO_TAG).runAction(toSequence(heroActions));
 
-    /*
-     * RIGHT
-     */
-    if (move.equals(GlobalPreferences.MOVE_RIGHT)) {
-      for (int y = 0; y < tabSize; y++) {
-        if (heroTable[y]) {
-          int moveTo = y;
-          for (int f = y + 1; f <= (y / numberOfColumns) * numberOfColumns + numberOfColumns - 1; f++) {
-            if (skullsTable[f]) {
-              if (gameMap[f - 1] == SLIDE && f - 1 != y) {
-
-              } else {
-                heroToPush = f;
-                moveTo = f;
-              }
-              break;
-            } else if (gameMap[f] == FLOOR) {
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == SLIDE) {
-              chillOutSteps++;
-              moveTo = f;
-            } else if (gameMap[f] == DESTY) {
-              AchievementHelper.intoxicated();
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == TELEP) {
-              for (Portal t : portalList) {
-                if (f == t.getPos()) {
-                  moveTo = f;
-                  portTo = t.getDestination();
-                  break;
-                }
-              }
-              break;
-            } else if (gameMap[f] >= BLOCK) {
-              break;
-            }
-          }
-          if (moveTo != y || heroToPush > -1) {
-            // y->f
-            animateHero(y, moveTo, portTo, move, heroToPush);
-          }
-          break;
-        }
-      }
+    // Animate skull, this is the last move.
+    List<CCFiniteTimeAction> skullActions = new ArrayList<>();
+    skullActions.add(CCDelayTime.action(skullDelay));
+    for (int i = 1; i < result.getSkullPathLength(); i++) {
+      lastStepTime = addStepActions(skullActions, result.getSkullPoint(i - 1), result.getSkullPoint(i),
+          result.isSkullHop(i), 0.15f);
     }
-    if (chillOutSteps >= 45) {
-      AchievementHelper.chillOut();
+    if (levelCompleted && !playback) {
+      skullActions.add(CCDelayTime.action(lastStepTime));
+      skullActions.add(CCCallFuncN.action(this, "winCallback"));
+    }
+    skullCurrentTag = skullTags[result.getSkullId()];
+    tilesNode.getChildByTag(skullCurrentTag).runAction(toSequence(skullActions));
+    updatePushes(1);
+    checkAllSkullsCollected();
+    playPushSound();
+    if (deadlocks.isDeadlocked(result.getSkullPoint(result.getSkullPathLength() - 1))) {
+      showStuckWarning();
     }
   }
 
   /**
-   * Calculate skull move parameters.
-   *
-   * @param sender Sender callback.
-   * @param moveOb Move direction, should be one of 4 constants.
+   * Start background search of the next swipe. Result is polled on the GL
+   * thread, so the game loop never waits for the search.
    */
-  public void slideSkull(Object sender, Object moveOb) {
-    String move = (String) moveOb;
-    int portTo = -1;
-    /*
-     * UP
-     */
-    if (move.equals(GlobalPreferences.MOVE_UP)) {
-      for (int y = 0; y < tabSize; y++) {
-        if (y == skullCurrentPosition) {
-          int moveTo = y;
-          for (int f = y - numberOfColumns; f >= 0; f -= numberOfColumns) {
-            if (skullsTable[f] || heroTable[f]) {
-              break;
-            } else if (gameMap[f] == FLOOR) {
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == SLIDE) {
-              moveTo = f;
-            } else if (gameMap[f] == DESTY) {
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == TELEP) {
-              for (Portal t : portalList) {
-                if (f == t.getPos()) {
-                  moveTo = f;
-                  portTo = t.getDestination();
-                  break;
-                }
-              }
-              break;
-            } else if (gameMap[f] >= BLOCK) {
-              break;
-            }
-          }
-          // if (moveTo != y)
-          // y->f
-          animateSkull(y, moveTo, portTo, move);
-          break;
-        }
-      }
+  private void requestHint() {
+    if (levelCompleted || hintEngine.isBusy()) {
+      return;
     }
-
-    /*
-     * DOWN
-     */
-    if (move.equals(GlobalPreferences.MOVE_DOWN)) {
-      for (int y = 0; y < tabSize; y++) {
-        if (y == skullCurrentPosition) {
-          int moveTo = y;
-          for (int f = y + numberOfColumns; f < tabSize; f += numberOfColumns) {
-            if (skullsTable[f] || heroTable[f]) {
-              break;
-            } else if (gameMap[f] == FLOOR) {
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == SLIDE) {
-              moveTo = f;
-            } else if (gameMap[f] == DESTY) {
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == TELEP) {
-              for (Portal t : portalList) {
-                if (f == t.getPos()) {
-                  moveTo = f;
-                  portTo = t.getDestination();
-                  break;
-                }
-              }
-              break;
-            } else if (gameMap[f] >= BLOCK) {
-              break;
-            }
-          }
-          // if (moveTo!=y)
-          // y->f
-          animateSkull(y, moveTo, portTo, move);
-          break;
-        }
+    Solution solution = getPackedSolution();
+    if (solution != null) {
+      int move = SolutionPack.nextMove(level, solution, engine.snapshot());
+      if (move != GlobalPreferences.NO_MOVE) {
+        showHint(move);
+        return;
       }
     }
+    hintEngine.request(level, engine.snapshot(), HINT_BUDGET_MILLIS);
+    schedule("pollHint", 0.1f);
+  }
 
-    /*
-     * LEFT
-     */
-    if (move.equals(GlobalPreferences.MOVE_LEFT)) {
-      for (int y = 0; y < tabSize; y++) {
-        if (y == skullCurrentPosition) {
-          int numberOfMoves = y % numberOfColumns;
-          int moveTo = y;
-          for (int f = y - 1; f >= y - numberOfMoves; f--) {
-            if (skullsTable[f] || heroTable[f]) {
-              break;
-            } else if (gameMap[f] == FLOOR) {
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == SLIDE) {
-              moveTo = f;
-            } else if (gameMap[f] == DESTY) {
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == TELEP) {
-              for (Portal t : portalList) {
-                if (f == t.getPos()) {
-                  moveTo = f;
-                  portTo = t.getDestination();
-                  break;
-                }
-              }
-              break;
-            } else if (gameMap[f] >= BLOCK) {
-              break;
-            }
-          }
-          // if (moveTo!=y)
-          // y->f
-          animateSkull(y, moveTo, portTo, move);
-          break;
-        }
-      }
+  /**
+   * Check if hint search finished. Scheduled after hint request.
+   *
+   * @param dt Time since last call.
+   */
+  public void pollHint(final float dt) {
+    if (hintEngine.isBusy()) {
+      return;
+    }
+    unschedule("pollHint");
+    int move = hintEngine.poll();
+    if (move != GlobalPreferences.NO_MOVE) {
+      showHint(move);
     }
+  }
 
-    /*
-     * RIGHT
-     */
-    if (move.equals(GlobalPreferences.MOVE_RIGHT)) {
-      for (int y = 0; y < tabSize; y++) {
-        if (y == skullCurrentPosition) {
-          int moveTo = y;
-          for (int f = y + 1; f <= (y / numberOfColumns) * numberOfColumns + numberOfColumns - 1; f++) {
-            if (skullsTable[f] || heroTable[f]) {
-              break;
-            } else if (gameMap[f] == FLOOR) {
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == SLIDE) {
-              moveTo = f;
-            } else if (gameMap[f] == DESTY) {
-              moveTo = f;
-              break;
-            } else if (gameMap[f] == TELEP) {
-              for (Portal t : portalList) {
-                if (f == t.getPos()) {
-                  moveTo = f;
-                  portTo = t.getDestination();
-                  break;
-                }
-              }
-              break;
-            } else if (gameMap[f] >= BLOCK) {
-              break;
-            }
-          }
-          // if (moveTo!=y)
-          // y->f
-          animateSkull(y, moveTo, portTo, move);
-          break;
-        }
-      }
+  /**
+   * Stop hint search and hide its result. Called on every board change.
+   */
+  private void cancelHint() {
+    hintEngine.cancel();
+    unschedule("pollHint");
+    if (solverHintSprite != null) {
+      solverHintSprite.stopAllActions();
+      solverHintSprite.setVisible(false);
     }
   }
 
   /**
-   * Move and animate hero.
+   * Animate finger swiping in given direction, once.
    *
-   * @param from Current hero position (in map).
-   * @param to Hero wanted position.
-   * @param destination Portal destination. Will not be considered if value is set
-   * to -1.
-   * @param move Direction of move.
-   * @param skullToPush Skull's position in boolean tab. This skull will be moved
-   * later. Will not be considered if value is set to -1.
-   */
-  public void animateHero(int from, int to, int destination, String move, int skullToPush) {
-    // Get position of node to which we should move hero.
-    CGPoint moveTo = tilesNode.getChildByTag(to).getPosition();
-
-    // Create animation sequence.
-    float time = calcTime(from, to);
-    CCDelayTime delay = CCDelayTime.action(time);
-    CCMoveTo moveTile = CCMoveTo.action(time * moveBoost, moveTo);
-    CCCallFunc win = CCCallFuncN.action(this, "winCallback");
-
-    // Create current move MoveBackup and add it to previousMovesList.
-    // Hero is always moved first, so don't add it while executing skull
-    // move.
-    heroPreviousPosition = from;
-    heroCurrentPosition = to;
-
-    // First we assume that white hero will not be moved.
-    if (!anyMoveBackedUp) {
-      prevMovesList.add(new MoveBackup(heroPreviousPosition, -1, -1));
-      anyMoveBackedUp = true;
-    }
-
-    // Animate.
-    CCSequence se;
-    // If it was first and the last move (if no skulls were pushed).
-    if (destination == -1 && skullToPush == -1) {
-      if (!levelCompleted) {
-        se = CCSequence.actions(moveTile);
-      } else {
-        se = CCSequence.actions(moveTile, delay, win);
-      }
-      tilesNode.getChildByTag(HERO_TAG).runAction(se);
-      heroTable[to] = true;
-      heroTable[from] = false;
-      anyMoveBackedUp = false;
-    }
-    // If hero entered portal, than start new move for hero.
-    else if (destination != -1 && skullToPush == -1) {
-      CCCallFuncND newSlide = CCCallFuncND.action(this, "slideHero", move);
-      CCDelayTime portalDelay = CCDelayTime.action(0.1f);
-      CCScaleTo shrink = CCScaleTo.action(0.05f, 0.01f * scaleFactor);
-      CCScaleTo grow = CCScaleTo.action(0.05f, scaleFactor);
-      CGPoint newPos = tilesNode.getChildByTag(destination).getPosition();
-      CCMoveTo portalMove = CCMoveTo.action(0.1f, newPos);
-      se = CCSequence.actions(moveTile, shrink, portalMove, portalDelay, grow, newSlide);
-      playPortalSound();
-      tilesNode.getChildByTag(HERO_TAG).runAction(se);
-      heroTable[from] = false;
-      heroTable[to] = false;
-      heroTable[destination] = true;
-      AchievementHelper.looper();
+   * @param move Direction of the hint.
+   */
+  private void showHint(final int move) {
+    if (solverHintSprite == null) {
+      solverHintSprite = CCSprite.sprite(SpritePreferences.HINT_INDEX_FINGER);
+      addChild(solverHintSprite, Z5);
     }
-    // If skull was pushed, than start new move for skull.
-    // It is the last move for hero, update map with position and tag of
-    // pushed skull.
-    else if (destination == -1 && skullToPush != -1) {
-      skullCurrentPosition = skullToPush;
-      for (Skull skull : skullsList) {
-        if (skull.getPosition() == skullCurrentPosition) {
-          skullCurrentTag = skull.getSkullTag();
-          break;
+    float w = screenSize.width * 0.4f;
+    float h = screenSize.height / 2.0f;
+    CGPoint startPosition;
+    CGPoint endPosition;
+    if (move == GlobalPreferences.MOVE_UP) {
+      startPosition = CGPoint.make(w, screenSize.height / 4.0f);
+      endPosition = CGPoint.make(w, screenSize.height / 4.0f * 3);
+    } else if (move == GlobalPreferences.MOVE_RIGHT) {
+      startPosition = CGPoint.make(w / 2.0f, h);
+      endPosition = CGPoint.make(w * 1.5f, h);
+    } else if (move == GlobalPreferences.MOVE_DOWN) {
+      startPosition = CGPoint.make(w, screenSize.height / 4.0f * 3);
+      endPosition = CGPoint.make(w, screenSize.height / 4.0f);
+    } else {
+      startPosition = CGPoint.make(w * 1.5f, h);
+      endPosition = CGPoint.make(w / 2.0f, h);
+    }
+    solverHintSprite.stopAllActions();
+    solverHintSprite.setPosition(startPosition);
+    solverHintSprite.setVisible(true);
+    solverHintSprite.runAction(CCSequence.actions(CCFadeIn.action(0.1f),
+        CCMoveTo.action(1.0f, endPosition), CCFadeOut.action(0.1f)));
+  }
+
+  /**
+   * Get precomputed solution of current level. Solution pack is read on first
+   * call, only the entry of current level is decoded.
+   *
+   * @return Solution, null if pack has none for current level file.
+   */
+  private Solution getPackedSolution() {
+    if (!packedSolutionLoaded) {
+      packedSolutionLoaded = true;
+      InputStream is = null;
+      try {
+        is = appContext.getAssets().open(SolutionPack.ASSET);
+        packedSolution = SolutionPack.load(is, levelNumber, levelFileHash);
+      } catch (IOException e) {
+        Logger.log("IOException. Cannot read solution pack.");
+        e.printStackTrace();
+      } finally {
+        try {
+          if (is != null) {
+            is.close();
+          }
+        } catch (IOException e) {
+          Logger.log("IOException. Cannot close file.");
+          e.printStackTrace();
         }
       }
-      prevMovesList.get(prevMovesList.size() - 1).setSkullPosition(skullCurrentPosition);
-      prevMovesList.get(prevMovesList.size() - 1).setSkullTag(skullCurrentTag);
-      // Remember move sequence for hero.
-      heroCurrSeq = CCSequence.actions(moveTile);
-      slideSkull(this, move);
     }
+    return packedSolution;
+  }
+
+  /**
+   * Restart level playing its precomputed solution.
+   */
+  private void startPlayback() {
+    InGameHelper.turnAllSensorsOff(this);
+    CCScene scene = GameLayer.scene(levelNumber, true);
+    scene.setTag(GlobalPreferences.GAME_LAYER_TAG);
+    CCFadeTransition fade = CCFadeTransition.transition(1f, scene);
+    CCDirector.sharedDirector().replaceScene(fade);
   }
 
   /**
-   * Move and animate skull.
+   * Play next swipe of precomputed solution. Scheduled in playback mode,
+   * restarts the level for the player when solution ends.
    *
-   * @param from Current skull position (in map).
-   * @param to Skull wanted position.
-   * @param portalTo Portal destination. Will not be considered if value is set
-   * to -1.
-   * @param move Direction of move.
-   */
-  public void animateSkull(int from, int to, int portalTo, final String move) {
-    // Get position of node to which we want to push skull.
-    CGPoint moveTo = tilesNode.getChildByTag(to).getPosition();
-
-    // Create animation.
-    float time = calcTime(from, to);
-    CCDelayTime delay = CCDelayTime.action(time);
-    CCMoveTo moveTile = CCMoveTo.action(time * moveBoost, moveTo);
-    CCCallFunc win = CCCallFuncN.action(this, "winCallback");
-    CCSequence se;
-
-    // Animate HERO.
-    // Check if skull should be really moved.
-    if (to != from) {
-      tilesNode.getChildByTag(HERO_TAG).runAction(heroCurrSeq);
-      heroTable[heroPreviousPosition] = false;
-      heroTable[heroCurrentPosition] = true;
-      // If skull was not moved but hero was moved. Rare bug fix.
-    } else if (heroCurrentPosition != heroPreviousPosition) {
-      int newMoveDestination = 0;
-      boolean shouldMoveHero = false;
-      if (move.equals(GlobalPreferences.MOVE_LEFT) && (heroCurrentPosition + 1) != heroPreviousPosition) {
-        newMoveDestination = heroCurrentPosition + 1;
-        shouldMoveHero = true;
-      } else if (move.equals(GlobalPreferences.MOVE_RIGHT) && (heroCurrentPosition - 1) != heroPreviousPosition) {
-        newMoveDestination = heroCurrentPosition - 1;
-        shouldMoveHero = true;
-      } else if (move.equals(GlobalPreferences.MOVE_UP)
-          && (heroCurrentPosition + numberOfColumns) != heroPreviousPosition) {
-        newMoveDestination = heroCurrentPosition + numberOfColumns;
-        shouldMoveHero = true;
-      } else if (move.equals(GlobalPreferences.MOVE_DOWN)
-          && (heroCurrentPosition - numberOfColumns) != heroPreviousPosition) {
-        newMoveDestination = heroCurrentPosition - numberOfColumns;
-        shouldMoveHero = true;
-      }
-      if (shouldMoveHero) {
-        CGPoint position = tilesNode.getChildByTag(newMoveDestination).getPosition();
-        heroCurrSeq = CCSequence.actions(CCMoveTo.action(time, position));
-        tilesNode.getChildByTag(HERO_TAG).runAction(heroCurrSeq);
-        heroTable[heroPreviousPosition] = false;
-        heroTable[newMoveDestination] = true;
-      }
+   * @param dt Time since last call.
+   */
+  public void playSolution(final float dt) {
+    CCNodeExt heroNode = (CCNodeExt) tilesNode.getChildByTag(HERO_TAG);
+    CCNodeExt skullNode = (CCNodeExt) tilesNode.getChildByTag(skullCurrentTag);
+    if ((heroNode != null && heroNode.numberOfRunningActions() > 0)
+        || (skullNode != null && skullNode.numberOfRunningActions() > 0)) {
+      return;
     }
+    Solution solution = getPackedSolution();
+    if (solution == null || playbackStep >= solution.getMoves().length) {
+      unschedule("playSolution");
+      resetCallback();
+      return;
+    }
+    slideHero(solution.getMoves()[playbackStep++]);
+  }
 
-    // Animate skull, this is the last move.
-    if (portalTo == -1 && from != to) {
-      // Update number of pushes.
-      Thread t = new Thread() {
-        public void run() {
-          updatePushes(1);
-        }
-      };
-      t.start();
-
-      // Update maps.
-      anyMoveBackedUp = false;
-      skullsTable[from] = false;
-      skullsTable[to] = true;
-      skullCurrentPosition = to;
-      for (Skull skull : skullsList) {
-        if (skull.getPosition() == from) {
-          skull.setPosition(to);
-          break;
-        }
-      }
+  @Override
+  public void onExit() {
+    hintEngine.shutdown();
+    super.onExit();
+  }
 
-      // Check if all skulls collected
-      levelCompleted = checkAllSkullsCollected();
-      if (!levelCompleted) {
-        se = CCSequence.actions(moveTile);
-      } else {
-        se = CCSequence.actions(moveTile, delay, win);
-      }
-      tilesNode.getChildByTag(skullCurrentTag).runAction(se);
-      playPushSound();
+  /**
+   * Flash warning that level cannot be completed without reverting.
+   */
+  private void showStuckWarning() {
+    CCBitmapFontAtlas stuckLabel = (CCBitmapFontAtlas) getChildByTag(STUCK_LABEL_TAG);
+    if (stuckLabel == null) {
+      stuckLabel = CCBitmapFontAtlas.bitmapFontAtlas("Stuck! Revert", myFont);
+      stuckLabel.setScale(screenSize.height * 0.1f / stuckLabel.getContentSize().height);
+      stuckLabel.setColor(fontColor);
+      stuckLabel.setPosition(screenSize.width * 0.4f, screenSize.height * 0.5f);
+      addChild(stuckLabel, Z5, STUCK_LABEL_TAG);
     }
-    // Start new move for skull because it entered portal.
-    else if (portalTo != -1) {
-      SoundEngine.sharedEngine().playEffect(appContext, R.raw.teleport);
-      AchievementHelper.looper();
+    stuckLabel.stopAllActions();
+    stuckLabel.setOpacity(0);
+    stuckLabel.runAction(CCSequence.actions(CCFadeIn.action(0.2f), CCDelayTime.action(1.5f),
+        CCFadeOut.action(0.5f)));
+  }
 
-      // Create animation.
-      CCCallFuncND newSlide = CCCallFuncND.action(this, "slideSkull", move);
-      CCDelayTime tpDelay = CCDelayTime.action(0.1f);
-      CCScaleTo shrink = CCScaleTo.action(0.15f, 0.05f * scaleFactor);
-      CCScaleTo grow = CCScaleTo.action(0.15f, 1f * scaleFactor);
-      CGPoint newPos = tilesNode.getChildByTag(portalTo).getPosition();
-      CCMoveTo portal = CCMoveTo.action(0.1f, newPos);
-      se = CCSequence.actions(moveTile, shrink, portal, tpDelay, grow, newSlide);
-
-      tilesNode.getChildByTag(skullCurrentTag).runAction(se);
-
-      // Update maps.
-      skullsTable[from] = false;
-      skullsTable[to] = false;
-      skullsTable[portalTo] = true;
-      skullCurrentPosition = portalTo;
-      for (Skull skull : skullsList) {
-        if (skull.getPosition() == from) {
-          skull.setPosition(portalTo);
-          break;
-        }
-      }
+  /**
+   * Add animation of a single way point change.
+   *
+   * @param actions List of actions to extend.
+   * @param from Starting position (in map).
+   * @param to Way point position (in map).
+   * @param hop True if way point is reached by teleport.
+   * @param scaleTime Duration of shrink and grow effect while teleporting.
+   * @return Duration of added actions.
+   */
+  private float addStepActions(final List<CCFiniteTimeAction> actions, final int from, final int to,
+      final boolean hop, final float scaleTime) {
+    if (hop) {
+      actions.add(CCScaleTo.action(scaleTime, 0.01f * scaleFactor));
+      actions.add(CCMoveTo.action(0.1f, getCellPosition(to)));
+      actions.add(CCDelayTime.action(0.1f));
+      actions.add(CCScaleTo.action(scaleTime, scaleFactor));
+      return 2 * scaleTime + 0.2f;
     }
+    float time = calcTime(from, to) * moveBoost;
+    actions.add(CCMoveTo.action(time, getCellPosition(to)));
+    return time;
+  }
+
+  /**
+   * Join actions into sequence.
+   *
+   * @param actions Non empty list of actions.
+   * @return Sequence.
+   */
+  private static CCSequence toSequence(final List<CCFiniteTimeAction> actions) {
+    CCFiniteTimeAction[] rest = actions.subList(1, actions.size()).toArray(new CCFiniteTimeAction[0]);
+    return CCSequence.actions(actions.get(0), rest);
+  }
+
+  /**
+   * Get position of tile node.
+   *
+   * @param cell Cell index (in map).
+   * @return Position of tile.
+   */
+  private CGPoint getCellPosition(final int cell) {
+    return CGPoint.make(startX + (cell % numberOfColumns) * tileSquareSize,
+        startY - (cell / numberOfColumns) * tileSquareSize);
   }
 
   /**
@@ -1275,17 +1406,12 @@ public class GameLayer extends CCLayer {
    * @return True if all skulls collected, false if not.
    */
   public final boolean checkAllSkullsCollected() {
-    int i = 0;
-    for (Skull skull : skullsList) {
-      if (gameMap[skull.getPosition()] == DESTY) {
-        i++;
-      }
-    }
+    int i = engine.countSkullsOnDestination();
     if (i != numSkullsCollected) {
       numSkullsCollected = i;
       updateSkulls(numSkullsCollected);
     }
-    return i == skullsToCollect;
+    return engine.isCompleted();
   }
 
   /**
@@ -1326,19 +1452,32 @@ public class GameLayer extends CCLayer {
     // Initialize  parameters.
     numberOfColumns = levelParser.getNumberOfColumns();
     numberOfRows = levelParser.getNumberOfRows();
-    tabSize = numberOfColumns * numberOfRows;
     minimumNumberOfPushes = levelParser.getMinimumPushes();
     skullsToCollect = levelParser.getNumberOfSkullsToCollect();
-    // Get all  tables.
-    gameMap = levelParser.getGameBoard();
-    skullsTable = levelParser.getSkullsTable();
-    skullsList = levelParser.getSkullsList();
-    portalList = levelParser.getPortalsList();
-    // Initialize hero table and set first position to true.
-    heroTable = new boolean[tabSize + 1];
-    heroTable[levelParser.getHeroFirstPosition()] = true;
-    // Initialize previous moves list.
-    prevMovesList = new ArrayList<>();
+    // Skull ids follow order of skulls list, sprite tags follow first positions.
+    List<Skull> skullsList = levelParser.getSkullsList();
+    int[] skullPositions = new int[skullsList.size()];
+    skullTags = new int[skullsList.size()];
+    for (int i = 0; i < skullPositions.length; i++) {
+      skullPositions[i] = skullsList.get(i).getPosition();
+      skullTags[i] = skullsList.get(i).getSkullTag();
+    }
+    level = levelParser.getLevel();
+    levelFileHash = levelParser.getFileHash();
+    engine = new BoardEngine(numberOfColumns, numberOfRows, levelParser.getGameBoard(), skullPositions,
+        levelParser.getPortalTargets(), levelParser.getHeroFirstPosition());
+    gameMap = engine.getGameMap();
+    journal = new MoveJournal(true);
+    deadlocks = new DeadlockDetector(engine);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Swipes of current level.
+   */
+  public final MoveJournal getJournal() {
+    return journal;
   }
 
   /**
@@ -1347,6 +1486,10 @@ public class GameLayer extends CCLayer {
    * @param sender Sender callback.
    */
   public final void winCallback(final Object sender) {
+    // Decode next level while the summary is shown.
+    if (levelNumber < GlobalPreferences.TOTAL_NUMBER_OF_LEVELS) {
+      LevelParser.prefetch(levelNumber + 1);
+    }
     // Create a dark semi-transparent layer.
     CCColorLayer pauseOverlay = CCColorLayer.node(ccColor4B.ccc4(25, 25, 25, 255));
     pauseOverlay.setOpacity(200);
@@ -1630,55 +1773,28 @@ public class GameLayer extends CCLayer {
    * Revert hero and skull.
    */
   private void revertMove() {
+    MoveResult result = engine.revert();
+    if (!result.isMoved()) {
+      return;
+    }
+    cancelHint();
+    journal.pop();
+    journal.setHash(engine.getHash());
     revertsNumber++;
     // Revert HERO.
-    // Set default values.
-    int heroCurrPos = 1;
-    int heroPrevPos = prevMovesList.get(prevMovesList.size() - 1).getHeroPosition();
-    for (int x = 0; x < numberOfColumns * numberOfRows; x++) {
-      if (heroTable[x]) {
-        heroCurrPos = x;
-        break;
-      }
-    }
-    float time = calcTime(heroCurrPos, heroPrevPos);
-    CGPoint heroCGPoint = tilesNode.getChildByTag(heroPrevPos).getPosition();
-    CCMoveTo move = CCMoveTo.action(time, heroCGPoint);
+    float time = calcTime(result.getHeroPoint(0), result.getHeroEnd());
+    CCMoveTo move = CCMoveTo.action(time, getCellPosition(result.getHeroEnd()));
     CCNodeExt heroNode = (CCNodeExt) tilesNode.getChildByTag(HERO_TAG);
     heroNode.runAction(move);
-    heroTable[heroCurrPos] = false;
-    heroTable[heroPrevPos] = true;
+    followHero(result.getHeroEnd());
+    cullAfterMove(result);
 
     // Revert SKULL.
-    int p = prevMovesList.get(prevMovesList.size() - 1).getSkullPosition();
-    int t = prevMovesList.get(prevMovesList.size() - 1).getSkullTag();
-    // Check if skull was actually moved.
-    if (t != -1 && p != -1) {
+    if (result.isPushed()) {
       updatePushes(-1);
-
-      // Animate.
-      CGPoint skullPrevPos = tilesNode.getChildByTag(p).getPosition();
-      move = CCMoveTo.action(time, skullPrevPos);
-      tilesNode.getChildByTag(t).runAction(move);
-
-      // Fix positions.
-      int skullCurrPos = 0;
-      for (Skull skull : skullsList) {
-        if (skull.getSkullTag() == t) {
-          skullCurrPos = skull.getPosition();
-          break;
-        }
-      }
-      skullsTable[skullCurrPos] = false;
-      skullsTable[p] = true;
-      for (Skull skull : skullsList) {
-        if (skull.getPosition() == skullCurrPos) {
-          skull.setPosition(p);
-          break;
-        }
-      }
+      move = CCMoveTo.action(time, getCellPosition(result.getSkullPoint(result.getSkullPathLength() - 1)));
+      tilesNode.getChildByTag(skullTags[result.getSkullId()]).runAction(move);
     }
-    prevMovesList.remove(prevMovesList.size() - 1);
     checkAllSkullsCollected();
   }
 
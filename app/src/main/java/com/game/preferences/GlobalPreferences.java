@@ -1,5 +1,6 @@
 package com.game.preferences;
 
+import com.game.engine.BoardConstants;
 import com.game.helpers.InGameHelper;
 import com.game.model.extensions.HeroPanel;
 import java.util.ArrayList;
@@ -53,27 +54,27 @@ public final class GlobalPreferences {
   /**
    * Portal tile.
    */
-  public static final int TELEP = -1;
+  public static final int TELEP = BoardConstants.TELEP;
   /**
    * Sliding tile.
    */
-  public static final int SLIDE = -2;
+  public static final int SLIDE = BoardConstants.SLIDE;
   /**
    * Normal floor tile.
    */
-  public static final int FLOOR = 0;
+  public static final int FLOOR = BoardConstants.FLOOR;
   /**
    * Skull destination tile.
    */
-  public static final int DESTY = 1;
+  public static final int DESTY = BoardConstants.DESTY;
   /**
    * Blocker tile.
    */
-  public static final int BLOCK = 2;
+  public static final int BLOCK = BoardConstants.BLOCK;
   /**
    * Empty tile.
    */
-  public static final int EMPTY = 3;
+  public static final int EMPTY = BoardConstants.EMPTY;
   /**
    * Font path.
    */
@@ -90,23 +91,23 @@ public final class GlobalPreferences {
   /**
    * Available moves, left.
    */
-  public static final String MOVE_LEFT = "MOVE_LEFT";
+  public static final int MOVE_LEFT = BoardConstants.MOVE_LEFT;
   /**
    * Available moves, left.
    */
-  public static final String MOVE_RIGHT = "MOVE_RIGHT";
+  public static final int MOVE_RIGHT = BoardConstants.MOVE_RIGHT;
   /**
    * Available moves, left.
    */
-  public static final String MOVE_UP = "MOVE_UP";
+  public static final int MOVE_UP = BoardConstants.MOVE_UP;
   /**
    * Available moves, down.
    */
-  public static final String MOVE_DOWN = "MOVE_DOWN";
+  public static final int MOVE_DOWN = BoardConstants.MOVE_DOWN;
   /**
    * No available moves.
    */
-  public static final String NO_MOVE = "NO_MOVE";
+  public static final int NO_MOVE = BoardConstants.NO_MOVE;
   /**
    * Chosen difficulty.
    */
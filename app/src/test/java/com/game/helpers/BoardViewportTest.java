@@ -0,0 +1,64 @@
+package com.game.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Camera over a board larger than the screen.
+ */
+public class BoardViewportTest {
+
+  @Test
+  public void visibleWindowFollowsOffset() {
+    BoardViewport viewport = new BoardViewport(100, 100, 10, 200, 100);
+    assertEquals(0, viewport.getFirstColumn());
+    assertEquals(20, viewport.getLastColumn());
+    assertEquals(0, viewport.getFirstRow());
+    assertEquals(10, viewport.getLastRow());
+    viewport.moveBy(-505, 305);
+    assertEquals(49, viewport.getFirstColumn());
+    assertEquals(71, viewport.getLastColumn());
+    assertEquals(29, viewport.getFirstRow());
+    assertEquals(41, viewport.getLastRow());
+    assertTrue(viewport.contains(30 * 100 + 60));
+    assertFalse(viewport.contains(30 * 100 + 80));
+  }
+
+  @Test
+  public void offsetStaysOnBoard() {
+    BoardViewport viewport = new BoardViewport(100, 100, 10, 200, 100);
+    viewport.moveTo(500, -500);
+    assertEquals(0, viewport.getX(), 0);
+    assertEquals(0, viewport.getY(), 0);
+    viewport.moveTo(-5000, 5000);
+    assertEquals(-800, viewport.getX(), 0);
+    assertEquals(900, viewport.getY(), 0);
+    assertEquals(99, viewport.getLastColumn());
+    assertEquals(99, viewport.getLastRow());
+  }
+
+  @Test
+  public void smallAxisIsCentered() {
+    BoardViewport viewport = new BoardViewport(10, 100, 10, 200, 100);
+    viewport.moveBy(-50, 0);
+    assertEquals(50, viewport.getX(), 0);
+    assertEquals(50, viewport.centerX(9), 0);
+  }
+
+  @Test
+  public void cameraFollowsCellNearEdge() {
+    BoardViewport viewport = new BoardViewport(100, 100, 10, 200, 100);
+    int cell = 5 * 100 + 19;
+    assertTrue(viewport.isNearEdge(cell, 2));
+    assertFalse(viewport.isNearEdge(5 * 100 + 10, 2));
+    // Top left corner cannot be centered, board is already against it.
+    assertFalse(viewport.isNearEdge(0, 2));
+    viewport.moveTo(viewport.centerX(cell), viewport.centerY(cell));
+    assertEquals(-95, viewport.getX(), 0);
+    assertEquals(5, viewport.getY(), 0);
+    assertFalse(viewport.isNearEdge(cell, 2));
+  }
+}
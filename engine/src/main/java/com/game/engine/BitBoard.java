@@ -0,0 +1,134 @@
+package com.game.engine;
+
+/**
+ * Helpers for boards stored as bit sets, one bit per cell packed into longs.
+ * Cell i is bit (i &amp; 63) of word (i &gt;&gt; 6). Boards of the same level
+ * always have the same length, so set operations work word by word.
+ *
+ * @author niewinskip
+ */
+public final class BitBoard {
+
+  /**
+   * Private constructor.
+   */
+  private BitBoard() {
+
+  }
+
+  /**
+   * Create empty board.
+   *
+   * @param size Number of cells.
+   * @return Board with all bits cleared.
+   */
+  public static long[] create(final int size) {
+    return new long[(size + 63) >>> 6];
+  }
+
+  /**
+   * Create board of cells with one of given tiles.
+   *
+   * @param map Game map.
+   * @param size Number of cells to take from the map.
+   * @param tiles Tile codes to mark.
+   * @return Board with bits set where map has one of the tiles.
+   */
+  public static long[] fromTiles(final int[] map, final int size, final int... tiles) {
+    long[] board = create(size);
+    for (int i = 0; i < size; i++) {
+      for (int tile : tiles) {
+        if (map[i] == tile) {
+          set(board, i);
+          break;
+        }
+      }
+    }
+    return board;
+  }
+
+  /**
+   * Check bit of a cell.
+   *
+   * @param board Board.
+   * @param cell Cell index.
+   * @return True if bit is set.
+   */
+  public static boolean get(final long[] board, final int cell) {
+    return (board[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  /**
+   * Set bit of a cell.
+   *
+   * @param board Board.
+   * @param cell Cell index.
+   */
+  public static void set(final long[] board, final int cell) {
+    board[cell >>> 6] |= 1L << cell;
+  }
+
+  /**
+   * Clear bit of a cell.
+   *
+   * @param board Board.
+   * @param cell Cell index.
+   */
+  public static void clear(final long[] board, final int cell) {
+    board[cell >>> 6] &= ~(1L << cell);
+  }
+
+  /**
+   * Check if every bit of first board is also set in second one.
+   *
+   * @param board Board to check.
+   * @param mask Allowed cells.
+   * @return True if (board &amp; ~mask) is empty.
+   */
+  public static boolean isSubset(final long[] board, final long[] mask) {
+    for (int i = 0; i < board.length; i++) {
+      if ((board[i] & ~mask[i]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Count set bits.
+   *
+   * @param board Board.
+   * @return Number of set cells.
+   */
+  public static int count(final long[] board) {
+    int n = 0;
+    for (long word : board) {
+      n += Long.bitCount(word);
+    }
+    return n;
+  }
+
+  /**
+   * Find first set cell at or after given one.
+   *
+   * @param board Board.
+   * @param from First cell to check.
+   * @return Cell index, -1 if there is none.
+   */
+  public static int nextSet(final long[] board, final int from) {
+    int i = from >>> 6;
+    if (i >= board.length) {
+      return -1;
+    }
+    long word = board[i] & (-1L << from);
+    while (true) {
+      if (word != 0) {
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+      }
+      if (++i == board.length) {
+        return -1;
+      }
+      word = board[i];
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.game.engine;
+
+/**
+ * Constants shared by the board engine and the game layers. Kept free of any
+ * Android or cocos2d dependency so the rules can run on a plain JVM.
+ *
+ * @author niewinskip
+ */
+public final class BoardConstants {
+
+  /**
+   * Portal tile.
+   */
+  public static final int TELEP = -1;
+  /**
+   * Sliding tile.
+   */
+  public static final int SLIDE = -2;
+  /**
+   * Normal floor tile.
+   */
+  public static final int FLOOR = 0;
+  /**
+   * Skull destination tile.
+   */
+  public static final int DESTY = 1;
+  /**
+   * Blocker tile.
+   */
+  public static final int BLOCK = 2;
+  /**
+   * Empty tile.
+   */
+  public static final int EMPTY = 3;
+  /**
+   * Available moves, up. Moves are numbered clockwise from 0, so they fit in
+   * 2 bits and can index per direction tables.
+   */
+  public static final int MOVE_UP = 0;
+  /**
+   * Available moves, right.
+   */
+  public static final int MOVE_RIGHT = 1;
+  /**
+   * Available moves, down.
+   */
+  public static final int MOVE_DOWN = 2;
+  /**
+   * Available moves, left.
+   */
+  public static final int MOVE_LEFT = 3;
+  /**
+   * Number of available moves.
+   */
+  public static final int NUMBER_OF_MOVES = 4;
+  /**
+   * No available moves.
+   */
+  public static final int NO_MOVE = -1;
+
+  /**
+   * Private constructor.
+   */
+  private BoardConstants() {
+
+  }
+}
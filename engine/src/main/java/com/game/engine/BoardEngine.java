@@ -0,0 +1,866 @@
+package com.game.engine;
+
+import com.game.model.MoveBackup;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Game rules without any Android or cocos2d dependency. Owns the board state
+ * (map, hero, skulls and portals), applies swipes and reverts and reports the
+ * outcome as {@link MoveResult}. GameLayer only animates those outcomes, so the
+ * same rules can be run on a plain JVM for tests, solvers and replays.
+ *
+ * <p>Rules:
+ * <ul>
+ * <li>Hero stops on floor and destination tiles, slides across ice.</li>
+ * <li>Hero pushes a skull only if the skull is next to the cell where the
+ * current slide started. Sliding into a skull just stops the hero.</li>
+ * <li>Pushed skull slides like hero, stops on floor and destination tiles and
+ * before any obstacle.</li>
+ * <li>Portal moves hero or skull to its destination, slide continues in the
+ * same direction.</li>
+ * </ul>
+ *
+ * @author niewinskip
+ */
+public class BoardEngine {
+
+  /**
+   * Ice tile.
+   */
+  private static final int SLIDE = BoardConstants.SLIDE;
+  /**
+   * Floor tile.
+   */
+  private static final int FLOOR = BoardConstants.FLOOR;
+  /**
+   * Destination tile.
+   */
+  private static final int DESTY = BoardConstants.DESTY;
+  /**
+   * Portal tile.
+   */
+  private static final int TELEP = BoardConstants.TELEP;
+
+  /**
+   * Number of board's columns.
+   */
+  private final int numberOfColumns;
+  /**
+   * Number of board's rows.
+   */
+  private final int numberOfRows;
+  /**
+   * Game board size. Equal to columns * rows.
+   */
+  private final int tabSize;
+  /**
+   * Game map.
+   */
+  private final int[] gameMap;
+  /**
+   * Skull id standing on each cell, -1 if cell is free. Indexed by cell.
+   */
+  private final int[] cellToSkull;
+  /**
+   * Skulls positions, indexed by skull id.
+   */
+  private final int[] skullPositions;
+  /**
+   * Number of skulls standing on destination tiles. Updated on every skull
+   * move, so win check does not scan the board.
+   */
+  private int skullsOnDestination;
+  /**
+   * Hero position.
+   */
+  private int heroPosition;
+  /**
+   * Portal destination for each cell, -1 if there is no portal.
+   */
+  private final int[] portalTargets;
+  /**
+   * Number of portals. Longer chain of hops in one move means a cycle.
+   */
+  private final int portalCount;
+  /**
+   * List of backed up moves.
+   */
+  private final List<MoveBackup> prevMovesList;
+  /**
+   * Neighbour of each cell in each direction, indexed by (cell * 4 + move).
+   * Moves leaving the board lead to sentinel cell equal to tabSize.
+   */
+  private final int[] neighbours;
+  /**
+   * Cell offset of each direction.
+   */
+  private final int[] offsets;
+  /**
+   * Last cell of ice run starting next to each cell in each direction,
+   * indexed by (cell * 4 + move). Equal to the cell itself if next cell is
+   * not ice. Tiles never change, so it is computed once per level and slides
+   * only have to check skulls and hero standing on the run.
+   */
+  private final int[] iceEnds;
+  /**
+   * Walls bit board, blocks and empty tiles including sentinel cell.
+   */
+  private final long[] walls;
+  /**
+   * Ice bit board.
+   */
+  private final long[] ice;
+  /**
+   * Destinations bit board.
+   */
+  private final long[] destinations;
+  /**
+   * Portals bit board.
+   */
+  private final long[] teleports;
+  /**
+   * Skulls bit board, kept in sync with cellToSkull.
+   */
+  private final long[] skulls;
+  /**
+   * Zobrist keys of hero standing on each cell.
+   */
+  private final long[] heroKeys;
+  /**
+   * Zobrist keys of a skull standing on each cell. Skulls are identical, so
+   * keys do not depend on skull id.
+   */
+  private final long[] skullKeys;
+  /**
+   * Zobrist hash of current state, XOR of hero key and all skull keys.
+   */
+  private long hash;
+  /**
+   * Reused move outcome.
+   */
+  private final MoveResult result;
+  /**
+   * Reused outcome of swipes evaluated without moving, see
+   * {@link #probe(int, int)}.
+   */
+  private final MoveResult probeResult;
+  /**
+   * Skull found by last hero slide that can be pushed, -1 if none.
+   */
+  private int pushCandidate;
+
+  /**
+   * Constructor. Arrays are copied, engine never modifies its arguments.
+   *
+   * @param columns Number of columns.
+   * @param rows Number of rows.
+   * @param map Game map.
+   * @param skulls Skulls starting positions. Index is used as skull id.
+   * @param portals Portal destination for each cell, -1 if there is no portal.
+   * @param heroPosition Hero starting position.
+   */
+  public BoardEngine(final int columns, final int rows, final int[] map, final int[] skulls,
+      final int[] portals, final int heroPosition) {
+    this.numberOfColumns = columns;
+    this.numberOfRows = rows;
+    this.tabSize = columns * rows;
+    this.gameMap = Arrays.copyOf(map, tabSize + 1);
+    this.gameMap[tabSize] = BoardConstants.BLOCK;
+    this.cellToSkull = new int[tabSize + 1];
+    this.skullPositions = skulls.clone();
+    this.heroPosition = heroPosition;
+    this.portalTargets = Arrays.copyOf(portals, tabSize + 1);
+    this.portalTargets[tabSize] = -1;
+    int count = 0;
+    for (int i = 0; i < tabSize; i++) {
+      if (portalTargets[i] != -1) {
+        count++;
+      }
+    }
+    this.portalCount = count;
+    this.prevMovesList = new ArrayList<>();
+    this.result = new MoveResult();
+    this.probeResult = new MoveResult();
+    this.neighbours = buildNeighbours(columns, rows);
+    this.offsets = new int[]{-columns, 1, columns, -1};
+    this.iceEnds = buildIceEnds();
+    this.walls = BitBoard.fromTiles(gameMap, tabSize + 1, BoardConstants.BLOCK,
+        BoardConstants.EMPTY);
+    this.ice = BitBoard.fromTiles(gameMap, tabSize + 1, SLIDE);
+    this.destinations = BitBoard.fromTiles(gameMap, tabSize + 1, DESTY);
+    this.teleports = BitBoard.fromTiles(gameMap, tabSize + 1, TELEP);
+    this.skulls = BitBoard.create(tabSize + 1);
+    this.heroKeys = new long[tabSize + 1];
+    this.skullKeys = new long[tabSize + 1];
+    buildKeys(levelSeed(columns, map, portals));
+    Arrays.fill(cellToSkull, -1);
+    for (int i = 0; i < skullPositions.length; i++) {
+      cellToSkull[skullPositions[i]] = i;
+      BitBoard.set(this.skulls, skullPositions[i]);
+      hash ^= skullKeys[skullPositions[i]];
+      if (gameMap[skullPositions[i]] == DESTY) {
+        skullsOnDestination++;
+      }
+    }
+    hash ^= heroKeys[heroPosition];
+  }
+
+  /**
+   * Swipe hero in given direction. Board is updated immediately.
+   *
+   * @param move Direction of move, one of BoardConstants.MOVE_* values.
+   * @return Outcome of the move. Not moved if swipe changed nothing.
+   */
+  public final MoveResult move(final int move) {
+    int start = heroPosition;
+    int skullEnd = evaluate(result, start, move);
+    if (!result.isMoved()) {
+      return result;
+    }
+
+    // Update tables.
+    int skullId = result.getSkullId();
+    int skullToPush = skullId == -1 ? -1 : result.getSkullPoint(0);
+    prevMovesList.add(new MoveBackup(start, skullId, skullToPush));
+    moveHero(result.getHeroEnd());
+    if (skullId != -1) {
+      moveSkull(skullId, skullToPush, skullEnd);
+      result.setCompleted(isCompleted());
+    }
+    return result;
+  }
+
+  /**
+   * Evaluate swipe of hero standing on given cell without changing the
+   * board. Result of last move stays valid, probes share their own result.
+   *
+   * @param cell Free cell index.
+   * @param move Direction of move.
+   * @return Outcome of the swipe, valid until next probe.
+   */
+  final MoveResult probe(final int cell, final int move) {
+    evaluate(probeResult, cell, move);
+    return probeResult;
+  }
+
+  /**
+   * Evaluate swipe without changing the board.
+   *
+   * @param out Result receiving hero and skull paths.
+   * @param start Hero position.
+   * @param move Direction of move.
+   * @return Final position of pushed skull, -1 if no skull moves.
+   */
+  private int evaluate(final MoveResult out, final int start, final int move) {
+    out.reset(start);
+    if (move < 0 || move >= BoardConstants.NUMBER_OF_MOVES) {
+      return -1;
+    }
+
+    // Slide hero, possibly across portals. Kernel leaves the skull to push,
+    // if any, in pushCandidate.
+    slide(out, start, move, false);
+
+    // Push skull, hero takes its place only if skull really moved.
+    int skullToPush = pushCandidate;
+    if (skullToPush == -1) {
+      return -1;
+    }
+    int skullEnd = slide(out, skullToPush, move, true);
+    if (skullEnd == skullToPush) {
+      out.clearSkull();
+      return -1;
+    }
+    out.setSkullId(cellToSkull[skullToPush]);
+    out.addHeroPoint(skullToPush, false);
+    return skullEnd;
+  }
+
+  /**
+   * Move kernel shared by hero and skulls. Walks the neighbour table in given
+   * direction and stores way points in given result. Cells outside of the
+   * board lead to the sentinel cell, which is a block, so no bounds checks are
+   * needed. Runs of ice are crossed in one jump using ice end table, only
+   * skulls and hero standing on the run are checked.
+   *
+   * @param out Result receiving way points.
+   * @param from Starting position.
+   * @param move Direction of move.
+   * @param skull True if pushed skull is moving, false for hero.
+   * @return Final position.
+   */
+  private int slide(final MoveResult out, final int from, final int move, final boolean skull) {
+    if (skull) {
+      out.addSkullPoint(from, false);
+    }
+    pushCandidate = -1;
+    int position = from;
+    int segmentStart = from;
+    int hops = 0;
+    while (true) {
+      int end = iceEnds[(position << 2) | move];
+      if (end != position) {
+        // Hero will stand on pushed skull's original position.
+        int blocker = findBlocker(position, end, move, skull ? from : -1);
+        int stop = blocker == -1 ? end : blocker - offsets[move];
+        if (!skull) {
+          out.addIceSteps((stop - position) / offsets[move]);
+        }
+        position = stop;
+        if (blocker != -1) {
+          // Hero pushes only skulls next to the cell where its slide started.
+          if (!skull && position == segmentStart && cellToSkull[blocker] != -1) {
+            pushCandidate = blocker;
+          }
+          break;
+        }
+      }
+      int f = neighbours[(position << 2) | move];
+      if (cellToSkull[f] != -1) {
+        // Hero pushes only skulls next to the cell where its slide started.
+        if (!skull && position == segmentStart) {
+          pushCandidate = f;
+        }
+        break;
+      }
+      // Hero will stand on pushed skull's original position.
+      if (skull && f == from) {
+        break;
+      }
+      int tile = gameMap[f];
+      if (tile == FLOOR) {
+        position = f;
+        break;
+      } else if (tile == DESTY) {
+        if (!skull) {
+          out.setHeroOnDestination(true);
+        }
+        position = f;
+        break;
+      } else if (tile == TELEP) {
+        // Hops are resolved here, in one call. Each portal can be entered once
+        // per move, more hops than portals means the chain is a cycle.
+        int destination = portalTargets[f];
+        if (destination == -1 || hops >= portalCount || cellToSkull[destination] != -1
+            || (skull && destination == from)) {
+          break;
+        }
+        addPoint(out, skull, f, false);
+        addPoint(out, skull, destination, true);
+        out.addPortalHop();
+        hops++;
+        position = destination;
+        segmentStart = destination;
+      } else {
+        break;
+      }
+    }
+    int last = skull ? out.getSkullPoint(out.getSkullPathLength() - 1)
+        : out.getHeroPoint(out.getHeroPathLength() - 1);
+    if (position != last) {
+      addPoint(out, skull, position, false);
+    }
+    return position;
+  }
+
+  /**
+   * Find nearest skull or hero standing on a run of ice. Cells of the run are
+   * looked up in the cell index, so cost depends on the run length only, not
+   * on the number of skulls.
+   *
+   * @param position Cell where the run starts, excluded.
+   * @param end Last ice cell of the run, included.
+   * @param move Direction of move.
+   * @param hero Hero position to check, -1 to check only skulls.
+   * @return Nearest occupied cell, -1 if the run is free.
+   */
+  private int findBlocker(final int position, final int end, final int move, final int hero) {
+    int offset = offsets[move];
+    int cell = position;
+    do {
+      cell += offset;
+      if (cellToSkull[cell] != -1 || cell == hero) {
+        return cell;
+      }
+    } while (cell != end);
+    return -1;
+  }
+
+  /**
+   * Append way point of hero or skull.
+   *
+   * @param out Result receiving the point.
+   * @param skull True for skull, false for hero.
+   * @param position Cell index.
+   * @param hop True if reached by teleport.
+   */
+  private static void addPoint(final MoveResult out, final boolean skull, final int position, final boolean hop) {
+    if (skull) {
+      out.addSkullPoint(position, hop);
+    } else {
+      out.addHeroPoint(position, hop);
+    }
+  }
+
+  /**
+   * Build neighbour table. Sentinel cell points to itself.
+   *
+   * @param columns Number of columns.
+   * @param rows Number of rows.
+   * @return Neighbour table.
+   */
+  private static int[] buildNeighbours(final int columns, final int rows) {
+    int size = columns * rows;
+    int[] table = new int[(size + 1) * BoardConstants.NUMBER_OF_MOVES];
+    Arrays.fill(table, size);
+    for (int cell = 0; cell < size; cell++) {
+      int x = cell % columns;
+      int y = cell / columns;
+      int base = cell << 2;
+      if (y > 0) {
+        table[base | BoardConstants.MOVE_UP] = cell - columns;
+      }
+      if (x < columns - 1) {
+        table[base | BoardConstants.MOVE_RIGHT] = cell + 1;
+      }
+      if (y < rows - 1) {
+        table[base | BoardConstants.MOVE_DOWN] = cell + columns;
+      }
+      if (x > 0) {
+        table[base | BoardConstants.MOVE_LEFT] = cell - 1;
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Build ice end table. Cells are visited so that the neighbour in given
+   * direction is always done first, so every cell is visited once per
+   * direction.
+   *
+   * @return Ice end table.
+   */
+  private int[] buildIceEnds() {
+    int[] table = new int[(tabSize + 1) * BoardConstants.NUMBER_OF_MOVES];
+    for (int move = 0; move < BoardConstants.NUMBER_OF_MOVES; move++) {
+      table[(tabSize << 2) | move] = tabSize;
+    }
+    for (int move = 0; move < BoardConstants.NUMBER_OF_MOVES; move++) {
+      boolean forward = move == BoardConstants.MOVE_UP || move == BoardConstants.MOVE_LEFT;
+      // Ice neighbour shares the rest of the run, its ice end is equal to
+      // itself when run ends there.
+      for (int i = 0; i < tabSize; i++) {
+        int cell = forward ? i : tabSize - 1 - i;
+        int next = neighbours[(cell << 2) | move];
+        table[(cell << 2) | move] = gameMap[next] == SLIDE ? table[(next << 2) | move] : cell;
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Seed of Zobrist keys. Derived from level data, so the same level always
+   * gets the same keys and hashes can be stored between sessions.
+   *
+   * @param columns Number of columns.
+   * @param map Game map.
+   * @param portals Portal destination for each cell.
+   * @return Seed.
+   */
+  private static long levelSeed(final int columns, final int[] map, final int[] portals) {
+    long seed = columns;
+    seed = seed * 31 + Arrays.hashCode(map);
+    seed = seed * 31 + Arrays.hashCode(portals);
+    return seed;
+  }
+
+  /**
+   * Fill Zobrist keys using splitmix64 generator. Sentinel cell is never
+   * occupied, its keys stay 0.
+   *
+   * @param seed Level seed.
+   */
+  private void buildKeys(final long seed) {
+    long state = seed;
+    for (int i = 0; i < tabSize; i++) {
+      state += 0x9E3779B97F4A7C15L;
+      heroKeys[i] = mix(state);
+      state += 0x9E3779B97F4A7C15L;
+      skullKeys[i] = mix(state);
+    }
+  }
+
+  /**
+   * Splitmix64 finalizer.
+   *
+   * @param z Generator state.
+   * @return Random 64-bit value.
+   */
+  private static long mix(final long z) {
+    long x = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+    return x ^ (x >>> 31);
+  }
+
+  /**
+   * Revert last move.
+   *
+   * @return Outcome of revert. Hero and skull paths lead back to previous
+   * positions. Not moved if there is nothing to revert.
+   */
+  public final MoveResult revert() {
+    result.reset(heroPosition);
+    if (prevMovesList.isEmpty()) {
+      return result;
+    }
+    MoveBackup backup = prevMovesList.remove(prevMovesList.size() - 1);
+    result.addHeroPoint(backup.getHeroPosition(), false);
+    moveHero(backup.getHeroPosition());
+
+    int skullId = backup.getSkullId();
+    if (skullId != -1) {
+      int skull = skullPositions[skullId];
+      result.setSkullId(skullId);
+      result.addSkullPoint(skull, false);
+      result.addSkullPoint(backup.getSkullPosition(), false);
+      moveSkull(skullId, skull, backup.getSkullPosition());
+    }
+    result.setCompleted(isCompleted());
+    return result;
+  }
+
+  /**
+   * Find id of skull standing on given cell.
+   *
+   * @param cell Cell index.
+   * @return Skull id, -1 if there is no skull.
+   */
+  public final int getSkullId(final int cell) {
+    return cellToSkull[cell];
+  }
+
+  /**
+   * Move hero and update hash.
+   *
+   * @param to New hero position.
+   */
+  private void moveHero(final int to) {
+    hash ^= heroKeys[heroPosition] ^ heroKeys[to];
+    heroPosition = to;
+  }
+
+  /**
+   * Update both skull indexes and hash.
+   *
+   * @param skullId Skull id.
+   * @param from Current skull position.
+   * @param to New skull position.
+   */
+  private void moveSkull(final int skullId, final int from, final int to) {
+    if (gameMap[from] == DESTY) {
+      skullsOnDestination--;
+    }
+    if (gameMap[to] == DESTY) {
+      skullsOnDestination++;
+    }
+    hash ^= skullKeys[from] ^ skullKeys[to];
+    cellToSkull[from] = -1;
+    cellToSkull[to] = skullId;
+    BitBoard.clear(skulls, from);
+    BitBoard.set(skulls, to);
+    skullPositions[skullId] = to;
+  }
+
+  /**
+   * Get number of skulls standing on destination tiles.
+   *
+   * @return Number of collected skulls.
+   */
+  public final int countSkullsOnDestination() {
+    return skullsOnDestination;
+  }
+
+  /**
+   * Check if all skulls are on destination tiles.
+   *
+   * @return True if level is completed.
+   */
+  public final boolean isCompleted() {
+    return skullsOnDestination == skullPositions.length;
+  }
+
+  /**
+   * Get Zobrist hash of current state. Equal states (hero cell and set of
+   * skull cells) of the same level always have equal hashes.
+   *
+   * @return 64-bit state hash.
+   */
+  public final long getHash() {
+    return hash;
+  }
+
+  /**
+   * Take snapshot of hero and skulls.
+   *
+   * @return Current state.
+   */
+  public final BoardState snapshot() {
+    return new BoardState(heroPosition, skulls, hash);
+  }
+
+  /**
+   * Restore state taken from this level. Skulls already standing on one of
+   * the state's skull cells keep their ids, others get remaining cells in
+   * cell order. List of previous moves is cleared, since it no longer leads
+   * to the restored state.
+   *
+   * @param state State to restore.
+   */
+  public final void restore(final BoardState state) {
+    long[] target = state.getSkulls();
+    long[] free = target.clone();
+    int[] moving = new int[skullPositions.length];
+    int numberOfMoving = 0;
+    for (int id = 0; id < skullPositions.length; id++) {
+      int cell = skullPositions[id];
+      if (BitBoard.get(free, cell)) {
+        BitBoard.clear(free, cell);
+      } else {
+        moving[numberOfMoving++] = id;
+      }
+    }
+    for (int i = 0; i < numberOfMoving; i++) {
+      cellToSkull[skullPositions[moving[i]]] = -1;
+    }
+    int cell = -1;
+    for (int i = 0; i < numberOfMoving; i++) {
+      int id = moving[i];
+      int from = skullPositions[id];
+      cell = BitBoard.nextSet(free, cell + 1);
+      if (gameMap[from] == DESTY) {
+        skullsOnDestination--;
+      }
+      if (gameMap[cell] == DESTY) {
+        skullsOnDestination++;
+      }
+      cellToSkull[cell] = id;
+      skullPositions[id] = cell;
+    }
+    System.arraycopy(target, 0, skulls, 0, skulls.length);
+    heroPosition = state.getHeroPosition();
+    hash = state.getHash();
+    prevMovesList.clear();
+  }
+
+  /**
+   * Step hero one cell in given direction, pulling the skull standing behind
+   * it onto the cell hero leaves. Reverse of a push on levels without ice and
+   * portals, used by reverse search. Can be reverted like a swipe.
+   *
+   * @param move Direction of hero step.
+   * @return False if hero cannot step or there is no skull to pull.
+   */
+  final boolean pull(final int move) {
+    int start = heroPosition;
+    int to = neighbours[(start << 2) | move];
+    int from = neighbours[(start << 2) | ((move + 2) & 3)];
+    int skullId = cellToSkull[from];
+    if (skullId == -1 || cellToSkull[to] != -1 || (gameMap[to] != FLOOR && gameMap[to] != DESTY)) {
+      return false;
+    }
+    prevMovesList.add(new MoveBackup(start, skullId, from));
+    moveHero(to);
+    moveSkull(skullId, from, start);
+    return true;
+  }
+
+  /**
+   * Build state of this level, for example a goal state of reverse search.
+   *
+   * @param hero Hero cell.
+   * @param skullCells Skull cells.
+   * @return State with matching hash.
+   */
+  final BoardState createState(final int hero, final int[] skullCells) {
+    long[] board = BitBoard.create(tabSize + 1);
+    long stateHash = heroKeys[hero];
+    for (int cell : skullCells) {
+      BitBoard.set(board, cell);
+      stateHash ^= skullKeys[cell];
+    }
+    return new BoardState(hero, board, stateHash);
+  }
+
+  /**
+   * Get Zobrist key of hero standing on given cell.
+   *
+   * @param cell Cell index.
+   * @return Key, state hash is xor of hero key and skull keys.
+   */
+  final long getHeroKey(final int cell) {
+    return heroKeys[cell];
+  }
+
+  /**
+   * Put hero on given cell without moving it across the board. Used by search
+   * code to try swipes from every reachable cell. Previous moves are kept.
+   *
+   * @param cell Free cell index.
+   */
+  public final void placeHero(final int cell) {
+    moveHero(cell);
+  }
+
+  /**
+   * Get neighbour cell.
+   *
+   * @param cell Cell index.
+   * @param move Direction.
+   * @return Neighbour cell, number of cells (sentinel block) if move leaves
+   * the board.
+   */
+  public final int getNeighbour(final int cell, final int move) {
+    return neighbours[(cell << 2) | move];
+  }
+
+  /**
+   * Get portal destination.
+   *
+   * @param cell Cell index.
+   * @return Destination cell, -1 if there is no portal.
+   */
+  public final int getPortalTarget(final int cell) {
+    return portalTargets[cell];
+  }
+
+  /**
+   * Get walls bit board. Do not modify.
+   *
+   * @return Blocks and empty tiles.
+   */
+  public final long[] getWalls() {
+    return walls;
+  }
+
+  /**
+   * Get ice bit board. Do not modify.
+   *
+   * @return Ice tiles.
+   */
+  public final long[] getIce() {
+    return ice;
+  }
+
+  /**
+   * Get destinations bit board. Do not modify.
+   *
+   * @return Destination tiles.
+   */
+  public final long[] getDestinations() {
+    return destinations;
+  }
+
+  /**
+   * Get portals bit board. Do not modify.
+   *
+   * @return Portal tiles.
+   */
+  public final long[] getPortals() {
+    return teleports;
+  }
+
+  /**
+   * Get skulls bit board. Do not modify.
+   *
+   * @return Cells with skulls.
+   */
+  public final long[] getSkulls() {
+    return skulls;
+  }
+
+  /**
+   * Check if any move can be reverted.
+   *
+   * @return True if list of previous moves is not empty.
+   */
+  public final boolean canRevert() {
+    return !prevMovesList.isEmpty();
+  }
+
+  /**
+   * Get hero position.
+   *
+   * @return Cell index of hero.
+   */
+  public final int getHeroPosition() {
+    return heroPosition;
+  }
+
+  /**
+   * Check if hero stands on given cell.
+   *
+   * @param cell Cell index.
+   * @return True if hero is there.
+   */
+  public final boolean isHero(final int cell) {
+    return heroPosition == cell;
+  }
+
+  /**
+   * Check if skull stands on given cell.
+   *
+   * @param cell Cell index.
+   * @return True if skull is there.
+   */
+  public final boolean isSkull(final int cell) {
+    return BitBoard.get(skulls, cell);
+  }
+
+  /**
+   * Get skull position.
+   *
+   * @param skullId Skull id.
+   * @return Cell index of skull.
+   */
+  public final int getSkullPosition(final int skullId) {
+    return skullPositions[skullId];
+  }
+
+  /**
+   * Get number of skulls.
+   *
+   * @return Number of skulls.
+   */
+  public final int getNumberOfSkulls() {
+    return skullPositions.length;
+  }
+
+  /**
+   * Get number of columns.
+   *
+   * @return Number of columns.
+   */
+  public final int getNumberOfColumns() {
+    return numberOfColumns;
+  }
+
+  /**
+   * Get number of rows.
+   *
+   * @return Number of rows.
+   */
+  public final int getNumberOfRows() {
+    return numberOfRows;
+  }
+
+  /**
+   * Get game map. Do not modify.
+   *
+   * @return Game map.
+   */
+  public final int[] getGameMap() {
+    return gameMap;
+  }
+}
@@ -0,0 +1,120 @@
+package com.game.engine;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot of the dynamic part of the board: hero cell and skull bit board.
+ * Tiles never change during a level, so this is everything needed to restore
+ * a position. Immutable, safe to keep in search queues and caches.
+ *
+ * @author niewinskip
+ */
+public final class BoardState {
+
+  /**
+   * Hero position.
+   */
+  private final int heroPosition;
+
+  /**
+   * Skulls bit board.
+   */
+  private final long[] skulls;
+
+  /**
+   * Zobrist hash of the state.
+   */
+  private final long hash;
+
+  /**
+   * Constructor. Skulls are copied.
+   *
+   * @param heroPosition Hero position.
+   * @param skulls Skulls bit board.
+   * @param hash Zobrist hash of the state.
+   */
+  public BoardState(final int heroPosition, final long[] skulls, final long hash) {
+    this.heroPosition = heroPosition;
+    this.skulls = skulls.clone();
+    this.hash = hash;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Hero position.
+   */
+  public int getHeroPosition() {
+    return heroPosition;
+  }
+
+  /**
+   * Check if skull stands on given cell.
+   *
+   * @param cell Cell index.
+   * @return True if skull is there.
+   */
+  public boolean isSkull(final int cell) {
+    return BitBoard.get(skulls, cell);
+  }
+
+  /**
+   * Getter. Do not modify.
+   *
+   * @return Skulls bit board.
+   */
+  long[] getSkulls() {
+    return skulls;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Zobrist hash of the state.
+   */
+  public long getHash() {
+    return hash;
+  }
+
+  /**
+   * Check if all skulls stand on destination tiles.
+   *
+   * @param destinations Destinations bit board of the level.
+   * @return True if level is completed in this state.
+   */
+  public boolean isCompleted(final long[] destinations) {
+    return BitBoard.isSubset(skulls, destinations);
+  }
+
+  /**
+   * Count skulls standing outside of destination tiles.
+   *
+   * @param destinations Destinations bit board of the level.
+   * @return Number of skulls still to collect.
+   */
+  public int countSkullsOutside(final long[] destinations) {
+    int n = 0;
+    for (int i = 0; i < skulls.length; i++) {
+      n += Long.bitCount(skulls[i] & ~destinations[i]);
+    }
+    return n;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof BoardState)) {
+      return false;
+    }
+    BoardState other = (BoardState) o;
+    return heroPosition == other.heroPosition && hash == other.hash
+        && Arrays.equals(skulls, other.skulls);
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (hash ^ (hash >>> 32));
+  }
+}
@@ -0,0 +1,175 @@
+package com.game.engine;
+
+/**
+ * Detector of positions that can no longer be solved. Dead squares are
+ * computed once per level: cells from which a skull can never reach any
+ * destination. Freeze deadlocks (skulls that can no longer be pushed along
+ * either axis) are checked after each push, looking only at the pushed skull
+ * and its neighbours.
+ *
+ * <p>Dead squares come from {@link PushDistances}, whose skull moves are an
+ * over-approximation, so a square marked dead is dead in every position.
+ *
+ * @author niewinskip
+ */
+public final class DeadlockDetector {
+
+  /**
+   * Engine whose skulls are checked.
+   */
+  private final BoardEngine engine;
+
+  /**
+   * Game map, with sentinel block at the end.
+   */
+  private final int[] gameMap;
+
+  /**
+   * Push distances of the level.
+   */
+  private final PushDistances distances;
+
+  /**
+   * True for cells from which no destination can be reached.
+   */
+  private final boolean[] dead;
+
+  /**
+   * Freeze check stamp of each cell, skulls being checked count as walls.
+   */
+  private final int[] marks;
+
+  /**
+   * Current freeze check stamp.
+   */
+  private int stamp;
+
+  /**
+   * Skulls found frozen by current check.
+   */
+  private final int[] frozen;
+
+  /**
+   * Number of skulls found frozen by current check.
+   */
+  private int frozenCount;
+
+  /**
+   * Constructor. Computes dead squares of engine's level.
+   *
+   * @param engine Engine in any state of the level.
+   */
+  public DeadlockDetector(final BoardEngine engine) {
+    this.engine = engine;
+    this.gameMap = engine.getGameMap();
+    this.distances = new PushDistances(engine);
+    int size = engine.getNumberOfColumns() * engine.getNumberOfRows();
+    this.marks = new int[size + 1];
+    this.frozen = new int[engine.getNumberOfSkulls() + 1];
+    this.dead = new boolean[size + 1];
+    for (int cell = 0; cell <= size; cell++) {
+      dead[cell] = cell == size || !distances.isReachable(cell);
+    }
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Push distances of the level.
+   */
+  public PushDistances getDistances() {
+    return distances;
+  }
+
+  /**
+   * Check if skull standing on given cell can never reach a destination.
+   *
+   * @param cell Cell index.
+   * @return True if cell is dead.
+   */
+  public boolean isDeadSquare(final int cell) {
+    return dead[cell];
+  }
+
+  /**
+   * Check if skull standing on given cell, usually the one just pushed, makes
+   * the level unsolvable. Skull is either on a dead square or frozen together
+   * with a skull outside of destinations.
+   *
+   * @param cell Cell of the skull.
+   * @return True if level cannot be completed anymore.
+   */
+  public boolean isDeadlocked(final int cell) {
+    if (dead[cell]) {
+      return true;
+    }
+    stamp++;
+    frozenCount = 0;
+    if (!isFrozen(cell)) {
+      return false;
+    }
+    for (int i = 0; i < frozenCount; i++) {
+      if (gameMap[frozen[i]] != BoardConstants.DESTY) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check all skulls, used for positions not reached by a single push.
+   *
+   * @return True if level cannot be completed anymore.
+   */
+  public boolean hasDeadlock() {
+    for (int i = 0; i < engine.getNumberOfSkulls(); i++) {
+      if (isDeadlocked(engine.getSkullPosition(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check if skull cannot be pushed along any axis. Skull is treated as a wall
+   * while its neighbours are checked.
+   *
+   * @param cell Cell of the skull.
+   * @return True if skull is frozen.
+   */
+  private boolean isFrozen(final int cell) {
+    marks[cell] = stamp;
+    boolean result = isAxisBlocked(cell, BoardConstants.MOVE_LEFT, BoardConstants.MOVE_RIGHT)
+        && isAxisBlocked(cell, BoardConstants.MOVE_UP, BoardConstants.MOVE_DOWN);
+    if (result && frozenCount < frozen.length) {
+      frozen[frozenCount++] = cell;
+    }
+    return result;
+  }
+
+  /**
+   * Check if skull cannot be pushed along an axis. Pushing needs hero on one
+   * side and a free cell on the other, so one blocked side is enough.
+   *
+   * @param cell Cell of the skull.
+   * @param first First direction of the axis.
+   * @param second Opposite direction.
+   * @return True if axis is blocked.
+   */
+  private boolean isAxisBlocked(final int cell, final int first, final int second) {
+    return isBlocking(engine.getNeighbour(cell, first)) || isBlocking(engine.getNeighbour(cell, second));
+  }
+
+  /**
+   * Check if cell blocks a push along the axis.
+   *
+   * @param cell Neighbour cell.
+   * @return True for walls and frozen skulls.
+   */
+  private boolean isBlocking(final int cell) {
+    if (distances.isWall(cell)) {
+      return true;
+    }
+    return engine.isSkull(cell) && (marks[cell] == stamp || isFrozen(cell));
+  }
+}
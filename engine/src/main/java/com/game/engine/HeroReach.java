@@ -0,0 +1,426 @@
+package com.game.engine;
+
+import java.util.Arrays;
+
+/**
+ * Cells the hero can get to without pushing, for the current skull layout of
+ * an engine. Because of ice and portals a swipe is not reversible, so the
+ * cells form a directed graph: one edge per cell and direction, leading to
+ * the cell where the swipe stops.
+ *
+ * <p>Edges are kept between queries. A skull only changes edges whose swipe
+ * crosses its cell, stops next to it or reaches it through a portal, so for
+ * every cell the edges it may affect are found once, on the level without
+ * skulls. When skulls move, only edges of cells that gained or lost a skull
+ * are evaluated again, a single push updates a handful of edges.
+ *
+ * <p>Hero cells that can reach each other have the same reach, so states
+ * that differ only by such cells are equivalent. The smallest cell of the
+ * hero's strongly connected region is used as canonical hero position, see
+ * {@link #canonicalSnapshot()}.
+ *
+ * <p>Queries read the engine's current state, the engine can change freely
+ * in between. Not thread safe.
+ *
+ * @author niewinskip
+ */
+public final class HeroReach {
+
+  /**
+   * No edge: swipe pushes a skull or hero does not move.
+   */
+  private static final int NO_EDGE = -1;
+
+  /**
+   * Engine whose state is followed.
+   */
+  private final BoardEngine engine;
+
+  /**
+   * Number of cells, sentinel excluded.
+   */
+  private final int size;
+
+  /**
+   * Hero cell after free swipe, by (cell << 2 | move). NO_EDGE if swipe
+   * pushes or does nothing.
+   */
+  private final int[] edges;
+
+  /**
+   * Start of each cell's dependent edges in dependents, by cell.
+   */
+  private final int[] dependentStart;
+
+  /**
+   * Edges that may change when a skull enters or leaves the cell, grouped by
+   * cell.
+   */
+  private final int[] dependents;
+
+  /**
+   * Skull layout the edges were evaluated for.
+   */
+  private final long[] layout;
+
+  /**
+   * Stamp of last update of each edge, avoids evaluating an edge twice per
+   * update.
+   */
+  private final int[] edgeStamps;
+
+  /**
+   * Current update stamp.
+   */
+  private int updateStamp;
+
+  /**
+   * Number of edge evaluations since construction.
+   */
+  private long evaluations;
+
+  /**
+   * Search stamp of each cell, reach search visited marker.
+   */
+  private final int[] marks;
+
+  /**
+   * Reverse search stamp of each cell.
+   */
+  private final int[] backMarks;
+
+  /**
+   * Current reverse search stamp.
+   */
+  private int backStamp;
+
+  /**
+   * Current search stamp.
+   */
+  private int stamp;
+
+  /**
+   * Reachable cells of last search, hero cell first.
+   */
+  private final int[] reach;
+
+  /**
+   * Number of reachable cells of last search.
+   */
+  private int reachSize;
+
+  /**
+   * Hero cell of last search, -1 if edges changed since.
+   */
+  private int reachHero = -1;
+
+  /**
+   * Canonical hero cell of last search, -1 if not found yet.
+   */
+  private int canonicalHero = -1;
+
+  /**
+   * First incoming edge of each cell in reverse search, by cell.
+   */
+  private final int[] incoming;
+
+  /**
+   * Next incoming edge of the same cell, by edge.
+   */
+  private final int[] nextIncoming;
+
+  /**
+   * Reverse search queue.
+   */
+  private final int[] queue;
+
+  /**
+   * Constructor. Evaluates every edge for the current skull layout.
+   *
+   * @param engine Engine to follow.
+   */
+  public HeroReach(final BoardEngine engine) {
+    this.engine = engine;
+    this.size = engine.getNumberOfColumns() * engine.getNumberOfRows();
+    this.edges = new int[size * BoardConstants.NUMBER_OF_MOVES];
+    this.edgeStamps = new int[edges.length];
+    this.marks = new int[size + 1];
+    this.backMarks = new int[size + 1];
+    this.reach = new int[size];
+    this.incoming = new int[size];
+    this.nextIncoming = new int[edges.length];
+    this.queue = new int[size];
+    this.layout = engine.getSkulls().clone();
+    this.dependentStart = new int[size + 2];
+    this.dependents = buildDependents();
+    for (int edge = 0; edge < edges.length; edge++) {
+      evaluate(edge);
+    }
+  }
+
+  /**
+   * Check if hero can get to a cell without pushing.
+   *
+   * @param cell Cell index.
+   * @return True if reachable, hero cell included.
+   */
+  public boolean isReachable(final int cell) {
+    search();
+    return marks[cell] == stamp;
+  }
+
+  /**
+   * Copy cells hero can get to without pushing.
+   *
+   * @param cells Array receiving cells, at least as long as number of cells.
+   * @return Number of cells, hero cell is the first one.
+   */
+  public int getReachable(final int[] cells) {
+    search();
+    System.arraycopy(reach, 0, cells, 0, reachSize);
+    return reachSize;
+  }
+
+  /**
+   * Find canonical hero cell, the smallest cell hero can get to and come back
+   * from. Every cell of that region has the same reach.
+   *
+   * @return Cell index.
+   */
+  public int getCanonicalHero() {
+    search();
+    if (canonicalHero != -1) {
+      return canonicalHero;
+    }
+    int hero = reach[0];
+    for (int i = 0; i < reachSize; i++) {
+      incoming[reach[i]] = -1;
+    }
+    for (int i = 0; i < reachSize; i++) {
+      int base = reach[i] << 2;
+      for (int move = 0; move < BoardConstants.NUMBER_OF_MOVES; move++) {
+        int to = edges[base | move];
+        if (to != NO_EDGE) {
+          nextIncoming[base | move] = incoming[to];
+          incoming[to] = base | move;
+        }
+      }
+    }
+    // Cells of the region are the reachable ones that lead back to the hero.
+    int smallest = hero;
+    backStamp++;
+    backMarks[hero] = backStamp;
+    queue[0] = hero;
+    int tail = 1;
+    for (int head = 0; head < tail; head++) {
+      for (int edge = incoming[queue[head]]; edge != -1; edge = nextIncoming[edge]) {
+        int from = edge >> 2;
+        if (backMarks[from] != backStamp) {
+          backMarks[from] = backStamp;
+          queue[tail++] = from;
+          smallest = Math.min(smallest, from);
+        }
+      }
+    }
+    canonicalHero = smallest;
+    return smallest;
+  }
+
+  /**
+   * Take snapshot of the engine with hero moved to canonical cell.
+   *
+   * @return State equivalent to the current one.
+   */
+  public BoardState canonicalSnapshot() {
+    int hero = engine.getHeroPosition();
+    int cell = getCanonicalHero();
+    return new BoardState(cell, engine.getSkulls(),
+        engine.getHash() ^ engine.getHeroKey(hero) ^ engine.getHeroKey(cell));
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of edge evaluations since construction, initial ones
+   * included.
+   */
+  public long getEvaluations() {
+    return evaluations;
+  }
+
+  /**
+   * Find reachable cells from hero cell, unless already known.
+   */
+  private void search() {
+    update();
+    int hero = engine.getHeroPosition();
+    if (hero == reachHero) {
+      return;
+    }
+    reachHero = hero;
+    canonicalHero = -1;
+    stamp++;
+    marks[hero] = stamp;
+    reach[0] = hero;
+    reachSize = 1;
+    for (int head = 0; head < reachSize; head++) {
+      int base = reach[head] << 2;
+      for (int move = 0; move < BoardConstants.NUMBER_OF_MOVES; move++) {
+        int to = edges[base | move];
+        if (to != NO_EDGE && marks[to] != stamp) {
+          marks[to] = stamp;
+          reach[reachSize++] = to;
+        }
+      }
+    }
+  }
+
+  /**
+   * Evaluate again edges depending on cells whose skull changed since last
+   * update.
+   */
+  private void update() {
+    long[] skulls = engine.getSkulls();
+    boolean changed = false;
+    for (int word = 0; word < layout.length; word++) {
+      long diff = layout[word] ^ skulls[word];
+      if (diff == 0) {
+        continue;
+      }
+      if (!changed) {
+        changed = true;
+        updateStamp++;
+      }
+      layout[word] = skulls[word];
+      while (diff != 0) {
+        int cell = (word << 6) + Long.numberOfTrailingZeros(diff);
+        diff &= diff - 1;
+        for (int i = dependentStart[cell]; i < dependentStart[cell + 1]; i++) {
+          int edge = dependents[i];
+          if (edgeStamps[edge] != updateStamp) {
+            edgeStamps[edge] = updateStamp;
+            evaluate(edge);
+          }
+        }
+      }
+    }
+    if (changed) {
+      reachHero = -1;
+    }
+  }
+
+  /**
+   * Evaluate one edge on the engine.
+   *
+   * @param edge Edge, cell << 2 | move.
+   */
+  private void evaluate(final int edge) {
+    int cell = edge >> 2;
+    if (!isFree(cell)) {
+      edges[edge] = NO_EDGE;
+      return;
+    }
+    evaluations++;
+    MoveResult result = engine.probe(cell, edge & 3);
+    edges[edge] = result.isMoved() && !result.isPushed() ? result.getHeroEnd() : NO_EDGE;
+  }
+
+  /**
+   * Find edges depending on each cell. Swipes are traced on the level
+   * without skulls, with skulls the hero stops on the same path, earlier.
+   * An edge depends on every cell of its path, the next two cells in the
+   * direction of the swipe (a skull there stops the hero, or is pushed if
+   * the cell behind it is free) and portal destinations of those two.
+   *
+   * @return Dependent edges grouped by cell, dependentStart filled in.
+   */
+  private int[] buildDependents() {
+    int[] map = engine.getGameMap();
+    int[] portals = new int[size];
+    for (int cell = 0; cell < size; cell++) {
+      portals[cell] = engine.getPortalTarget(cell);
+    }
+    BoardEngine empty = new BoardEngine(engine.getNumberOfColumns(), engine.getNumberOfRows(), map,
+        new int[0], portals, 0);
+    int[][] cellsOfEdge = new int[edges.length][];
+    int[] path = new int[5 * (size + 1)];
+    int[] counts = new int[size + 1];
+    int[] seen = new int[size + 1];
+    for (int edge = 0; edge < edges.length; edge++) {
+      int cell = edge >> 2;
+      int move = edge & 3;
+      if (!isFree(cell)) {
+        cellsOfEdge[edge] = new int[0];
+        continue;
+      }
+      MoveResult result = empty.probe(cell, move);
+      int length = 0;
+      int mark = edge + 1;
+      for (int i = 0; i < result.getHeroPathLength(); i++) {
+        int to = result.getHeroPoint(i);
+        int from = i == 0 || result.isHeroHop(i) ? to : result.getHeroPoint(i - 1);
+        // Walk from previous way point, straight in direction of the swipe.
+        for (int step = from; ; step = empty.getNeighbour(step, move)) {
+          length = addDependency(empty, step, move, mark, seen, path, length);
+          if (step == to || step == size) {
+            break;
+          }
+        }
+      }
+      cellsOfEdge[edge] = Arrays.copyOf(path, length);
+      for (int i = 0; i < length; i++) {
+        counts[path[i]]++;
+      }
+    }
+    for (int cell = 0; cell <= size; cell++) {
+      dependentStart[cell + 1] = dependentStart[cell] + counts[cell];
+    }
+    int[] table = new int[dependentStart[size + 1]];
+    int[] next = Arrays.copyOf(dependentStart, size + 1);
+    for (int edge = 0; edge < edges.length; edge++) {
+      for (int cell : cellsOfEdge[edge]) {
+        table[next[cell]++] = edge;
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Check if hero may stand on a cell, skulls aside.
+   *
+   * @param cell Cell index.
+   * @return False for blocks and empty tiles.
+   */
+  private boolean isFree(final int cell) {
+    int tile = engine.getGameMap()[cell];
+    return tile != BoardConstants.BLOCK && tile != BoardConstants.EMPTY;
+  }
+
+  /**
+   * Add path cell, its next two cells and their portal destinations to
+   * dependencies of an edge.
+   *
+   * @param empty Engine of the level without skulls.
+   * @param cell Path cell.
+   * @param move Direction of the swipe.
+   * @param mark Marker of the edge.
+   * @param seen Last marker added for each cell.
+   * @param cells Dependencies of the edge.
+   * @param length Number of dependencies.
+   * @return New number of dependencies.
+   */
+  private int addDependency(final BoardEngine empty, final int cell, final int move, final int mark,
+      final int[] seen, final int[] cells, final int length) {
+    int count = length;
+    int first = empty.getNeighbour(cell, move);
+    int second = empty.getNeighbour(first, move);
+    for (int dependency : new int[] {cell, first, empty.getPortalTarget(first), second,
+        empty.getPortalTarget(second)}) {
+      if (dependency >= 0 && dependency < size && seen[dependency] != mark) {
+        seen[dependency] = mark;
+        cells[count++] = dependency;
+      }
+    }
+    return count;
+  }
+}
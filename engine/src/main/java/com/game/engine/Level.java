@@ -0,0 +1,215 @@
+package com.game.engine;
+
+/**
+ * Parsed level data file. Plain values without any Android dependency, shared
+ * by the game and by JVM tools. Immutable: cached levels are reused by every
+ * game of the level, so getters hand out copies of the arrays. Copying takes
+ * a few hundred ints once per level start, engines copy them anyway.
+ *
+ * @author niewinskip
+ */
+public final class Level {
+
+  /**
+   * Level name, usually the data file name.
+   */
+  private final String name;
+
+  /**
+   * Number of columns.
+   */
+  private final int numberOfColumns;
+
+  /**
+   * Number of rows.
+   */
+  private final int numberOfRows;
+
+  /**
+   * Minimum number of pushes to achieve an award.
+   */
+  private final int minimumPushes;
+
+  /**
+   * Hero starting position.
+   */
+  private final int heroPosition;
+
+  /**
+   * Level tiles, one extra cell at the end.
+   */
+  private final int[] gameBoard;
+
+  /**
+   * Skulls starting positions in data file order.
+   */
+  private final int[] skulls;
+
+  /**
+   * Portal destination for each cell, -1 if there is no portal.
+   */
+  private final int[] portalTargets;
+
+  /**
+   * Constructor.
+   *
+   * @param name Level name.
+   * @param columns Number of columns.
+   * @param rows Number of rows.
+   * @param minimumPushes Minimum number of pushes.
+   * @param heroPosition Hero starting position.
+   * @param gameBoard Level tiles.
+   * @param skulls Skulls starting positions.
+   * @param portalTargets Portal destination for each cell.
+   */
+  public Level(final String name, final int columns, final int rows, final int minimumPushes,
+      final int heroPosition, final int[] gameBoard, final int[] skulls, final int[] portalTargets) {
+    this.name = name;
+    this.numberOfColumns = columns;
+    this.numberOfRows = rows;
+    this.minimumPushes = minimumPushes;
+    this.heroPosition = heroPosition;
+    this.gameBoard = gameBoard;
+    this.skulls = skulls;
+    this.portalTargets = portalTargets;
+  }
+
+  /**
+   * Create engine in level's starting state.
+   *
+   * @return New engine.
+   */
+  public BoardEngine newEngine() {
+    return new BoardEngine(numberOfColumns, numberOfRows, gameBoard, skulls, portalTargets, heroPosition);
+  }
+
+  /**
+   * Check if level has portal tiles.
+   *
+   * @return True if any cell is a portal.
+   */
+  public boolean hasTeleports() {
+    return hasTile(BoardConstants.TELEP);
+  }
+
+  /**
+   * Check if level has ice tiles.
+   *
+   * @return True if any cell is ice.
+   */
+  public boolean hasIce() {
+    return hasTile(BoardConstants.SLIDE);
+  }
+
+  /**
+   * Check if any cell of the board has given tile.
+   *
+   * @param tile Tile constant.
+   * @return True if tile is used.
+   */
+  private boolean hasTile(final int tile) {
+    for (int cell : gameBoard) {
+      if (cell == tile) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Level name.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of columns.
+   */
+  public int getNumberOfColumns() {
+    return numberOfColumns;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of rows.
+   */
+  public int getNumberOfRows() {
+    return numberOfRows;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Minimum number of pushes.
+   */
+  public int getMinimumPushes() {
+    return minimumPushes;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Hero starting position.
+   */
+  public int getHeroPosition() {
+    return heroPosition;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Copy of level tiles.
+   */
+  public int[] getGameBoard() {
+    return gameBoard.clone();
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Copy of skulls starting positions.
+   */
+  public int[] getSkulls() {
+    return skulls.clone();
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of skulls.
+   */
+  public int getNumberOfSkulls() {
+    return skulls.length;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Copy of portal destinations, -1 if cell has no portal.
+   */
+  public int[] getPortalTargets() {
+    return portalTargets.clone();
+  }
+
+  /**
+   * Count cells with given tile.
+   *
+   * @param tile Tile constant.
+   * @return Number of cells.
+   */
+  public int countTiles(final int tile) {
+    int count = 0;
+    for (int cell : gameBoard) {
+      if (cell == tile) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
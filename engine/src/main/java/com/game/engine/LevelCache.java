@@ -0,0 +1,154 @@
+package com.game.engine;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Least recently used cache of parsed levels. Levels are immutable, so a
+ * cached one can be shared by every game of the level and resetting a level
+ * does not decode it again.
+ *
+ * <p>A level can be prefetched on a background thread, e.g. the next level
+ * while the summary of the current one is shown. Asking for a level that is
+ * being prefetched waits for it instead of loading it twice. Thread safe.
+ *
+ * @author niewinskip
+ */
+public final class LevelCache {
+
+  /**
+   * Source of levels.
+   */
+  public interface Loader {
+
+    /**
+     * Load level.
+     *
+     * @param number Level number.
+     * @return Level, null if there is no such level.
+     */
+    Level load(int number);
+  }
+
+  /**
+   * Source of levels.
+   */
+  private final Loader loader;
+
+  /**
+   * Cached levels by number, least recently used first.
+   */
+  private final Map<Integer, Level> levels;
+
+  /**
+   * Prefetches not finished yet, by level number.
+   */
+  private final Map<Integer, Future<Level>> pending = new HashMap<>();
+
+  /**
+   * Prefetch thread.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * Constructor.
+   *
+   * @param capacity Number of levels kept.
+   * @param loader Source of levels, called on caller's or prefetch thread.
+   */
+  public LevelCache(final int capacity, final Loader loader) {
+    this.loader = loader;
+    this.levels = new LinkedHashMap<Integer, Level>(capacity + 1, 1f, true) {
+
+      /**
+       * Serial version.
+       */
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Integer, Level> eldest) {
+        return size() > capacity;
+      }
+    };
+    executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "level-prefetch");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+  }
+
+  /**
+   * Get level, load it unless cached or being prefetched.
+   *
+   * @param number Level number.
+   * @return Level, null if there is no such level.
+   */
+  public Level get(final int number) {
+    Future<Level> future;
+    synchronized (this) {
+      Level level = levels.get(number);
+      if (level != null) {
+        return level;
+      }
+      future = pending.get(number);
+    }
+    if (future != null) {
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        // Load again below, errors are reported by the loader.
+      }
+    }
+    Level level = loader.load(number);
+    if (level != null) {
+      synchronized (this) {
+        levels.put(number, level);
+      }
+    }
+    return level;
+  }
+
+  /**
+   * Start loading a level on the prefetch thread, unless cached or already
+   * being prefetched.
+   *
+   * @param number Level number.
+   */
+  public synchronized void prefetch(final int number) {
+    if (levels.containsKey(number) || pending.containsKey(number)) {
+      return;
+    }
+    pending.put(number, executor.submit(() -> {
+      Level level = null;
+      try {
+        level = loader.load(number);
+      } finally {
+        synchronized (LevelCache.this) {
+          pending.remove(number);
+          if (level != null) {
+            levels.put(number, level);
+          }
+        }
+      }
+      return level;
+    }));
+  }
+
+  /**
+   * Check if level is cached, prefetches in progress do not count.
+   *
+   * @param number Level number.
+   * @return True if cached.
+   */
+  public synchronized boolean contains(final int number) {
+    return levels.containsKey(number);
+  }
+}
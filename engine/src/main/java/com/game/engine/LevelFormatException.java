@@ -0,0 +1,74 @@
+package com.game.engine;
+
+import java.io.IOException;
+
+/**
+ * Malformed level data file. Message starts with "file:line:column:", the
+ * form editors and build logs link to.
+ *
+ * @author niewinskip
+ */
+public class LevelFormatException extends IOException {
+
+  /**
+   * Serial version.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Name of the data file.
+   */
+  private final String file;
+
+  /**
+   * Line of the error, from 1.
+   */
+  private final int line;
+
+  /**
+   * Column of the error, from 1.
+   */
+  private final int column;
+
+  /**
+   * Constructor.
+   *
+   * @param file Name of the data file.
+   * @param line Line of the error, from 1.
+   * @param column Column of the error, from 1.
+   * @param reason What is wrong.
+   */
+  public LevelFormatException(final String file, final int line, final int column, final String reason) {
+    super(file + ":" + line + ":" + column + ": " + reason);
+    this.file = file;
+    this.line = line;
+    this.column = column;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Name of the data file.
+   */
+  public String getFile() {
+    return file;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Line of the error, from 1.
+   */
+  public int getLine() {
+    return line;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Column of the error, from 1.
+   */
+  public int getColumn() {
+    return column;
+  }
+}
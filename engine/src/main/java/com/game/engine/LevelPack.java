@@ -0,0 +1,373 @@
+package com.game.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * All levels compiled into one binary asset at build time. Small index at the
+ * start maps level number to level data offset and hash of the level's text
+ * file, level data follows:
+ * <ul>
+ * <li>varints: columns, rows, minimum pushes, hero position,</li>
+ * <li>tiles, 3 bits each (tile constant + 2), low bits first, padded to a
+ * byte,</li>
+ * <li>varint number of skulls and skull cells in data file order,</li>
+ * <li>varint number of portals and (portal, destination) cell pairs.</li>
+ * </ul>
+ *
+ * <p>Whole pack is kept in memory, a level is decoded straight from its offset
+ * without any text parsing.
+ *
+ * @author niewinskip
+ */
+public final class LevelPack {
+
+  /**
+   * Asset name.
+   */
+  public static final String ASSET = "levels.bin";
+
+  /**
+   * File magic, "MLVL".
+   */
+  private static final int MAGIC = 0x4D4C564C;
+
+  /**
+   * Format version.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * Bytes of file header: magic, version and number of levels.
+   */
+  private static final int HEADER_BYTES = 9;
+
+  /**
+   * Bytes of one index entry: level number, offset and hash.
+   */
+  private static final int INDEX_BYTES = 16;
+
+  /**
+   * Bits of one tile.
+   */
+  private static final int TILE_BITS = 3;
+
+  /**
+   * Mask of tile bits.
+   */
+  private static final int TILE_MASK = (1 << TILE_BITS) - 1;
+
+  /**
+   * Added to tile constant to get tile code, smallest constant is -2.
+   */
+  private static final int TILE_BIAS = 2;
+
+  /**
+   * Whole pack.
+   */
+  private final byte[] data;
+
+  /**
+   * Level numbers, ascending.
+   */
+  private final int[] numbers;
+
+  /**
+   * Offsets of level data, by index position.
+   */
+  private final int[] offsets;
+
+  /**
+   * Hashes of level text files, by index position.
+   */
+  private final long[] hashes;
+
+  /**
+   * Constructor.
+   *
+   * @param data Whole pack.
+   * @throws IOException If data is not a valid pack.
+   */
+  public LevelPack(final byte[] data) throws IOException {
+    this.data = data;
+    if (data.length < HEADER_BYTES || readInt(0) != MAGIC || (data[4] & 0xFF) != VERSION) {
+      throw new IOException("Unsupported level pack");
+    }
+    int count = readInt(5);
+    if (count < 0 || HEADER_BYTES + (long) count * INDEX_BYTES > data.length) {
+      throw new IOException("Corrupted level pack");
+    }
+    numbers = new int[count];
+    offsets = new int[count];
+    hashes = new long[count];
+    for (int i = 0; i < count; i++) {
+      int entry = HEADER_BYTES + i * INDEX_BYTES;
+      numbers[i] = readInt(entry);
+      offsets[i] = readInt(entry + 4);
+      hashes[i] = ((long) readInt(entry + 8) << 32) | (readInt(entry + 12) & 0xFFFFFFFFL);
+      if ((i > 0 && numbers[i] <= numbers[i - 1]) || offsets[i] < 0 || offsets[i] >= data.length) {
+        throw new IOException("Corrupted level pack");
+      }
+    }
+  }
+
+  /**
+   * Read whole pack. Stream is not closed.
+   *
+   * @param in Pack stream.
+   * @return Level pack.
+   * @throws IOException If reading fails or stream is not a valid pack.
+   */
+  public static LevelPack read(final InputStream in) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+      bytes.write(buffer, 0, n);
+    }
+    return new LevelPack(bytes.toByteArray());
+  }
+
+  /**
+   * Write levels as a pack.
+   *
+   * @param out Output stream, not closed.
+   * @param levelNumbers Level numbers, ascending.
+   * @param levelHashes Hash of each level's text file.
+   * @param levels Levels.
+   * @throws IOException If writing fails.
+   */
+  public static void write(final OutputStream out, final int[] levelNumbers, final long[] levelHashes,
+      final List<Level> levels) throws IOException {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    int[] levelOffsets = new int[levels.size()];
+    int start = HEADER_BYTES + levels.size() * INDEX_BYTES;
+    for (int i = 0; i < levels.size(); i++) {
+      levelOffsets[i] = start + body.size();
+      encode(body, levels.get(i));
+    }
+    DataOutputStream dos = new DataOutputStream(out);
+    dos.writeInt(MAGIC);
+    dos.writeByte(VERSION);
+    dos.writeInt(levels.size());
+    for (int i = 0; i < levels.size(); i++) {
+      dos.writeInt(levelNumbers[i]);
+      dos.writeInt(levelOffsets[i]);
+      dos.writeLong(levelHashes[i]);
+    }
+    body.writeTo(dos);
+    dos.flush();
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of levels.
+   */
+  public int size() {
+    return numbers.length;
+  }
+
+  /**
+   * Check if pack has a level.
+   *
+   * @param number Level number.
+   * @return True if level is in the pack.
+   */
+  public boolean contains(final int number) {
+    return Arrays.binarySearch(numbers, number) >= 0;
+  }
+
+  /**
+   * Get hash of level's text file, see SolutionPack.fingerprint.
+   *
+   * @param number Level number.
+   * @return Hash.
+   * @throws IllegalArgumentException If pack has no such level.
+   */
+  public long getHash(final int number) {
+    return hashes[indexOf(number)];
+  }
+
+  /**
+   * Decode level.
+   *
+   * @param number Level number.
+   * @param name Name given to the level.
+   * @return Level.
+   * @throws IllegalArgumentException If pack has no such level or its data is
+   * corrupted.
+   */
+  public Level getLevel(final int number, final String name) {
+    int[] position = {offsets[indexOf(number)]};
+    try {
+      int columns = readVarint(position);
+      int rows = readVarint(position);
+      int pushes = readVarint(position);
+      int hero = readVarint(position);
+      int size = columns * rows;
+      if (size < 0 || hero >= size || position[0] + ((long) size * TILE_BITS + 7) / 8 > data.length) {
+        throw new IllegalArgumentException("Corrupted level " + number);
+      }
+      int[] board = new int[size + 1];
+      int bit = position[0] << 3;
+      for (int cell = 0; cell < size; cell++, bit += TILE_BITS) {
+        // Tile may span two bytes.
+        int index = bit >> 3;
+        int word = data[index] & 0xFF;
+        if (index + 1 < data.length) {
+          word |= (data[index + 1] & 0xFF) << 8;
+        }
+        int tile = ((word >>> (bit & 7)) & TILE_MASK) - TILE_BIAS;
+        if (tile > BoardConstants.EMPTY) {
+          throw new IllegalArgumentException("Corrupted level " + number);
+        }
+        board[cell] = tile;
+      }
+      position[0] = (bit + 7) >> 3;
+      int skullCount = readVarint(position);
+      if (skullCount > size) {
+        throw new IllegalArgumentException("Corrupted level " + number);
+      }
+      int[] skulls = new int[skullCount];
+      for (int i = 0; i < skulls.length; i++) {
+        skulls[i] = readCell(position, size, number);
+      }
+      int[] portals = new int[size + 1];
+      Arrays.fill(portals, -1);
+      int portalCount = readVarint(position);
+      for (int i = 0; i < portalCount; i++) {
+        int source = readCell(position, size, number);
+        portals[source] = readCell(position, size, number);
+      }
+      return new Level(name, columns, rows, pushes, hero, board, skulls, portals);
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Truncated level " + number, e);
+    }
+  }
+
+  /**
+   * Find index position of a level.
+   *
+   * @param number Level number.
+   * @return Position.
+   */
+  private int indexOf(final int number) {
+    int i = Arrays.binarySearch(numbers, number);
+    if (i < 0) {
+      throw new IllegalArgumentException("No level " + number + " in pack");
+    }
+    return i;
+  }
+
+  /**
+   * Read big endian int.
+   *
+   * @param position Byte offset.
+   * @return Value.
+   */
+  private int readInt(final int position) {
+    return ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16)
+        | ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+  }
+
+  /**
+   * Read unsigned varint, 7 bits per byte, low bits first.
+   *
+   * @param position Byte offset, moved past the value.
+   * @return Value.
+   */
+  private int readVarint(final int[] position) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = data[position[0]++];
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Corrupted varint at " + position[0]);
+  }
+
+  /**
+   * Read cell index.
+   *
+   * @param position Byte offset, moved past the value.
+   * @param size Board size.
+   * @param number Level number, for error message.
+   * @return Cell index.
+   */
+  private int readCell(final int[] position, final int size, final int number) {
+    int cell = readVarint(position);
+    if (cell < 0 || cell >= size) {
+      throw new IllegalArgumentException("Corrupted level " + number);
+    }
+    return cell;
+  }
+
+  /**
+   * Encode one level.
+   *
+   * @param out Stream receiving level data.
+   * @param level Level.
+   */
+  private static void encode(final ByteArrayOutputStream out, final Level level) {
+    int size = level.getNumberOfColumns() * level.getNumberOfRows();
+    writeVarint(out, level.getNumberOfColumns());
+    writeVarint(out, level.getNumberOfRows());
+    writeVarint(out, level.getMinimumPushes());
+    writeVarint(out, level.getHeroPosition());
+    int[] board = level.getGameBoard();
+    int buffer = 0;
+    int bits = 0;
+    for (int cell = 0; cell < size; cell++) {
+      buffer |= (board[cell] + TILE_BIAS) << bits;
+      bits += TILE_BITS;
+      while (bits >= 8) {
+        out.write(buffer & 0xFF);
+        buffer >>>= 8;
+        bits -= 8;
+      }
+    }
+    if (bits > 0) {
+      out.write(buffer & 0xFF);
+    }
+    writeVarint(out, level.getNumberOfSkulls());
+    for (int skull : level.getSkulls()) {
+      writeVarint(out, skull);
+    }
+    int[] portals = level.getPortalTargets();
+    int count = 0;
+    for (int cell = 0; cell < size; cell++) {
+      if (portals[cell] != -1) {
+        count++;
+      }
+    }
+    writeVarint(out, count);
+    for (int cell = 0; cell < size; cell++) {
+      if (portals[cell] != -1) {
+        writeVarint(out, cell);
+        writeVarint(out, portals[cell]);
+      }
+    }
+  }
+
+  /**
+   * Write unsigned varint, 7 bits per byte, low bits first.
+   *
+   * @param out Stream.
+   * @param value Non negative value.
+   */
+  private static void writeVarint(final ByteArrayOutputStream out, final int value) {
+    int rest = value;
+    while ((rest & ~0x7F) != 0) {
+      out.write((rest & 0x7F) | 0x80);
+      rest >>>= 7;
+    }
+    out.write(rest);
+  }
+}
@@ -0,0 +1,614 @@
+package com.game.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reader of level data files. Format is a list of "key: value" lines
+ * (columns, rows, pushes, position, skulls, teleports) followed by "map:" and
+ * one line of tiles per row. Columns, rows, position and map are required,
+ * hero must start on a walkable tile without a skull. Lines with other keys
+ * are skipped, shorter map lines are padded with empty tiles.
+ *
+ * <p>Data is read in one pass, character by character from a reused buffer,
+ * numbers and tiles go straight into the level arrays. No strings are made
+ * unless the file is malformed, then {@link LevelFormatException} tells the
+ * line and column. One reader can parse any number of files, which keeps
+ * packs of thousands of levels cheap. Not thread safe.
+ *
+ * @author niewinskip
+ */
+public final class LevelReader {
+
+  /**
+   * End of data marker.
+   */
+  private static final int EOF = -1;
+
+  /**
+   * Byte order mark some editors put at the start of a file.
+   */
+  private static final char BOM = '\uFEFF';
+
+  /**
+   * Keys, position in the array is the key code.
+   */
+  private static final String[] KEYS = {"columns", "rows", "pushes", "position", "skulls", "teleports",
+      "map"};
+
+  /**
+   * Key code of columns.
+   */
+  private static final int COLUMNS = 0;
+
+  /**
+   * Key code of rows.
+   */
+  private static final int ROWS = 1;
+
+  /**
+   * Key code of minimum pushes.
+   */
+  private static final int PUSHES = 2;
+
+  /**
+   * Key code of hero position.
+   */
+  private static final int POSITION = 3;
+
+  /**
+   * Key code of skulls.
+   */
+  private static final int SKULLS = 4;
+
+  /**
+   * Key code of portals.
+   */
+  private static final int TELEPORTS = 5;
+
+  /**
+   * Key code of map.
+   */
+  private static final int MAP = 6;
+
+  /**
+   * Code of a key not in KEYS.
+   */
+  private static final int UNKNOWN = -1;
+
+  /**
+   * Length of the longest key.
+   */
+  private static final int MAX_KEY_LENGTH = 9;
+
+  /**
+   * Marker of a character that is not a tile.
+   */
+  private static final int UNKNOWN_TILE = Integer.MIN_VALUE;
+
+  /**
+   * Characters of data file, reused between files.
+   */
+  private final char[] buffer = new char[8192];
+
+  /**
+   * Number of valid characters in buffer.
+   */
+  private int length;
+
+  /**
+   * Position of next character in buffer.
+   */
+  private int position;
+
+  /**
+   * Data file being read.
+   */
+  private Reader in;
+
+  /**
+   * Name of data file being read.
+   */
+  private String file;
+
+  /**
+   * Line of next character, from 1.
+   */
+  private int line;
+
+  /**
+   * Column of next character, from 1.
+   */
+  private int column;
+
+  /**
+   * Skull cells of current file, grows as needed.
+   */
+  private int[] skulls = new int[16];
+
+  /**
+   * Column of each skull cell, for diagnostics.
+   */
+  private int[] skullColumns = new int[16];
+
+  /**
+   * Number of skulls of current file.
+   */
+  private int skullCount;
+
+  /**
+   * Portal and destination cells of current file, in pairs.
+   */
+  private int[] portalPairs = new int[16];
+
+  /**
+   * Number of portals of current file.
+   */
+  private int portalCount;
+
+  /**
+   * Read level. Reader is not closed.
+   *
+   * @param name Level name, also used in error messages.
+   * @param br Data file reader.
+   * @return Parsed level.
+   * @throws IOException If reading fails or data is malformed.
+   */
+  public static Level read(final String name, final BufferedReader br) throws IOException {
+    return new LevelReader().parse(name, name, br);
+  }
+
+  /**
+   * Parse level. Reader is not closed and does not need to be buffered.
+   *
+   * @param fileName Name of data file, used in error messages.
+   * @param name Level name.
+   * @param reader Data file reader.
+   * @return Parsed level.
+   * @throws IOException If reading fails.
+   * @throws LevelFormatException If data is malformed.
+   */
+  public Level parse(final String fileName, final String name, final Reader reader) throws IOException {
+    in = reader;
+    file = fileName;
+    length = 0;
+    position = 0;
+    line = 1;
+    column = 1;
+    skullCount = 0;
+    portalCount = 0;
+    int columns = 0;
+    int rows = 0;
+    int pushes = 0;
+    int hero = 0;
+    int heroLine = 0;
+    int heroColumn = 0;
+    int skullLine = 0;
+    int[] board = null;
+    if (peek() == BOM) {
+      position++;
+    }
+    while (skipBlankLines()) {
+      int keyColumn = column;
+      int key = readKey();
+      if (key == UNKNOWN) {
+        skipLine();
+        continue;
+      }
+      skipSpaces();
+      if (peek() != ':') {
+        throw error("expected ':' after " + KEYS[key]);
+      }
+      next();
+      switch (key) {
+        case COLUMNS:
+          columns = readNumber();
+          break;
+        case ROWS:
+          rows = readNumber();
+          break;
+        case PUSHES:
+          pushes = readNumber();
+          break;
+        case POSITION:
+          skipSpaces();
+          heroLine = line;
+          heroColumn = column;
+          hero = readNumber();
+          break;
+        case SKULLS:
+          skullLine = line;
+          readSkulls();
+          break;
+        case TELEPORTS:
+          readPortals();
+          break;
+        case MAP:
+          if (board != null) {
+            throw new LevelFormatException(file, line, keyColumn, "second map");
+          }
+          if (columns <= 0 || rows <= 0) {
+            throw new LevelFormatException(file, line, keyColumn, "map before columns and rows");
+          }
+          endLine();
+          board = readMap(columns, rows);
+          continue;
+      }
+      endLine();
+    }
+    if (board == null) {
+      throw error("missing map");
+    }
+    if (heroLine == 0) {
+      throw error("missing position");
+    }
+    int size = columns * rows;
+    if (hero >= size) {
+      throw new LevelFormatException(file, heroLine, heroColumn, "position outside of " + size + " cells");
+    }
+    if (board[hero] == BoardConstants.BLOCK || board[hero] == BoardConstants.EMPTY) {
+      throw new LevelFormatException(file, heroLine, heroColumn, "position " + hero + " is not walkable");
+    }
+    for (int i = 0; i < skullCount; i++) {
+      if (skulls[i] >= size) {
+        throw new LevelFormatException(file, skullLine, skullColumns[i],
+            "skull outside of " + size + " cells");
+      }
+      if (skulls[i] == hero) {
+        throw new LevelFormatException(file, heroLine, heroColumn, "position " + hero + " has a skull");
+      }
+    }
+    in = null;
+    return new Level(name, columns, rows, pushes, hero, board, Arrays.copyOf(skulls, skullCount),
+        portalTable(size));
+  }
+
+  /**
+   * Read map lines.
+   *
+   * @param columns Number of columns.
+   * @param rows Number of rows.
+   * @return Board, one cell longer than the map.
+   * @throws IOException If reading fails or a line is malformed.
+   */
+  private int[] readMap(final int columns, final int rows) throws IOException {
+    int[] board = new int[columns * rows + 1];
+    for (int row = 0; row < rows; row++) {
+      if (peek() == EOF) {
+        throw error("map has " + row + " of " + rows + " rows");
+      }
+      int cell = row * columns;
+      for (int x = 0; x < columns; x++) {
+        int c = peek();
+        if (c == '\n' || c == '\r' || c == EOF) {
+          board[cell + x] = BoardConstants.EMPTY;
+          continue;
+        }
+        int tile = tileOf(c);
+        if (tile == UNKNOWN_TILE) {
+          throw error("unknown tile '" + (char) c + "'");
+        }
+        board[cell + x] = tile;
+        next();
+      }
+      skipSpaces();
+      if (!isLineEnd(peek())) {
+        throw error("map line longer than " + columns + " columns");
+      }
+      next();
+    }
+    return board;
+  }
+
+  /**
+   * Transform block's graphical representation to constant number.
+   *
+   * @param c Character used in map.
+   * @return Integer representation of character, UNKNOWN_TILE if not a tile.
+   */
+  private static int tileOf(final int c) {
+    switch (c) {
+      case 'X':
+        return BoardConstants.BLOCK;
+      case '*':
+        return BoardConstants.FLOOR;
+      case 'T':
+        return BoardConstants.TELEP;
+      case 'D':
+        return BoardConstants.DESTY;
+      case 'S':
+        return BoardConstants.SLIDE;
+      case 'E':
+        return BoardConstants.EMPTY;
+      default:
+        return UNKNOWN_TILE;
+    }
+  }
+
+  /**
+   * Read comma separated skull cells, list may be empty.
+   *
+   * @throws IOException If reading fails or list is malformed.
+   */
+  private void readSkulls() throws IOException {
+    skullCount = 0;
+    skipSpaces();
+    if (isLineEnd(peek())) {
+      return;
+    }
+    do {
+      if (skullCount == skulls.length) {
+        skulls = Arrays.copyOf(skulls, skullCount * 2);
+        skullColumns = Arrays.copyOf(skullColumns, skullCount * 2);
+      }
+      skipSpaces();
+      skullColumns[skullCount] = column;
+      skulls[skullCount++] = readNumber();
+    } while (nextListItem());
+  }
+
+  /**
+   * Read comma separated "portal-destination" pairs, list may be empty.
+   *
+   * @throws IOException If reading fails or list is malformed.
+   */
+  private void readPortals() throws IOException {
+    portalCount = 0;
+    skipSpaces();
+    if (isLineEnd(peek())) {
+      return;
+    }
+    do {
+      if (2 * portalCount == portalPairs.length) {
+        portalPairs = Arrays.copyOf(portalPairs, portalPairs.length * 2);
+      }
+      portalPairs[2 * portalCount] = readNumber();
+      skipSpaces();
+      if (peek() != '-') {
+        throw error("expected '-' between portal cells");
+      }
+      next();
+      portalPairs[2 * portalCount + 1] = readNumber();
+      portalCount++;
+    } while (nextListItem());
+  }
+
+  /**
+   * Build portal table. Portals outside of the board are skipped.
+   *
+   * @param size Board size.
+   * @return Portal destinations, -1 if cell has no portal.
+   */
+  private int[] portalTable(final int size) {
+    int[] portals = new int[size + 1];
+    Arrays.fill(portals, -1);
+    for (int i = 0; i < portalCount; i++) {
+      int src = portalPairs[2 * i];
+      int dst = portalPairs[2 * i + 1];
+      if (src < size && dst < size) {
+        portals[src] = dst;
+      }
+    }
+    return portals;
+  }
+
+  /**
+   * Move past a list separator.
+   *
+   * @return True if a comma was found, false at end of line.
+   * @throws IOException If reading fails or something else follows.
+   */
+  private boolean nextListItem() throws IOException {
+    skipSpaces();
+    if (peek() == ',') {
+      next();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Read key at the start of a line.
+   *
+   * @return Key code, UNKNOWN if not a known key.
+   * @throws IOException If reading fails.
+   */
+  private int readKey() throws IOException {
+    fill(MAX_KEY_LENGTH + 1);
+    for (int k = 0; k < KEYS.length; k++) {
+      String key = KEYS[k];
+      int i = 0;
+      while (i < key.length() && ahead(i) == key.charAt(i)) {
+        i++;
+      }
+      if (i == key.length() && !isLetter(ahead(i))) {
+        for (int j = 0; j < i; j++) {
+          next();
+        }
+        return k;
+      }
+    }
+    return UNKNOWN;
+  }
+
+  /**
+   * Look ahead without consuming, within what is already buffered.
+   *
+   * @param offset Number of characters ahead.
+   * @return Character, EOF past buffered data.
+   */
+  private int ahead(final int offset) {
+    int index = position + offset;
+    return index < length ? buffer[index] : EOF;
+  }
+
+  /**
+   * Make sure a number of characters is buffered, unless data ends sooner.
+   * Unread characters are moved to the start of the buffer first.
+   *
+   * @param count Number of characters.
+   * @throws IOException If reading fails.
+   */
+  private void fill(final int count) throws IOException {
+    if (length - position >= count) {
+      return;
+    }
+    length -= position;
+    System.arraycopy(buffer, position, buffer, 0, length);
+    position = 0;
+    while (length < count) {
+      int n = in.read(buffer, length, buffer.length - length);
+      if (n <= 0) {
+        return;
+      }
+      length += n;
+    }
+  }
+
+  /**
+   * Check if character is an ASCII letter.
+   *
+   * @param c Character or EOF.
+   * @return True for a to z and A to Z.
+   */
+  private static boolean isLetter(final int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  /**
+   * Read non negative decimal number, leading spaces allowed.
+   *
+   * @return Number.
+   * @throws IOException If reading fails or no number is found.
+   */
+  private int readNumber() throws IOException {
+    skipSpaces();
+    int c = peek();
+    if (c < '0' || c > '9') {
+      throw error(c == EOF || c == '\n' ? "expected number" : "expected number, found '" + (char) c + "'");
+    }
+    int value = 0;
+    while (c >= '0' && c <= '9') {
+      if (value > (Integer.MAX_VALUE - (c - '0')) / 10) {
+        throw error("number too large");
+      }
+      value = value * 10 + c - '0';
+      next();
+      c = peek();
+    }
+    return value;
+  }
+
+  /**
+   * Skip spaces and move past the end of line.
+   *
+   * @throws IOException If reading fails or something else is left on the
+   * line.
+   */
+  private void endLine() throws IOException {
+    skipSpaces();
+    int c = peek();
+    if (!isLineEnd(c)) {
+      throw error("unexpected '" + (char) c + "'");
+    }
+    next();
+  }
+
+  /**
+   * Skip to the start of next line.
+   *
+   * @throws IOException If reading fails.
+   */
+  private void skipLine() throws IOException {
+    for (int c = peek(); c != EOF; c = peek()) {
+      next();
+      if (c == '\n') {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Skip empty and white lines.
+   *
+   * @return False at end of data.
+   * @throws IOException If reading fails.
+   */
+  private boolean skipBlankLines() throws IOException {
+    while (true) {
+      skipSpaces();
+      int c = peek();
+      if (c != '\n') {
+        return c != EOF;
+      }
+      next();
+    }
+  }
+
+  /**
+   * Skip spaces, tabs and carriage returns.
+   *
+   * @throws IOException If reading fails.
+   */
+  private void skipSpaces() throws IOException {
+    for (int c = peek(); c == ' ' || c == '\t' || c == '\r'; c = peek()) {
+      next();
+    }
+  }
+
+  /**
+   * Check if character ends a line.
+   *
+   * @param c Character or EOF.
+   * @return True for new line and end of data.
+   */
+  private static boolean isLineEnd(final int c) {
+    return c == '\n' || c == EOF;
+  }
+
+  /**
+   * Get next character without consuming it, refilling the buffer if needed.
+   *
+   * @return Character, EOF at end of data.
+   * @throws IOException If reading fails.
+   */
+  private int peek() throws IOException {
+    if (position == length) {
+      position = 0;
+      length = 0;
+      int n = in.read(buffer, 0, buffer.length);
+      if (n <= 0) {
+        return EOF;
+      }
+      length = n;
+    }
+    return buffer[position];
+  }
+
+  /**
+   * Consume character returned by peek, keeping line and column.
+   */
+  private void next() {
+    if (position == length) {
+      return;
+    }
+    if (buffer[position++] == '\n') {
+      line++;
+      column = 1;
+    } else {
+      column++;
+    }
+  }
+
+  /**
+   * Create error at the current character.
+   *
+   * @param reason What is wrong.
+   * @return Exception to throw.
+   */
+  private LevelFormatException error(final String reason) {
+    return new LevelFormatException(file, line, column, reason);
+  }
+}
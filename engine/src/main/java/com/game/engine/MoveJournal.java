@@ -0,0 +1,379 @@
+package com.game.engine;
+
+import java.util.Arrays;
+
+/**
+ * Compact log of swipes that changed the board. Each swipe takes 2 bits, four
+ * swipes per byte. Timed journals also keep time since previous swipe as a
+ * varint in a second array. Reverted swipes are removed, so the journal always
+ * leads from level start to the current state and can be replayed through
+ * {@link BoardEngine} for bug reports, completion checks and benchmarks. Hash
+ * of the state the swipes lead to can be recorded too, replay then checks it.
+ *
+ * @author niewinskip
+ */
+public final class MoveJournal {
+
+  /**
+   * Serialized format version.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * Format flag of timed journal.
+   */
+  private static final int FLAG_TIMED = 0x80;
+
+  /**
+   * Format flag of journal with hash of final state.
+   */
+  private static final int FLAG_HASHED = 0x40;
+
+  /**
+   * Packed swipes, 2 bits each, first swipe in lowest bits.
+   */
+  private byte[] moves;
+
+  /**
+   * Number of swipes.
+   */
+  private int size;
+
+  /**
+   * True if time deltas are recorded.
+   */
+  private final boolean timed;
+
+  /**
+   * Varint time deltas in milliseconds, one per swipe.
+   */
+  private byte[] times;
+
+  /**
+   * Number of used bytes of times.
+   */
+  private int timesLength;
+
+  /**
+   * Time of previous swipe, -1 before first one.
+   */
+  private long lastTime = -1;
+
+  /**
+   * Hash of the state reached by the swipes, valid if hashed is true.
+   */
+  private long hash;
+
+  /**
+   * True if hash was recorded after the last change of swipes.
+   */
+  private boolean hashed;
+
+  /**
+   * Constructor.
+   *
+   * @param timed True to record time deltas.
+   */
+  public MoveJournal(final boolean timed) {
+    this.timed = timed;
+    this.moves = new byte[16];
+    this.times = timed ? new byte[32] : new byte[0];
+  }
+
+  /**
+   * Record swipe without time.
+   *
+   * @param move Direction of move, one of BoardConstants.MOVE_* values.
+   */
+  public void record(final int move) {
+    record(move, 0);
+  }
+
+  /**
+   * Record swipe.
+   *
+   * @param move Direction of move, one of BoardConstants.MOVE_* values.
+   * @param time Current time in milliseconds, ignored if journal is not timed.
+   */
+  public void record(final int move, final long time) {
+    if (move < 0 || move >= BoardConstants.NUMBER_OF_MOVES) {
+      throw new IllegalArgumentException("Invalid move: " + move);
+    }
+    if ((size >> 2) == moves.length) {
+      moves = Arrays.copyOf(moves, moves.length * 2);
+    }
+    int shift = (size & 3) << 1;
+    moves[size >> 2] = (byte) ((moves[size >> 2] & ~(3 << shift)) | (move << shift));
+    size++;
+    hashed = false;
+    if (timed) {
+      long delta = lastTime == -1 ? 0 : Math.max(0, time - lastTime);
+      lastTime = time;
+      writeVarint(delta);
+    }
+  }
+
+  /**
+   * Remove last swipe, used when the move is reverted.
+   */
+  public void pop() {
+    if (size == 0) {
+      return;
+    }
+    size--;
+    hashed = false;
+    if (timed) {
+      // Last byte of previous varint is the first one without continuation bit.
+      int i = timesLength - 1;
+      while (i > 0 && (times[i - 1] & 0x80) != 0) {
+        i--;
+      }
+      // Time of previous swipe is the time of removed one minus its delta.
+      long delta = getVarint(times, new int[]{i});
+      timesLength = i;
+      lastTime = size == 0 || lastTime == -1 ? -1 : lastTime - delta;
+    }
+  }
+
+  /**
+   * Remove all swipes.
+   */
+  public void clear() {
+    size = 0;
+    timesLength = 0;
+    lastTime = -1;
+    hashed = false;
+  }
+
+  /**
+   * Record hash of the state reached by the swipes, see
+   * {@link BoardEngine#getHash()}. Next record or pop discards it, so it
+   * should be set again after every change.
+   *
+   * @param hash Hash of current state.
+   */
+  public void setHash(final long hash) {
+    this.hash = hash;
+    this.hashed = true;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return True if hash of final state is recorded.
+   */
+  public boolean isHashed() {
+    return hashed;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of swipes.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return True if time deltas are recorded.
+   */
+  public boolean isTimed() {
+    return timed;
+  }
+
+  /**
+   * Get swipe.
+   *
+   * @param i Swipe index.
+   * @return Direction of move.
+   */
+  public int getMove(final int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("Move " + i + " of " + size);
+    }
+    return (moves[i >> 2] >> ((i & 3) << 1)) & 3;
+  }
+
+  /**
+   * Decode time deltas.
+   *
+   * @return Milliseconds since previous swipe for each swipe, empty if journal
+   * is not timed.
+   */
+  public long[] getDeltas() {
+    if (!timed) {
+      return new long[0];
+    }
+    long[] deltas = new long[size];
+    int position = 0;
+    for (int i = 0; i < size; i++) {
+      long value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = times[position++];
+        value |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      deltas[i] = value;
+    }
+    return deltas;
+  }
+
+  /**
+   * Replay swipes on a fresh engine of the same level.
+   *
+   * @param engine Engine in level's starting state.
+   * @return Index of first swipe that did not change the board, size if all
+   * swipes were replayed but the state differs from the recorded hash, or -1
+   * if all swipes were replayed. Anything else means the journal does not
+   * belong to this level.
+   */
+  public int replay(final BoardEngine engine) {
+    for (int i = 0; i < size; i++) {
+      if (!engine.move(getMove(i)).isMoved()) {
+        return i;
+      }
+    }
+    if (hashed && engine.getHash() != hash) {
+      return size;
+    }
+    return -1;
+  }
+
+  /**
+   * Serialize journal. Layout: version and flags byte, varint number of swipes,
+   * packed swipes, for hashed journals 8 bytes of hash, highest first, and for
+   * timed journals varint length of time deltas followed by the deltas.
+   *
+   * @return Serialized journal.
+   */
+  public byte[] toByteArray() {
+    int movesLength = (size + 3) >> 2;
+    byte[] out = new byte[1 + 5 + movesLength + 8 + 5 + timesLength];
+    int position = 0;
+    out[position++] = (byte) (VERSION | (timed ? FLAG_TIMED : 0) | (hashed ? FLAG_HASHED : 0));
+    position = putVarint(out, position, size);
+    System.arraycopy(moves, 0, out, position, movesLength);
+    position += movesLength;
+    if (hashed) {
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        out[position++] = (byte) (hash >>> shift);
+      }
+    }
+    if (timed) {
+      position = putVarint(out, position, timesLength);
+      System.arraycopy(times, 0, out, position, timesLength);
+      position += timesLength;
+    }
+    return Arrays.copyOf(out, position);
+  }
+
+  /**
+   * Deserialize journal written by {@link #toByteArray()}.
+   *
+   * @param data Serialized journal.
+   * @return Journal.
+   * @throws IllegalArgumentException If data is not a valid journal.
+   */
+  public static MoveJournal fromByteArray(final byte[] data) {
+    if (data.length == 0 || (data[0] & 0xFF & ~(FLAG_TIMED | FLAG_HASHED)) != VERSION) {
+      throw new IllegalArgumentException("Unsupported journal format");
+    }
+    MoveJournal journal = new MoveJournal((data[0] & FLAG_TIMED) != 0);
+    int[] position = {1};
+    int size = (int) getVarint(data, position);
+    int movesLength = (size + 3) >> 2;
+    if (size < 0 || position[0] + movesLength > data.length) {
+      throw new IllegalArgumentException("Truncated journal");
+    }
+    journal.moves = Arrays.copyOfRange(data, position[0], position[0] + Math.max(movesLength, 1));
+    journal.size = size;
+    position[0] += movesLength;
+    if ((data[0] & FLAG_HASHED) != 0) {
+      if (position[0] + 8 > data.length) {
+        throw new IllegalArgumentException("Truncated journal");
+      }
+      long hash = 0;
+      for (int i = 0; i < 8; i++) {
+        hash = (hash << 8) | (data[position[0]++] & 0xFF);
+      }
+      journal.setHash(hash);
+    }
+    if (journal.timed) {
+      int length = (int) getVarint(data, position);
+      if (length < 0 || position[0] + length > data.length) {
+        throw new IllegalArgumentException("Truncated journal");
+      }
+      journal.times = Arrays.copyOfRange(data, position[0], position[0] + Math.max(length, 1));
+      journal.timesLength = length;
+      int ends = 0;
+      for (int i = 0; i < length; i++) {
+        if ((journal.times[i] & 0x80) == 0) {
+          ends++;
+        }
+      }
+      if (ends != size || (length > 0 && (journal.times[length - 1] & 0x80) != 0)) {
+        throw new IllegalArgumentException("Corrupted time deltas");
+      }
+    }
+    return journal;
+  }
+
+  /**
+   * Append varint to time deltas.
+   *
+   * @param value Non negative value.
+   */
+  private void writeVarint(final long value) {
+    if (timesLength + 10 > times.length) {
+      times = Arrays.copyOf(times, Math.max(times.length * 2, timesLength + 10));
+    }
+    timesLength = putVarint(times, timesLength, value);
+  }
+
+  /**
+   * Write varint, 7 bits per byte, lowest bits first.
+   *
+   * @param out Output array.
+   * @param position Write position.
+   * @param value Non negative value.
+   * @return Position after the varint.
+   */
+  private static int putVarint(final byte[] out, final int position, final long value) {
+    int p = position;
+    long v = value;
+    while ((v & ~0x7FL) != 0) {
+      out[p++] = (byte) ((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    out[p++] = (byte) v;
+    return p;
+  }
+
+  /**
+   * Read varint.
+   *
+   * @param data Input array.
+   * @param position Read position, advanced past the varint.
+   * @return Value.
+   */
+  private static long getVarint(final byte[] data, final int[] position) {
+    long value = 0;
+    int shift = 0;
+    while (true) {
+      if (position[0] >= data.length || shift > 63) {
+        throw new IllegalArgumentException("Truncated journal");
+      }
+      byte b = data[position[0]++];
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+      shift += 7;
+    }
+  }
+}
@@ -0,0 +1,307 @@
+package com.game.engine;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of a single swipe or revert computed by {@link BoardEngine}. Paths
+ * are stored as way points: index 0 is the starting cell, every next entry is
+ * either the end of a slide or a portal destination reached by teleport.
+ * Instances are reused by the engine, copy what you need before next move.
+ *
+ * @author niewinskip
+ */
+public final class MoveResult {
+
+  /**
+   * Hero way points.
+   */
+  private int[] heroPath = new int[8];
+
+  /**
+   * True if hero way point was reached by teleport.
+   */
+  private boolean[] heroHops = new boolean[8];
+
+  /**
+   * Number of hero way points.
+   */
+  private int heroPathLength;
+
+  /**
+   * Id of pushed skull, -1 if no skull was pushed.
+   */
+  private int skullId;
+
+  /**
+   * Skull way points.
+   */
+  private int[] skullPath = new int[8];
+
+  /**
+   * True if skull way point was reached by teleport.
+   */
+  private boolean[] skullHops = new boolean[8];
+
+  /**
+   * Number of skull way points.
+   */
+  private int skullPathLength;
+
+  /**
+   * Number of ice tiles crossed by hero.
+   */
+  private int iceSteps;
+
+  /**
+   * Number of portals used by hero and skull.
+   */
+  private int portalHops;
+
+  /**
+   * True if hero stopped on destination tile.
+   */
+  private boolean heroOnDestination;
+
+  /**
+   * True if all skulls are on destination tiles after the move.
+   */
+  private boolean completed;
+
+  /**
+   * Clear result before next move.
+   *
+   * @param heroStart Hero starting position.
+   */
+  final void reset(final int heroStart) {
+    heroPathLength = 0;
+    skullPathLength = 0;
+    skullId = -1;
+    iceSteps = 0;
+    portalHops = 0;
+    heroOnDestination = false;
+    completed = false;
+    addHeroPoint(heroStart, false);
+  }
+
+  /**
+   * Append hero way point.
+   *
+   * @param position Cell index.
+   * @param hop True if reached by teleport.
+   */
+  final void addHeroPoint(final int position, final boolean hop) {
+    if (heroPathLength == heroPath.length) {
+      heroPath = Arrays.copyOf(heroPath, heroPathLength * 2);
+      heroHops = Arrays.copyOf(heroHops, heroPathLength * 2);
+    }
+    heroPath[heroPathLength] = position;
+    heroHops[heroPathLength] = hop;
+    heroPathLength++;
+  }
+
+  /**
+   * Append skull way point.
+   *
+   * @param position Cell index.
+   * @param hop True if reached by teleport.
+   */
+  final void addSkullPoint(final int position, final boolean hop) {
+    if (skullPathLength == skullPath.length) {
+      skullPath = Arrays.copyOf(skullPath, skullPathLength * 2);
+      skullHops = Arrays.copyOf(skullHops, skullPathLength * 2);
+    }
+    skullPath[skullPathLength] = position;
+    skullHops[skullPathLength] = hop;
+    skullPathLength++;
+  }
+
+  /**
+   * Drop hero way points after given length.
+   *
+   * @param length New number of way points.
+   */
+  final void truncateHeroPath(final int length) {
+    heroPathLength = length;
+  }
+
+  /**
+   * Drop all skull way points.
+   */
+  final void clearSkull() {
+    skullId = -1;
+    skullPathLength = 0;
+  }
+
+  /**
+   * Setter.
+   *
+   * @param id Id of pushed skull.
+   */
+  final void setSkullId(final int id) {
+    this.skullId = id;
+  }
+
+  /**
+   * Add ice steps.
+   *
+   * @param steps Number of ice tiles crossed.
+   */
+  final void addIceSteps(final int steps) {
+    iceSteps += steps;
+  }
+
+  /**
+   * Count one portal hop.
+   */
+  final void addPortalHop() {
+    portalHops++;
+  }
+
+  /**
+   * Setter.
+   *
+   * @param onDestination True if hero stopped on destination tile.
+   */
+  final void setHeroOnDestination(final boolean onDestination) {
+    this.heroOnDestination = onDestination;
+  }
+
+  /**
+   * Setter.
+   *
+   * @param completed True if level is completed.
+   */
+  final void setCompleted(final boolean completed) {
+    this.completed = completed;
+  }
+
+  /**
+   * Check if anything changed on the board.
+   *
+   * @return True if hero moved.
+   */
+  public boolean isMoved() {
+    return heroPathLength > 1;
+  }
+
+  /**
+   * Check if skull was pushed.
+   *
+   * @return True if skull moved.
+   */
+  public boolean isPushed() {
+    return skullId != -1;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of hero way points.
+   */
+  public int getHeroPathLength() {
+    return heroPathLength;
+  }
+
+  /**
+   * Getter.
+   *
+   * @param i Way point index.
+   * @return Cell index of hero way point.
+   */
+  public int getHeroPoint(final int i) {
+    return heroPath[i];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param i Way point index.
+   * @return True if hero way point was reached by teleport.
+   */
+  public boolean isHeroHop(final int i) {
+    return heroHops[i];
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Final hero position.
+   */
+  public int getHeroEnd() {
+    return heroPath[heroPathLength - 1];
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Id of pushed skull, -1 if none.
+   */
+  public int getSkullId() {
+    return skullId;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of skull way points.
+   */
+  public int getSkullPathLength() {
+    return skullPathLength;
+  }
+
+  /**
+   * Getter.
+   *
+   * @param i Way point index.
+   * @return Cell index of skull way point.
+   */
+  public int getSkullPoint(final int i) {
+    return skullPath[i];
+  }
+
+  /**
+   * Getter.
+   *
+   * @param i Way point index.
+   * @return True if skull way point was reached by teleport.
+   */
+  public boolean isSkullHop(final int i) {
+    return skullHops[i];
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of ice tiles crossed by hero.
+   */
+  public int getIceSteps() {
+    return iceSteps;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of portals used.
+   */
+  public int getPortalHops() {
+    return portalHops;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return True if hero stopped on destination tile.
+   */
+  public boolean isHeroOnDestination() {
+    return heroOnDestination;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return True if all skulls are on destination tiles.
+   */
+  public boolean isCompleted() {
+    return completed;
+  }
+}
@@ -0,0 +1,337 @@
+package com.game.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reverse search from the goal. Starts with every skull on a destination and
+ * simulates pulls, layer by layer, until a state limit. The result is the
+ * exact number of pushes left for every state near the goal, and a lower
+ * bound for all other states, so a forward search meets it in the middle.
+ *
+ * <p>Pulls reverse pushes only when hero moves are reversible, so only levels
+ * without ice and portals are supported, see {@link #supports(Level)}. Hero
+ * position is reduced to the smallest cell of hero's area, since any cell of
+ * the area can be reached for free.
+ *
+ * <p>Lookups use scratch arrays, so they are not thread safe. Other threads
+ * query their own {@link #share()} copy.
+ *
+ * @author niewinskip
+ */
+public final class PullPerimeter {
+
+  /**
+   * Default limit of stored states.
+   */
+  public static final int DEFAULT_MAX_STATES = 200000;
+
+  /**
+   * Engine used to apply pulls.
+   */
+  private final BoardEngine engine;
+
+  /**
+   * Game map, with sentinel block at the end.
+   */
+  private final int[] gameMap;
+
+  /**
+   * Pushes left for each known state, hero on the smallest cell of its area.
+   */
+  private final Map<BoardState, Integer> distances;
+
+  /**
+   * Keys of skull sets of known states, quick rejection of other states.
+   */
+  private final Set<Long> skullSets;
+
+  /**
+   * Every state with at most this many pushes left is known.
+   */
+  private int depth;
+
+  /**
+   * True if reverse search ran out of states, so unknown states are
+   * unsolvable.
+   */
+  private boolean exhausted;
+
+  /**
+   * Area search stamp of each cell.
+   */
+  private final int[] marks;
+
+  /**
+   * Current area search stamp.
+   */
+  private int stamp;
+
+  /**
+   * Area search queue, holds cells of last searched area.
+   */
+  private final int[] queue;
+
+  /**
+   * Number of cells of last searched area.
+   */
+  private int areaSize;
+
+  /**
+   * Check if reverse search works for the level.
+   *
+   * @param level Level.
+   * @return True for levels without ice and portals, with as many destinations
+   * as skulls.
+   */
+  public static boolean supports(final Level level) {
+    if (level.hasIce() || level.hasTeleports()) {
+      return false;
+    }
+    return level.countTiles(BoardConstants.DESTY) == level.getNumberOfSkulls();
+  }
+
+  /**
+   * Constructor. Runs reverse search.
+   *
+   * @param level Supported level.
+   * @param maxStates Limit of stored states.
+   */
+  public PullPerimeter(final Level level, final int maxStates) {
+    this.engine = level.newEngine();
+    this.gameMap = engine.getGameMap();
+    int size = engine.getNumberOfColumns() * engine.getNumberOfRows();
+    this.marks = new int[size + 1];
+    this.queue = new int[size];
+    this.distances = new HashMap<>();
+    this.skullSets = new HashSet<>();
+
+    int[] goal = new int[level.getNumberOfSkulls()];
+    int count = 0;
+    for (int cell = 0; cell < size; cell++) {
+      if (gameMap[cell] == BoardConstants.DESTY) {
+        goal[count++] = cell;
+      }
+    }
+    List<BoardState> layer = new ArrayList<>();
+    engine.restore(engine.createState(level.getHeroPosition(), goal));
+    stamp++;
+    for (int cell = 0; cell < size; cell++) {
+      if (marks[cell] != stamp && isFree(cell) && !engine.isSkull(cell)) {
+        // One goal state for each area hero can be in.
+        add(engine.createState(fillArea(engine.getSkulls(), cell), goal), 0, layer);
+      }
+    }
+    search(layer, maxStates);
+  }
+
+  /**
+   * Copy constructor, see {@link #share()}.
+   *
+   * @param source Finished perimeter.
+   */
+  private PullPerimeter(final PullPerimeter source) {
+    this.engine = source.engine;
+    this.gameMap = source.gameMap;
+    this.distances = source.distances;
+    this.skullSets = source.skullSets;
+    this.depth = source.depth;
+    this.exhausted = source.exhausted;
+    this.marks = new int[source.marks.length];
+    this.queue = new int[source.queue.length];
+  }
+
+  /**
+   * Create a copy for another thread. Known states are shared and only read,
+   * area search space is not, so copies can be queried concurrently.
+   *
+   * @return Perimeter with the same states.
+   */
+  public PullPerimeter share() {
+    return new PullPerimeter(this);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Every state with at most this many pushes left is known.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of known states.
+   */
+  public int size() {
+    return distances.size();
+  }
+
+  /**
+   * Find exact number of pushes completing the level.
+   *
+   * @param state State of the level.
+   * @return Number of pushes, -1 if state is farther than the perimeter or
+   * unsolvable.
+   */
+  public int getDistance(final BoardState state) {
+    long[] skulls = state.getSkulls();
+    if (!skullSets.contains(skullKey(skulls))) {
+      return -1;
+    }
+    int hero = state.getHeroPosition();
+    stamp++;
+    int cell = fillArea(skulls, hero);
+    Integer distance = distances.get(new BoardState(cell, skulls,
+        state.getHash() ^ engine.getHeroKey(hero) ^ engine.getHeroKey(cell)));
+    return distance == null ? -1 : distance;
+  }
+
+  /**
+   * Combine a lower bound with the perimeter.
+   *
+   * @param state State of the level.
+   * @param estimate Lower bound from elsewhere.
+   * @return Exact number of pushes inside the perimeter, otherwise the larger
+   * of estimate and perimeter depth plus one.
+   * {@link PushDistances#INFEASIBLE} if the whole state space was searched and
+   * the state is not in it.
+   */
+  public int bound(final BoardState state, final int estimate) {
+    int distance = getDistance(state);
+    if (distance != -1) {
+      return distance;
+    }
+    if (exhausted) {
+      return PushDistances.INFEASIBLE;
+    }
+    return Math.max(estimate, depth + 1);
+  }
+
+  /**
+   * Expand layers of states by pulls.
+   *
+   * @param first States with no pushes left.
+   * @param maxStates Limit of stored states.
+   */
+  private void search(final List<BoardState> first, final int maxStates) {
+    List<BoardState> layer = first;
+    depth = 0;
+    while (!layer.isEmpty()) {
+      List<BoardState> next = new ArrayList<>();
+      for (BoardState state : layer) {
+        if (distances.size() >= maxStates) {
+          // Layer after current one is incomplete.
+          return;
+        }
+        expand(state, depth + 1, next);
+      }
+      // Every state one pull farther comes from current layer.
+      depth++;
+      layer = next;
+    }
+    exhausted = true;
+  }
+
+  /**
+   * Try every pull from every cell of hero's area.
+   *
+   * @param state State to expand.
+   * @param distance Distance of new states.
+   * @param next List receiving new states.
+   */
+  private void expand(final BoardState state, final int distance, final List<BoardState> next) {
+    engine.restore(state);
+    stamp++;
+    fillArea(state.getSkulls(), state.getHeroPosition());
+    int[] area = new int[areaSize];
+    System.arraycopy(queue, 0, area, 0, areaSize);
+    for (int cell : area) {
+      engine.placeHero(cell);
+      for (int move = 0; move < BoardConstants.NUMBER_OF_MOVES; move++) {
+        if (!engine.pull(move)) {
+          continue;
+        }
+        stamp++;
+        engine.placeHero(fillArea(engine.getSkulls(), engine.getHeroPosition()));
+        BoardState child = engine.snapshot();
+        if (!distances.containsKey(child)) {
+          add(child, distance, next);
+        }
+        engine.revert();
+      }
+    }
+  }
+
+  /**
+   * Store new state.
+   *
+   * @param state State, hero on the smallest cell of its area.
+   * @param distance Pushes left.
+   * @param layer List receiving the state.
+   */
+  private void add(final BoardState state, final int distance, final List<BoardState> layer) {
+    distances.put(state, distance);
+    skullSets.add(skullKey(state.getSkulls()));
+    layer.add(state);
+  }
+
+  /**
+   * Mark hero's area with current stamp, its cells are left in the queue.
+   *
+   * @param skulls Skulls bit board.
+   * @param start Any cell of the area.
+   * @return Smallest cell of the area, hero position used for stored states.
+   */
+  private int fillArea(final long[] skulls, final int start) {
+    int smallest = start;
+    marks[start] = stamp;
+    queue[0] = start;
+    int tail = 1;
+    for (int head = 0; head < tail; head++) {
+      int cell = queue[head];
+      for (int move = 0; move < BoardConstants.NUMBER_OF_MOVES; move++) {
+        int next = engine.getNeighbour(cell, move);
+        if (marks[next] != stamp && isFree(next) && !BitBoard.get(skulls, next)) {
+          marks[next] = stamp;
+          queue[tail++] = next;
+          smallest = Math.min(smallest, next);
+        }
+      }
+    }
+    areaSize = tail;
+    return smallest;
+  }
+
+  /**
+   * Check if hero can stand on the tile.
+   *
+   * @param cell Cell index, sentinel included.
+   * @return True for floor and destinations.
+   */
+  private boolean isFree(final int cell) {
+    int tile = gameMap[cell];
+    return tile == BoardConstants.FLOOR || tile == BoardConstants.DESTY;
+  }
+
+  /**
+   * Key of a skull set.
+   *
+   * @param skulls Skulls bit board.
+   * @return Mixed words of the board.
+   */
+  private static long skullKey(final long[] skulls) {
+    long key = 0;
+    for (long word : skulls) {
+      key = (key + word) * 0x9E3779B97F4A7C15L;
+      key ^= key >>> 29;
+    }
+    return key;
+  }
+}
@@ -0,0 +1,354 @@
+package com.game.engine;
+
+import java.util.Arrays;
+
+/**
+ * Lower bound of pushes left, computed once per level. For every destination
+ * tile holds the minimal number of pushes moving a lone skull there from each
+ * cell. Skull moves are an over-approximation: hero only has to be able to
+ * stand behind the skull, and other skulls or the hero may stop a slide on any
+ * ice cell or portal destination along the way. Every move is one push, as
+ * counted in game.
+ *
+ * <p>{@link #estimate(BoardState)} assigns skulls to distinct destinations
+ * with minimal total distance (Hungarian method). Final position has each
+ * skull on its own destination, so the bound never overestimates, and one push
+ * lowers it by at most one.
+ *
+ * <p>Scratch arrays make estimation not thread safe.
+ *
+ * @author niewinskip
+ */
+public final class PushDistances {
+
+  /**
+   * Distance of cells from which destination cannot be reached.
+   */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  /**
+   * Estimate of states in which skulls cannot all reach distinct destinations.
+   */
+  public static final int INFEASIBLE = Integer.MAX_VALUE;
+
+  /**
+   * Cost used for unreachable pairs inside assignment, larger than any sum of
+   * real distances.
+   */
+  private static final int NO_PATH = 1 << 20;
+
+  /**
+   * Engine of the level.
+   */
+  private final BoardEngine engine;
+
+  /**
+   * Game map, with sentinel block at the end.
+   */
+  private final int[] gameMap;
+
+  /**
+   * Number of cells, index of the sentinel cell.
+   */
+  private final int size;
+
+  /**
+   * Destination cells.
+   */
+  private final int[] destinations;
+
+  /**
+   * Pushes from each cell to each destination, indexed by
+   * destination * (size + 1) + cell.
+   */
+  private final int[] distances;
+
+  /**
+   * Assignment cost matrix, skull * destinations + destination.
+   */
+  private final int[] cost;
+
+  /**
+   * Hungarian method potentials of skulls.
+   */
+  private final int[] rowPotential;
+
+  /**
+   * Hungarian method potentials of destinations.
+   */
+  private final int[] columnPotential;
+
+  /**
+   * Skull assigned to each destination, 1-based, 0 for none.
+   */
+  private final int[] assigned;
+
+  /**
+   * Previous destination on augmenting path.
+   */
+  private final int[] way;
+
+  /**
+   * Smallest reduced cost of each destination.
+   */
+  private final int[] slack;
+
+  /**
+   * Destinations on current augmenting tree.
+   */
+  private final boolean[] used;
+
+  /**
+   * Constructor. Computes distance tables of engine's level.
+   *
+   * @param engine Engine in any state of the level.
+   */
+  public PushDistances(final BoardEngine engine) {
+    this.engine = engine;
+    this.gameMap = engine.getGameMap();
+    this.size = engine.getNumberOfColumns() * engine.getNumberOfRows();
+    int count = 0;
+    for (int cell = 0; cell < size; cell++) {
+      if (gameMap[cell] == BoardConstants.DESTY) {
+        count++;
+      }
+    }
+    this.destinations = new int[count];
+    count = 0;
+    for (int cell = 0; cell < size; cell++) {
+      if (gameMap[cell] == BoardConstants.DESTY) {
+        destinations[count++] = cell;
+      }
+    }
+    this.distances = computeDistances();
+    int skulls = engine.getNumberOfSkulls();
+    this.cost = new int[skulls * count];
+    this.rowPotential = new int[skulls + 1];
+    this.columnPotential = new int[count + 1];
+    this.assigned = new int[count + 1];
+    this.way = new int[count + 1];
+    this.slack = new int[count + 1];
+    this.used = new boolean[count + 1];
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of destination tiles.
+   */
+  public int getDestinationCount() {
+    return destinations.length;
+  }
+
+  /**
+   * Minimal number of pushes moving a lone skull from cell to destination.
+   *
+   * @param destination Destination index, 0 to destination count - 1.
+   * @param cell Cell index.
+   * @return Number of pushes, {@link #UNREACHABLE} if not possible.
+   */
+  public int getDistance(final int destination, final int cell) {
+    return distances[destination * (size + 1) + cell];
+  }
+
+  /**
+   * Check if skull on a cell can reach any destination.
+   *
+   * @param cell Cell index.
+   * @return False for dead squares.
+   */
+  public boolean isReachable(final int cell) {
+    for (int i = 0; i < destinations.length; i++) {
+      if (getDistance(i, cell) != UNREACHABLE) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Lower bound of pushes completing the level.
+   *
+   * @param state State of the level.
+   * @return Minimal total distance of skulls assigned to distinct
+   * destinations, {@link #INFEASIBLE} if there is no such assignment.
+   */
+  public int estimate(final BoardState state) {
+    long[] skulls = state.getSkulls();
+    int columns = destinations.length;
+    int rows = 0;
+    for (int cell = BitBoard.nextSet(skulls, 0); cell != -1; cell = BitBoard.nextSet(skulls, cell + 1)) {
+      if (rows == rowPotential.length - 1 || rows == columns) {
+        return INFEASIBLE;
+      }
+      for (int j = 0; j < columns; j++) {
+        int distance = distances[j * (size + 1) + cell];
+        cost[rows * columns + j] = distance == UNREACHABLE ? NO_PATH : distance;
+      }
+      rows++;
+    }
+    int total = assign(rows, columns);
+    return total >= NO_PATH ? INFEASIBLE : total;
+  }
+
+  /**
+   * Hungarian method for rows no more than columns, O(rows^2 * columns).
+   *
+   * @param rows Number of skulls.
+   * @param columns Number of destinations.
+   * @return Minimal assignment cost.
+   */
+  private int assign(final int rows, final int columns) {
+    Arrays.fill(rowPotential, 0);
+    Arrays.fill(columnPotential, 0);
+    Arrays.fill(assigned, 0);
+    for (int row = 1; row <= rows; row++) {
+      assigned[0] = row;
+      int column = 0;
+      Arrays.fill(slack, Integer.MAX_VALUE);
+      Arrays.fill(used, false);
+      do {
+        used[column] = true;
+        int current = assigned[column];
+        int delta = Integer.MAX_VALUE;
+        int next = 0;
+        for (int j = 1; j <= columns; j++) {
+          if (used[j]) {
+            continue;
+          }
+          int reduced = cost[(current - 1) * columns + j - 1] - rowPotential[current] - columnPotential[j];
+          if (reduced < slack[j]) {
+            slack[j] = reduced;
+            way[j] = column;
+          }
+          if (slack[j] < delta) {
+            delta = slack[j];
+            next = j;
+          }
+        }
+        for (int j = 0; j <= columns; j++) {
+          if (used[j]) {
+            rowPotential[assigned[j]] += delta;
+            columnPotential[j] -= delta;
+          } else {
+            slack[j] -= delta;
+          }
+        }
+        column = next;
+      } while (assigned[column] != 0);
+      do {
+        int previous = way[column];
+        assigned[column] = assigned[previous];
+        column = previous;
+      } while (column != 0);
+    }
+    return -columnPotential[0];
+  }
+
+  /**
+   * Check if neither hero nor skull can ever stand on a cell.
+   *
+   * @param cell Cell index.
+   * @return True for blocks, empty tiles, portals without destination and the
+   * sentinel.
+   */
+  boolean isWall(final int cell) {
+    if (cell == size) {
+      return true;
+    }
+    int tile = gameMap[cell];
+    return tile == BoardConstants.BLOCK || tile == BoardConstants.EMPTY
+        || (tile == BoardConstants.TELEP && engine.getPortalTarget(cell) == -1);
+  }
+
+  /**
+   * Build all possible skull moves, then walk them backwards from each
+   * destination.
+   *
+   * @return Distance tables.
+   */
+  private int[] computeDistances() {
+    int portalCount = 0;
+    for (int i = 0; i < size; i++) {
+      if (engine.getPortalTarget(i) != -1) {
+        portalCount++;
+      }
+    }
+    // Edges as parallel arrays, reversed into per target lists below.
+    int[] from = new int[64];
+    int[] to = new int[64];
+    int edges = 0;
+    for (int cell = 0; cell < size; cell++) {
+      if (isWall(cell)) {
+        continue;
+      }
+      for (int move = 0; move < BoardConstants.NUMBER_OF_MOVES; move++) {
+        if (isWall(engine.getNeighbour(cell, (move + 2) & 3))) {
+          // Hero cannot stand behind the skull.
+          continue;
+        }
+        int position = cell;
+        int hops = 0;
+        while (true) {
+          int next = engine.getNeighbour(position, move);
+          if (isWall(next)) {
+            break;
+          }
+          int tile = gameMap[next];
+          if (tile == BoardConstants.TELEP) {
+            if (hops >= portalCount) {
+              break;
+            }
+            hops++;
+            next = engine.getPortalTarget(next);
+          }
+          if (edges == from.length) {
+            from = Arrays.copyOf(from, edges * 2);
+            to = Arrays.copyOf(to, edges * 2);
+          }
+          from[edges] = cell;
+          to[edges] = next;
+          edges++;
+          if (tile == BoardConstants.FLOOR || tile == BoardConstants.DESTY) {
+            break;
+          }
+          position = next;
+        }
+      }
+    }
+
+    int[] start = new int[size + 2];
+    for (int i = 0; i < edges; i++) {
+      start[to[i] + 1]++;
+    }
+    for (int i = 0; i < size + 1; i++) {
+      start[i + 1] += start[i];
+    }
+    int[] sources = new int[edges];
+    int[] fill = Arrays.copyOf(start, size + 1);
+    for (int i = 0; i < edges; i++) {
+      sources[fill[to[i]]++] = from[i];
+    }
+
+    int[] result = new int[destinations.length * (size + 1)];
+    Arrays.fill(result, UNREACHABLE);
+    int[] queue = new int[size];
+    for (int d = 0; d < destinations.length; d++) {
+      int offset = d * (size + 1);
+      result[offset + destinations[d]] = 0;
+      queue[0] = destinations[d];
+      int tail = 1;
+      for (int head = 0; head < tail; head++) {
+        int cell = queue[head];
+        int distance = result[offset + cell] + 1;
+        for (int i = start[cell]; i < start[cell + 1]; i++) {
+          if (result[offset + sources[i]] == UNREACHABLE) {
+            result[offset + sources[i]] = distance;
+            queue[tail++] = sources[i];
+          }
+        }
+      }
+    }
+    return result;
+  }
+}
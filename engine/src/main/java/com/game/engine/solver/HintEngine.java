@@ -0,0 +1,186 @@
+package com.game.engine.solver;
+
+import com.game.engine.BoardConstants;
+import com.game.engine.BoardState;
+import com.game.engine.Level;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Finds the next swipe for the player on a background thread. Only one
+ * search runs at a time, a new request or {@link #cancel()} stops the
+ * previous one. Caller polls for the result, so nothing is ever delivered on
+ * the search thread. Solvers are built on the search thread too and share one
+ * transposition table, so a request costs the caller no allocation.
+ *
+ * @author niewinskip
+ */
+public final class HintEngine {
+
+  /**
+   * Limit of search nodes, keeps memory low on phones.
+   */
+  private static final int MAX_NODES = 200000;
+
+  /**
+   * Memory cap of the transposition table, same as a solver of MAX_NODES
+   * would take.
+   */
+  private static final long TABLE_BYTES = 4L * MAX_NODES * TranspositionTable.ENTRY_BYTES;
+
+  /**
+   * Single search thread.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * Solver of current request, null until the search thread starts it.
+   */
+  private Solver solver;
+
+  /**
+   * Table reused by all searches, created and used only on the search thread.
+   */
+  private TranspositionTable table;
+
+  /**
+   * Request counter, results of older requests are dropped.
+   */
+  private int request;
+
+  /**
+   * Move found for current request, NO_MOVE if none yet.
+   */
+  private int hint = BoardConstants.NO_MOVE;
+
+  /**
+   * True while current request is running.
+   */
+  private boolean busy;
+
+  /**
+   * Constructor.
+   */
+  public HintEngine() {
+    executor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "hint");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+  }
+
+  /**
+   * Start looking for the next swipe. Cancels previous request.
+   *
+   * @param level Current level.
+   * @param state Current state of the board.
+   * @param budgetMillis Time budget, best partial result is used when it ends.
+   */
+  public synchronized void request(final Level level, final BoardState state, final long budgetMillis) {
+    cancel();
+    final int id = ++request;
+    busy = true;
+    executor.execute(() -> {
+      if (!isCurrent(id)) {
+        return;
+      }
+      if (table == null) {
+        table = new TranspositionTable(TABLE_BYTES, TranspositionTable.Replacement.DEPTH_PREFERRED,
+            false);
+      }
+      Solver current = new Solver(level, state, MAX_NODES, table);
+      if (!start(id, current)) {
+        return;
+      }
+      Solution solution = current.solve(budgetMillis);
+      if (solution == null && !current.isCancelled()) {
+        solution = current.getPartial();
+      }
+      int move = solution == null || solution.getMoves().length == 0 ? BoardConstants.NO_MOVE
+          : solution.getMoves()[0];
+      finish(id, move);
+    });
+  }
+
+  /**
+   * Check if request was not cancelled or replaced, stale requests queued
+   * behind a running search are skipped.
+   *
+   * @param id Request id.
+   * @return True if request is current.
+   */
+  private synchronized boolean isCurrent(final int id) {
+    return id == request;
+  }
+
+  /**
+   * Make solver cancellable if request is still current.
+   *
+   * @param id Request id.
+   * @param current Solver of the request.
+   * @return False if request was cancelled or replaced before it started.
+   */
+  private synchronized boolean start(final int id, final Solver current) {
+    if (id != request) {
+      return false;
+    }
+    solver = current;
+    return true;
+  }
+
+  /**
+   * Store result if request is still current.
+   *
+   * @param id Request id.
+   * @param move Found move.
+   */
+  private synchronized void finish(final int id, final int move) {
+    if (id == request) {
+      hint = move;
+      busy = false;
+      solver = null;
+    }
+  }
+
+  /**
+   * Stop current request, its result is dropped.
+   */
+  public synchronized void cancel() {
+    if (solver != null) {
+      solver.cancel();
+      solver = null;
+    }
+    request++;
+    hint = BoardConstants.NO_MOVE;
+    busy = false;
+  }
+
+  /**
+   * Check if current request is still running.
+   *
+   * @return True while searching.
+   */
+  public synchronized boolean isBusy() {
+    return busy;
+  }
+
+  /**
+   * Take found move. Each result is returned once.
+   *
+   * @return Move, NO_MOVE if there is no result (yet or at all).
+   */
+  public synchronized int poll() {
+    int move = hint;
+    hint = BoardConstants.NO_MOVE;
+    return move;
+  }
+
+  /**
+   * Stop current request and the search thread.
+   */
+  public synchronized void shutdown() {
+    cancel();
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,217 @@
+package com.game.engine.solver;
+
+import com.game.engine.BoardConstants;
+import com.game.engine.BoardEngine;
+import com.game.engine.BoardState;
+import com.game.engine.DeadlockDetector;
+import com.game.engine.HeroReach;
+import com.game.engine.MoveResult;
+import java.util.List;
+
+/**
+ * Generates pushes of one search node. Hero moves without a push are free, so
+ * all cells the hero can reach by swiping (slides and portals included) are
+ * taken from {@link HeroReach} and every push is tried from each of them.
+ * Pushes leading to dead squares or frozen skulls are skipped. States after
+ * push have the hero on its canonical cell, so states differing only by
+ * equivalent hero cells are the same node. Owns an engine, so each search
+ * thread needs its own generator.
+ *
+ * @author niewinskip
+ */
+final class PushGenerator {
+
+  /**
+   * Receiver of generated pushes.
+   */
+  interface Sink {
+
+    /**
+     * Accept state after push.
+     *
+     * @param state State after push.
+     * @param cell Hero cell before push.
+     * @param move Push direction.
+     * @return False to stop generating.
+     */
+    boolean accept(BoardState state, int cell, int move);
+  }
+
+  /**
+   * Engine used to apply rules.
+   */
+  private final BoardEngine engine;
+
+  /**
+   * Deadlock detector of the engine.
+   */
+  private final DeadlockDetector deadlocks;
+
+  /**
+   * Hero reach of the engine.
+   */
+  private final HeroReach reach;
+
+  /**
+   * Reachable cells of expanded state.
+   */
+  private final int[] cells;
+
+  /**
+   * Expansion stamp of each cell, hero BFS visited marker.
+   */
+  private final int[] visited;
+
+  /**
+   * Current expansion stamp.
+   */
+  private int stamp;
+
+  /**
+   * Hero BFS queue.
+   */
+  private final int[] queue;
+
+  /**
+   * Previous cell on hero BFS path, used to rebuild solution.
+   */
+  private final int[] previousCell;
+
+  /**
+   * Move leading to the cell on hero BFS path.
+   */
+  private final int[] previousMove;
+
+  /**
+   * Constructor.
+   *
+   * @param engine Engine of the level, owned by the generator from now on.
+   */
+  PushGenerator(final BoardEngine engine) {
+    this.engine = engine;
+    this.deadlocks = new DeadlockDetector(engine);
+    this.reach = new HeroReach(engine);
+    int size = engine.getNumberOfColumns() * engine.getNumberOfRows() + 1;
+    this.cells = new int[size];
+    this.visited = new int[size];
+    this.queue = new int[size];
+    this.previousCell = new int[size];
+    this.previousMove = new int[size];
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Engine, its state changes with every call of the generator.
+   */
+  BoardEngine getEngine() {
+    return engine;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Deadlock detector of the engine.
+   */
+  DeadlockDetector getDeadlocks() {
+    return deadlocks;
+  }
+
+  /**
+   * Take snapshot of the engine with hero on its canonical cell.
+   *
+   * @return Current state, normalized.
+   */
+  BoardState canonicalSnapshot() {
+    return reach.canonicalSnapshot();
+  }
+
+  /**
+   * Lower bound of pushes completing the level.
+   *
+   * @param state State of the level.
+   * @return Number of pushes, PushDistances.INFEASIBLE if level cannot be
+   * completed.
+   */
+  int estimate(final BoardState state) {
+    return deadlocks.getDistances().estimate(state);
+  }
+
+  /**
+   * Pass every push available from the state to the sink.
+   *
+   * @param state State to expand.
+   * @param sink Receiver of pushes.
+   * @return False if sink stopped generation.
+   */
+  boolean expand(final BoardState state, final Sink sink) {
+    engine.restore(state);
+    int count = reach.getReachable(cells);
+    for (int i = 0; i < count; i++) {
+      int cell = cells[i];
+      engine.placeHero(cell);
+      for (int move = 0; move < BoardConstants.NUMBER_OF_MOVES; move++) {
+        MoveResult result = engine.move(move);
+        if (!result.isPushed()) {
+          if (result.isMoved()) {
+            engine.revert();
+          }
+          continue;
+        }
+        int skull = result.getSkullPoint(result.getSkullPathLength() - 1);
+        if (!deadlocks.isDeadlocked(skull) && !sink.accept(reach.canonicalSnapshot(), cell, move)) {
+          return false;
+        }
+        engine.revert();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Append swipes moving hero from its cell in the state to given cell and
+   * the push made from there.
+   *
+   * @param moves Swipes list to extend.
+   * @param state State before push, hero on its real cell.
+   * @param target Hero cell before push.
+   * @param push Push direction.
+   * @return State after push, hero on its real cell.
+   */
+  BoardState appendPush(final List<Integer> moves, final BoardState state, final int target, final int push) {
+    engine.restore(state);
+    int start = engine.getHeroPosition();
+    int head = 0;
+    int tail = 0;
+    stamp++;
+    visited[start] = stamp;
+    queue[tail++] = start;
+    while (head < tail && visited[target] != stamp) {
+      int cell = queue[head++];
+      engine.placeHero(cell);
+      for (int move = 0; move < BoardConstants.NUMBER_OF_MOVES; move++) {
+        MoveResult result = engine.move(move);
+        if (!result.isMoved()) {
+          continue;
+        }
+        int end = result.getHeroEnd();
+        if (!result.isPushed() && visited[end] != stamp) {
+          visited[end] = stamp;
+          previousCell[end] = cell;
+          previousMove[end] = move;
+          queue[tail++] = end;
+        }
+        engine.revert();
+      }
+    }
+    int from = moves.size();
+    for (int cell = target; cell != start; cell = previousCell[cell]) {
+      moves.add(from, previousMove[cell]);
+    }
+    moves.add(push);
+    engine.restore(state);
+    engine.placeHero(target);
+    engine.move(push);
+    return engine.snapshot();
+  }
+}
@@ -0,0 +1,93 @@
+package com.game.engine.solver;
+
+import com.game.engine.BoardConstants;
+
+/**
+ * Sequence of swipes solving a level.
+ *
+ * @author niewinskip
+ */
+public final class Solution {
+
+  /**
+   * Letters of moves, indexed by move constant.
+   */
+  private static final char[] LETTERS = {'U', 'R', 'D', 'L'};
+
+  /**
+   * Swipes, BoardConstants.MOVE_* values.
+   */
+  private final int[] moves;
+
+  /**
+   * Number of pushes.
+   */
+  private final int pushes;
+
+  /**
+   * Number of expanded search nodes.
+   */
+  private final long expanded;
+
+  /**
+   * Constructor.
+   *
+   * @param moves Swipes.
+   * @param pushes Number of pushes.
+   * @param expanded Number of expanded search nodes.
+   */
+  public Solution(final int[] moves, final int pushes, final long expanded) {
+    this.moves = moves;
+    this.pushes = pushes;
+    this.expanded = expanded;
+  }
+
+  /**
+   * Getter. Do not modify.
+   *
+   * @return Swipes.
+   */
+  public int[] getMoves() {
+    return moves;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of pushes.
+   */
+  public int getPushes() {
+    return pushes;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of expanded search nodes.
+   */
+  public long getExpanded() {
+    return expanded;
+  }
+
+  /**
+   * Convert move to letter.
+   *
+   * @param move Move constant.
+   * @return One of U, R, D, L.
+   */
+  public static char toLetter(final int move) {
+    if (move < 0 || move >= BoardConstants.NUMBER_OF_MOVES) {
+      throw new IllegalArgumentException("Invalid move: " + move);
+    }
+    return LETTERS[move];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(moves.length);
+    for (int move : moves) {
+      sb.append(toLetter(move));
+    }
+    return sb.toString();
+  }
+}
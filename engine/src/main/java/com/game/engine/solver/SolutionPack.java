@@ -0,0 +1,229 @@
+package com.game.engine.solver;
+
+import com.game.engine.BoardConstants;
+import com.game.engine.BoardEngine;
+import com.game.engine.BoardState;
+import com.game.engine.Level;
+import com.game.engine.MoveJournal;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precomputed solutions of all levels, written at build time and shipped as
+ * an asset. Small index at the start maps level number to level file hash,
+ * number of pushes and position of the solution, solutions follow in
+ * {@link MoveJournal} format, 2 bits per swipe. Reading stops as soon as
+ * requested level's solution is read, other solutions are skipped.
+ *
+ * <p>Level file hash is 64-bit FNV-1a of file bytes, see
+ * {@link #fingerprint(byte[])}. Solution of an edited level is stale and is
+ * never returned.
+ *
+ * @author niewinskip
+ */
+public final class SolutionPack {
+
+  /**
+   * Asset name.
+   */
+  public static final String ASSET = "solutions.bin";
+
+  /**
+   * File magic, "MSOL".
+   */
+  private static final int MAGIC = 0x4D534F4C;
+
+  /**
+   * Format version.
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * Level numbers of added solutions.
+   */
+  private final List<Integer> levels = new ArrayList<>();
+
+  /**
+   * Level file hashes of added solutions.
+   */
+  private final List<Long> hashes = new ArrayList<>();
+
+  /**
+   * Added solutions.
+   */
+  private final List<Solution> solutions = new ArrayList<>();
+
+  /**
+   * Add solution to be written.
+   *
+   * @param level Level number.
+   * @param levelHash Hash of level file.
+   * @param solution Solution.
+   */
+  public void add(final int level, final long levelHash, final Solution solution) {
+    levels.add(level);
+    hashes.add(levelHash);
+    solutions.add(solution);
+  }
+
+  /**
+   * Write all added solutions.
+   *
+   * @param out Output stream, not closed.
+   * @throws IOException If writing fails.
+   */
+  public void writeTo(final OutputStream out) throws IOException {
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    int[] offsets = new int[solutions.size()];
+    int[] lengths = new int[solutions.size()];
+    for (int i = 0; i < solutions.size(); i++) {
+      MoveJournal journal = new MoveJournal(false);
+      for (int move : solutions.get(i).getMoves()) {
+        journal.record(move);
+      }
+      byte[] bytes = journal.toByteArray();
+      offsets[i] = data.size();
+      lengths[i] = bytes.length;
+      data.write(bytes);
+    }
+    DataOutputStream dos = new DataOutputStream(out);
+    dos.writeInt(MAGIC);
+    dos.writeByte(VERSION);
+    dos.writeInt(solutions.size());
+    for (int i = 0; i < solutions.size(); i++) {
+      dos.writeInt(levels.get(i));
+      dos.writeLong(hashes.get(i));
+      dos.writeInt(solutions.get(i).getPushes());
+      dos.writeInt(offsets[i]);
+      dos.writeInt(lengths[i]);
+    }
+    data.writeTo(dos);
+    dos.flush();
+  }
+
+  /**
+   * Read solution of one level.
+   *
+   * @param in Pack stream, not closed.
+   * @param level Level number.
+   * @param levelHash Hash of level file.
+   * @return Solution, null if pack has none or it was made for a different
+   * version of the level file.
+   * @throws IOException If stream is not a valid pack.
+   */
+  public static Solution load(final InputStream in, final int level, final long levelHash) throws IOException {
+    DataInputStream dis = new DataInputStream(in);
+    if (dis.readInt() != MAGIC || dis.readUnsignedByte() != VERSION) {
+      throw new IOException("Unsupported solution pack");
+    }
+    int count = dis.readInt();
+    if (count < 0) {
+      throw new IOException("Corrupted solution pack");
+    }
+    boolean found = false;
+    long foundHash = 0;
+    int pushes = 0;
+    int offset = 0;
+    int length = 0;
+    for (int i = 0; i < count; i++) {
+      int entryLevel = dis.readInt();
+      long entryHash = dis.readLong();
+      int entryPushes = dis.readInt();
+      int entryOffset = dis.readInt();
+      int entryLength = dis.readInt();
+      if (entryLevel == level && !found) {
+        found = true;
+        foundHash = entryHash;
+        pushes = entryPushes;
+        offset = entryOffset;
+        length = entryLength;
+      }
+    }
+    if (!found || foundHash != levelHash) {
+      return null;
+    }
+    if (offset < 0 || length <= 0) {
+      throw new IOException("Corrupted solution pack");
+    }
+    skipFully(dis, offset);
+    byte[] bytes = new byte[length];
+    dis.readFully(bytes);
+    MoveJournal journal;
+    try {
+      journal = MoveJournal.fromByteArray(bytes);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Corrupted solution of level " + level, e);
+    }
+    int[] moves = new int[journal.size()];
+    for (int i = 0; i < moves.length; i++) {
+      moves[i] = journal.getMove(i);
+    }
+    return new Solution(moves, pushes, 0);
+  }
+
+  /**
+   * Hash identifying level file contents, 64-bit FNV-1a.
+   *
+   * @param data Level file bytes.
+   * @return Hash.
+   */
+  public static long fingerprint(final byte[] data) {
+    long hash = 0xCBF29CE484222325L;
+    for (byte b : data) {
+      hash ^= b & 0xFF;
+      hash *= 0x100000001B3L;
+    }
+    return hash;
+  }
+
+  /**
+   * Find swipe continuing the solution from given state. Works while the
+   * player follows the solution, from level start on.
+   *
+   * @param level Solved level.
+   * @param solution Solution from level start.
+   * @param state Current state.
+   * @return Next swipe, BoardConstants.NO_MOVE if state is not on the
+   * solution.
+   */
+  public static int nextMove(final Level level, final Solution solution, final BoardState state) {
+    BoardEngine engine = level.newEngine();
+    int[] moves = solution.getMoves();
+    for (int i = 0; i < moves.length; i++) {
+      if (engine.getHash() == state.getHash() && engine.snapshot().equals(state)) {
+        return moves[i];
+      }
+      if (!engine.move(moves[i]).isMoved()) {
+        break;
+      }
+    }
+    return BoardConstants.NO_MOVE;
+  }
+
+  /**
+   * Skip bytes of a stream.
+   *
+   * @param in Stream.
+   * @param count Number of bytes.
+   * @throws IOException If stream ends first.
+   */
+  private static void skipFully(final InputStream in, final long count) throws IOException {
+    long left = count;
+    while (left > 0) {
+      long skipped = in.skip(left);
+      if (skipped <= 0) {
+        if (in.read() == -1) {
+          throw new IOException("Truncated solution pack");
+        }
+        skipped = 1;
+      }
+      left -= skipped;
+    }
+  }
+}
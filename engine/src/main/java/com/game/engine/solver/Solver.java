@@ -0,0 +1,510 @@
+package com.game.engine.solver;
+
+import com.game.engine.BoardEngine;
+import com.game.engine.BoardState;
+import com.game.engine.Level;
+import com.game.engine.PullPerimeter;
+import com.game.engine.PushDistances;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Push optimal solver. Runs A* over skull configurations, cost is the number
+ * of pushes. Hero moves without a push are free, pushes of each node come
+ * from {@link PushGenerator}. Rules come from {@link BoardEngine}, so ice,
+ * portals and destinations behave exactly like in game.
+ *
+ * <p>Heuristic is the {@link PushDistances} assignment bound: skulls matched
+ * to distinct destinations by minimal total push distance. It never
+ * overestimates and one push lowers it by at most one, so A* with a bucket
+ * queue returns the minimal number of pushes. Pushes leading to dead squares,
+ * frozen skulls or positions without any assignment are never stored.
+ *
+ * <p>On levels without ice and portals a {@link PullPerimeter} can be set: a
+ * reverse search from the goal whose exact distances replace the heuristic
+ * near the goal, so both searches meet in the middle.
+ *
+ * <p>Known states are found through a {@link TranspositionTable} keyed by
+ * Zobrist hash, so memory of the index is fixed up front. A state dropped from
+ * the table is only stored again as a duplicate node, results stay optimal.
+ *
+ * @author niewinskip
+ */
+public final class Solver {
+
+  /**
+   * Default limit of stored search nodes.
+   */
+  public static final int DEFAULT_MAX_NODES = 2000000;
+
+  /**
+   * Table entries per search node used when no memory cap is given.
+   */
+  private static final int ENTRIES_PER_NODE = 4;
+
+  /**
+   * Limit of stored search nodes.
+   */
+  private final int maxNodes;
+
+  /**
+   * Generator of pushes, owns the engine.
+   */
+  private final PushGenerator generator;
+
+  /**
+   * Destinations bit board.
+   */
+  private final long[] destinations;
+
+  /**
+   * Reverse search from the goal, null if not used.
+   */
+  private PullPerimeter perimeter;
+
+  /**
+   * States of search nodes.
+   */
+  private final List<BoardState> states;
+
+  /**
+   * Node index of known states, keyed by state hash.
+   */
+  private final TranspositionTable index;
+
+  /**
+   * Parent node, -1 for root.
+   */
+  private int[] parents;
+
+  /**
+   * Hero cell from which parent's push was made.
+   */
+  private int[] pushCells;
+
+  /**
+   * Direction of parent's push.
+   */
+  private int[] pushMoves;
+
+  /**
+   * Number of pushes from start.
+   */
+  private int[] costs;
+
+  /**
+   * Lower bound of pushes left.
+   */
+  private int[] estimates;
+
+  /**
+   * Open nodes grouped by estimated total cost.
+   */
+  private final List<Bucket> buckets;
+
+  /**
+   * Number of expanded nodes.
+   */
+  private long expanded;
+
+  /**
+   * True if last search stopped at node limit.
+   */
+  private boolean limitReached;
+
+  /**
+   * True if last search ran out of time.
+   */
+  private boolean timedOut;
+
+  /**
+   * Set from another thread to stop the search.
+   */
+  private volatile boolean cancelled;
+
+  /**
+   * Node closest to the goal so far, lowest estimate first, then fewest
+   * pushes.
+   */
+  private int bestNode;
+
+  /**
+   * Constructor.
+   *
+   * @param level Level to solve.
+   */
+  public Solver(final Level level) {
+    this(level, DEFAULT_MAX_NODES);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param level Level to solve.
+   * @param maxNodes Limit of stored search nodes.
+   */
+  public Solver(final Level level, final int maxNodes) {
+    this(level, null, maxNodes);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param level Level to solve.
+   * @param start State to start from, taken from an engine of the same level,
+   * null for level's starting state.
+   * @param maxNodes Limit of stored search nodes.
+   */
+  public Solver(final Level level, final BoardState start, final int maxNodes) {
+    this(level, start, maxNodes, (long) maxNodes * ENTRIES_PER_NODE * TranspositionTable.ENTRY_BYTES);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param level Level to solve.
+   * @param start State to start from, taken from an engine of the same level,
+   * null for level's starting state.
+   * @param maxNodes Limit of stored search nodes.
+   * @param tableBytes Memory cap of the transposition table.
+   */
+  public Solver(final Level level, final BoardState start, final int maxNodes, final long tableBytes) {
+    this(level, start, maxNodes,
+        new TranspositionTable(tableBytes, TranspositionTable.Replacement.DEPTH_PREFERRED, false));
+  }
+
+  /**
+   * Constructor with a table of a previous search, saves allocating it again
+   * when many searches run one after another on the same thread.
+   *
+   * @param level Level to solve.
+   * @param start State to start from, taken from an engine of the same level,
+   * null for level's starting state.
+   * @param maxNodes Limit of stored search nodes.
+   * @param table Transposition table with {@link TranspositionTable.Replacement#DEPTH_PREFERRED}
+   * policy, cleared here. Must not be used by another search at the same time.
+   */
+  public Solver(final Level level, final BoardState start, final int maxNodes,
+      final TranspositionTable table) {
+    this.maxNodes = maxNodes;
+    BoardEngine engine = level.newEngine();
+    if (start != null) {
+      engine.restore(start);
+    }
+    this.generator = new PushGenerator(engine);
+    this.destinations = engine.getDestinations();
+    this.states = new ArrayList<>();
+    if (table.size() > 0) {
+      table.clear();
+    }
+    this.index = table;
+    this.parents = new int[1024];
+    this.pushCells = new int[1024];
+    this.pushMoves = new int[1024];
+    this.costs = new int[1024];
+    this.estimates = new int[1024];
+    this.buckets = new ArrayList<>();
+  }
+
+  /**
+   * Find solution with minimal number of pushes.
+   *
+   * @return Solution, null if level cannot be solved or node limit was
+   * reached, see {@link #isLimitReached()}.
+   */
+  public Solution solve() {
+    return solve(0);
+  }
+
+  /**
+   * Find solution with minimal number of pushes within time budget.
+   *
+   * @param budgetMillis Time budget in milliseconds, 0 for no limit.
+   * @return Solution, null if level cannot be solved, node limit or time
+   * budget was reached or search was cancelled. Use {@link #getPartial()}
+   * for the best progress found so far.
+   */
+  public Solution solve(final long budgetMillis) {
+    long deadline = System.nanoTime() + budgetMillis * 1000000L;
+    if (generator.getDeadlocks().hasDeadlock()) {
+      return null;
+    }
+    BoardState start = generator.getEngine().snapshot();
+    int estimate = estimate(start);
+    if (estimate == PushDistances.INFEASIBLE) {
+      return null;
+    }
+    addNode(start, -1, -1, -1, 0, estimate);
+    bestNode = 0;
+    for (int f = 0; f < buckets.size(); f++) {
+      Bucket bucket = buckets.get(f);
+      while (bucket.size > 0) {
+        int node = bucket.pop();
+        BoardState state = states.get(node);
+        if (costs[node] + estimates[node] != f) {
+          // Stale entry, node was reached cheaper later.
+          continue;
+        }
+        if (state.isCompleted(destinations)) {
+          return buildSolution(node);
+        }
+        if (cancelled) {
+          return null;
+        }
+        if (budgetMillis > 0 && System.nanoTime() - deadline > 0) {
+          timedOut = true;
+          return null;
+        }
+        if (!expand(node)) {
+          limitReached = true;
+          return null;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Setter. Call before solving.
+   *
+   * @param perimeter Reverse search of the same level, null to search forward
+   * only.
+   */
+  public void setPerimeter(final PullPerimeter perimeter) {
+    this.perimeter = perimeter;
+  }
+
+  /**
+   * Stop the search. Safe to call from any thread.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return True if search was cancelled.
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return True if last search ran out of time.
+   */
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+
+  /**
+   * Get swipes leading to the node closest to the goal found by stopped
+   * search. Not optimal, but its first swipe is a reasonable hint.
+   *
+   * @return Partial solution, null if no push was found.
+   */
+  public Solution getPartial() {
+    if (states.isEmpty() || bestNode == 0) {
+      return null;
+    }
+    return buildSolution(bestNode);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return True if last search stopped at node limit.
+   */
+  public boolean isLimitReached() {
+    return limitReached;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of expanded nodes.
+   */
+  public long getExpanded() {
+    return expanded;
+  }
+
+  /**
+   * Try every push available from the node.
+   *
+   * @param node Node index.
+   * @return False if node limit was reached.
+   */
+  private boolean expand(final int node) {
+    expanded++;
+    final int cost = costs[node] + 1;
+    return generator.expand(states.get(node), (state, cell, move) -> relax(state, node, cell, move, cost));
+  }
+
+  /**
+   * Add new state or update known one if it was reached cheaper.
+   *
+   * @param state State after push.
+   * @param parent Parent node.
+   * @param cell Hero cell before push.
+   * @param move Push direction.
+   * @param cost Number of pushes.
+   * @return False if node limit was reached.
+   */
+  private boolean relax(final BoardState state, final int parent, final int cell, final int move,
+      final int cost) {
+    int known = index.get(state.getHash());
+    if (known != TranspositionTable.MISSING && !states.get(known).equals(state)) {
+      // Hash collision, treat as a new state.
+      known = TranspositionTable.MISSING;
+    }
+    if (known == TranspositionTable.MISSING) {
+      int estimate = estimate(state);
+      if (estimate == PushDistances.INFEASIBLE) {
+        return true;
+      }
+      if (states.size() >= maxNodes) {
+        return false;
+      }
+      addNode(state, parent, cell, move, cost, estimate);
+    } else if (cost < costs[known]) {
+      parents[known] = parent;
+      pushCells[known] = cell;
+      pushMoves[known] = move;
+      costs[known] = cost;
+      index.put(state.getHash(), known, cost);
+      push(known, cost + estimates[known]);
+    }
+    return true;
+  }
+
+  /**
+   * Store new node and open it.
+   *
+   * @param state Node state.
+   * @param parent Parent node.
+   * @param cell Hero cell before push.
+   * @param move Push direction.
+   * @param cost Number of pushes.
+   * @param estimate Lower bound of pushes left.
+   */
+  private void addNode(final BoardState state, final int parent, final int cell, final int move,
+      final int cost, final int estimate) {
+    int node = states.size();
+    if (node == costs.length) {
+      int length = node * 2;
+      parents = Arrays.copyOf(parents, length);
+      pushCells = Arrays.copyOf(pushCells, length);
+      pushMoves = Arrays.copyOf(pushMoves, length);
+      costs = Arrays.copyOf(costs, length);
+      estimates = Arrays.copyOf(estimates, length);
+    }
+    states.add(state);
+    index.put(state.getHash(), node, cost);
+    parents[node] = parent;
+    pushCells[node] = cell;
+    pushMoves[node] = move;
+    costs[node] = cost;
+    estimates[node] = estimate;
+    push(node, cost + estimate);
+    if (node > 0) {
+      int best = estimates[bestNode];
+      if (estimate < best || (estimate == best && cost < costs[bestNode])) {
+        bestNode = node;
+      }
+    }
+  }
+
+  /**
+   * Open node.
+   *
+   * @param node Node index.
+   * @param f Estimated total cost.
+   */
+  private void push(final int node, final int f) {
+    while (buckets.size() <= f) {
+      buckets.add(new Bucket());
+    }
+    buckets.get(f).push(node);
+  }
+
+  /**
+   * Lower bound of pushes left, exact inside the perimeter.
+   *
+   * @param state State.
+   * @return Number of pushes, PushDistances.INFEASIBLE if level cannot be
+   * completed.
+   */
+  private int estimate(final BoardState state) {
+    int estimate = generator.estimate(state);
+    if (perimeter == null || estimate == PushDistances.INFEASIBLE) {
+      return estimate;
+    }
+    return perimeter.bound(state, estimate);
+  }
+
+  /**
+   * Rebuild swipes leading to the node.
+   *
+   * @param goal Goal node.
+   * @return Solution.
+   */
+  private Solution buildSolution(final int goal) {
+    List<Integer> chain = new ArrayList<>();
+    for (int node = goal; parents[node] != -1; node = parents[node]) {
+      chain.add(node);
+    }
+    // Stored states have hero on canonical cell, so real hero cell is
+    // followed from the start.
+    List<Integer> moves = new ArrayList<>();
+    BoardState state = states.get(0);
+    for (int i = chain.size() - 1; i >= 0; i--) {
+      int node = chain.get(i);
+      state = generator.appendPush(moves, state, pushCells[node], pushMoves[node]);
+    }
+    int[] result = new int[moves.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = moves.get(i);
+    }
+    return new Solution(result, costs[goal], expanded);
+  }
+
+  /**
+   * Stack of open nodes with the same estimated total cost.
+   */
+  private static final class Bucket {
+
+    /**
+     * Node indexes.
+     */
+    private int[] items = new int[16];
+
+    /**
+     * Number of nodes.
+     */
+    private int size;
+
+    /**
+     * Add node.
+     *
+     * @param node Node index.
+     */
+    void push(final int node) {
+      if (size == items.length) {
+        items = Arrays.copyOf(items, size * 2);
+      }
+      items[size++] = node;
+    }
+
+    /**
+     * Remove last added node.
+     *
+     * @return Node index.
+     */
+    int pop() {
+      return items[--size];
+    }
+  }
+}
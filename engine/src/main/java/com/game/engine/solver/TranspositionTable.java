@@ -0,0 +1,327 @@
+package com.game.engine.solver;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed size hash table keyed by 64-bit state hashes. Entries live in
+ * parallel primitive arrays, or in a direct buffer outside of the Java heap,
+ * so there is no boxing and no object per entry. Memory is capped at
+ * construction: when the probe window of a key is full, an entry is replaced
+ * according to the {@link Replacement} policy.
+ *
+ * <p>Each entry keeps an int value (for example a node index) and a depth
+ * (for example number of pushes). Not thread safe.
+ *
+ * @author niewinskip
+ */
+public final class TranspositionTable {
+
+  /**
+   * Policy choosing which entry of a full probe window is replaced.
+   */
+  public enum Replacement {
+    /**
+     * Replace the entry with the smallest depth, keeps expensive results.
+     */
+    DEPTH_PREFERRED,
+    /**
+     * Replace the entry stored in the oldest generation, then the one with
+     * the smallest depth. Useful when the table is reused by many searches.
+     */
+    AGING
+  }
+
+  /**
+   * Value returned for missing keys.
+   */
+  public static final int MISSING = -1;
+
+  /**
+   * Bytes used by one entry: key, value and packed depth with generation.
+   */
+  public static final int ENTRY_BYTES = 16;
+
+  /**
+   * Number of slots probed for a key.
+   */
+  private static final int WINDOW = 4;
+
+  /**
+   * Stored in place of hash 0, which marks empty slots.
+   */
+  private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+
+  /**
+   * Replacement policy.
+   */
+  private final Replacement replacement;
+
+  /**
+   * Number of slots minus one, number of slots is a power of two.
+   */
+  private final int mask;
+
+  /**
+   * Keys, on heap storage.
+   */
+  private final long[] keys;
+
+  /**
+   * Values, on heap storage.
+   */
+  private final int[] values;
+
+  /**
+   * Depth in high 24 bits, generation in low 8 bits, on heap storage.
+   */
+  private final int[] meta;
+
+  /**
+   * Entries, off heap storage. Null if table lives on heap.
+   */
+  private final ByteBuffer buffer;
+
+  /**
+   * Current generation.
+   */
+  private int generation;
+
+  /**
+   * Number of stored entries.
+   */
+  private int size;
+
+  /**
+   * Constructor.
+   *
+   * @param maxBytes Memory cap, table takes the largest power of two number of
+   * entries that fits, at least {@value #WINDOW}, see {@link #capacityFor(long, boolean)}.
+   * @param replacement Replacement policy.
+   * @param offHeap True to store entries in a direct buffer.
+   */
+  public TranspositionTable(final long maxBytes, final Replacement replacement, final boolean offHeap) {
+    int capacity = capacityFor(maxBytes, offHeap);
+    this.replacement = replacement;
+    this.mask = capacity - 1;
+    if (offHeap) {
+      buffer = ByteBuffer.allocateDirect(capacity * ENTRY_BYTES).order(ByteOrder.nativeOrder());
+      keys = null;
+      values = null;
+      meta = null;
+    } else {
+      buffer = null;
+      keys = new long[capacity];
+      values = new int[capacity];
+      meta = new int[capacity];
+    }
+  }
+
+  /**
+   * Number of slots of a table. Arrays on heap hold up to 2^30 entries, a
+   * direct buffer is indexed by int byte offsets, so it holds up to 2^26
+   * entries, 1 GiB.
+   *
+   * @param maxBytes Memory cap.
+   * @param offHeap True for a direct buffer.
+   * @return Largest power of two number of entries that fits, at least
+   * {@value #WINDOW}.
+   */
+  static int capacityFor(final long maxBytes, final boolean offHeap) {
+    long limit = offHeap ? Integer.MAX_VALUE / ENTRY_BYTES : 1 << 30;
+    long entries = Math.max(WINDOW, Math.min(maxBytes / ENTRY_BYTES, limit));
+    return Integer.highestOneBit((int) entries);
+  }
+
+  /**
+   * Find value stored for a hash.
+   *
+   * @param hash State hash.
+   * @return Stored value, {@link #MISSING} if there is none.
+   */
+  public int get(final long hash) {
+    int slot = find(key(hash));
+    return slot == -1 ? MISSING : value(slot);
+  }
+
+  /**
+   * Find depth stored for a hash.
+   *
+   * @param hash State hash.
+   * @return Stored depth, -1 if there is none.
+   */
+  public int getDepth(final long hash) {
+    int slot = find(key(hash));
+    return slot == -1 ? -1 : metaAt(slot) >>> 8;
+  }
+
+  /**
+   * Store value for a hash, replacing its previous value.
+   *
+   * @param hash State hash.
+   * @param value Non negative value.
+   * @param depth Depth, 0 to 2^24 - 1.
+   * @return False if the window was full and policy kept the old entries.
+   */
+  public boolean put(final long hash, final int value, final int depth) {
+    long key = key(hash);
+    int start = (int) (key ^ (key >>> 32)) & mask;
+    int victim = -1;
+    int victimScore = Integer.MAX_VALUE;
+    for (int i = 0; i < WINDOW; i++) {
+      int slot = (start + i) & mask;
+      long stored = keyAt(slot);
+      if (stored == key || stored == 0) {
+        if (stored == 0) {
+          size++;
+        }
+        store(slot, key, value, depth);
+        return true;
+      }
+      int score = score(metaAt(slot));
+      if (score < victimScore) {
+        victimScore = score;
+        victim = slot;
+      }
+    }
+    if (replacement == Replacement.DEPTH_PREFERRED && victimScore > depth) {
+      return false;
+    }
+    store(victim, key, value, depth);
+    return true;
+  }
+
+  /**
+   * Start new generation, entries of older ones are replaced first by
+   * {@link Replacement#AGING}.
+   */
+  public void newGeneration() {
+    generation = (generation + 1) & 0xFF;
+  }
+
+  /**
+   * Remove all entries.
+   */
+  public void clear() {
+    for (int slot = 0; slot <= mask; slot++) {
+      store(slot, 0, 0, 0);
+    }
+    size = 0;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of stored entries.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of slots.
+   */
+  public int capacity() {
+    return mask + 1;
+  }
+
+  /**
+   * Rank entry for replacement, lowest is replaced first.
+   *
+   * @param packed Packed depth and generation.
+   * @return Score.
+   */
+  private int score(final int packed) {
+    int depth = packed >>> 8;
+    if (replacement == Replacement.DEPTH_PREFERRED) {
+      return depth;
+    }
+    int age = (generation - packed) & 0xFF;
+    return ((0xFF - age) << 24) | Math.min(depth, 0xFFFFFF);
+  }
+
+  /**
+   * Find slot of a key.
+   *
+   * @param key Non zero key.
+   * @return Slot, -1 if key is not stored.
+   */
+  private int find(final long key) {
+    int start = (int) (key ^ (key >>> 32)) & mask;
+    for (int i = 0; i < WINDOW; i++) {
+      int slot = (start + i) & mask;
+      long stored = keyAt(slot);
+      if (stored == key) {
+        return slot;
+      }
+      if (stored == 0) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Map hash to non zero key.
+   *
+   * @param hash State hash.
+   * @return Key.
+   */
+  private static long key(final long hash) {
+    return hash == 0 ? ZERO_KEY : hash;
+  }
+
+  /**
+   * Write entry.
+   *
+   * @param slot Slot.
+   * @param key Key.
+   * @param value Value.
+   * @param depth Depth.
+   */
+  private void store(final int slot, final long key, final int value, final int depth) {
+    int packed = (Math.min(depth, 0xFFFFFF) << 8) | generation;
+    if (buffer != null) {
+      int offset = slot * ENTRY_BYTES;
+      buffer.putLong(offset, key);
+      buffer.putInt(offset + 8, value);
+      buffer.putInt(offset + 12, packed);
+    } else {
+      keys[slot] = key;
+      values[slot] = value;
+      meta[slot] = packed;
+    }
+  }
+
+  /**
+   * Read key.
+   *
+   * @param slot Slot.
+   * @return Key, 0 if slot is empty.
+   */
+  private long keyAt(final int slot) {
+    return buffer != null ? buffer.getLong(slot * ENTRY_BYTES) : keys[slot];
+  }
+
+  /**
+   * Read value.
+   *
+   * @param slot Slot.
+   * @return Value.
+   */
+  private int value(final int slot) {
+    return buffer != null ? buffer.getInt(slot * ENTRY_BYTES + 8) : values[slot];
+  }
+
+  /**
+   * Read packed depth and generation.
+   *
+   * @param slot Slot.
+   * @return Packed meta data.
+   */
+  private int metaAt(final int slot) {
+    return buffer != null ? buffer.getInt(slot * ENTRY_BYTES + 12) : meta[slot];
+  }
+}
@@ -13,12 +13,12 @@ public class MoveBackup {
   private final int heroPosition;
 
   /**
-   * Skull position.
+   * Skull id.
    */
-  private int skullTag;
+  private int skullId;
 
   /**
-   * Skull tag.
+   * Skull position.
    */
   private int skullPosition;
 
@@ -26,12 +26,12 @@ public class MoveBackup {
    * Constructor.
    *
    * @param heroPosition Hero position.
-   * @param skullTag Skull tag.
+   * @param skullId Skull id, -1 if no skull was pushed.
    * @param skullPosition Skull position.
    */
-  public MoveBackup(final int heroPosition, final int skullTag, final int skullPosition) {
+  public MoveBackup(final int heroPosition, final int skullId, final int skullPosition) {
     this.heroPosition = heroPosition;
-    this.skullTag = skullTag;
+    this.skullId = skullId;
     this.skullPosition = skullPosition;
   }
 
@@ -63,20 +63,20 @@ public class MoveBackup {
   }
 
   /**
-   * Get skull tag.
+   * Get skull id.
    *
-   * @return Skull tag.
+   * @return Skull id.
    */
-  public final int getSkullTag() {
-    return skullTag;
+  public final int getSkullId() {
+    return skullId;
   }
 
   /**
    * Setter.
    *
-   * @param tag Skull tag.
+   * @param id Skull id.
    */
-  public final void setSkullTag(final int tag) {
-    this.skullTag = tag;
+  public final void setSkullId(final int id) {
+    this.skullId = id;
   }
 }
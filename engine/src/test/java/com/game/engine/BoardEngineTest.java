@@ -0,0 +1,216 @@
+package com.game.engine;
+
+import static com.game.engine.TestBoards.engine;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Board rules on small hand made maps.
+ */
+public class BoardEngineTest {
+
+  private static final int X = BoardConstants.BLOCK;
+  private static final int F = BoardConstants.FLOOR;
+  private static final int S = BoardConstants.SLIDE;
+  private static final int D = BoardConstants.DESTY;
+  private static final int T = BoardConstants.TELEP;
+  private static final int[] NONE = new int[0];
+
+  @Test
+  public void heroStepsOneFloorTile() {
+    BoardEngine e = engine(5, new int[]{X, F, F, F, X}, NONE, NONE, 1);
+    MoveResult r = e.move(BoardConstants.MOVE_RIGHT);
+    assertTrue(r.isMoved());
+    assertEquals(2, r.getHeroEnd());
+    assertEquals(2, e.getHeroPosition());
+  }
+
+  @Test
+  public void heroSlidesAcrossIce() {
+    BoardEngine e = engine(6, new int[]{X, F, S, S, F, X}, NONE, NONE, 1);
+    MoveResult r = e.move(BoardConstants.MOVE_RIGHT);
+    assertEquals(4, r.getHeroEnd());
+    assertEquals(2, r.getIceSteps());
+  }
+
+  @Test
+  public void slideStopsAtRowBoundary() {
+    BoardEngine e = engine(3, new int[]{F, S, S, S, S, F}, NONE, NONE, 0);
+    assertEquals(2, e.move(BoardConstants.MOVE_RIGHT).getHeroEnd());
+    assertFalse(e.move(BoardConstants.MOVE_UP).isMoved());
+    assertEquals(5, e.move(BoardConstants.MOVE_DOWN).getHeroEnd());
+  }
+
+  @Test
+  public void noMoveChangesNothing() {
+    BoardEngine e = engine(5, new int[]{X, F, F, F, X}, NONE, NONE, 1);
+    assertFalse(e.move(BoardConstants.NO_MOVE).isMoved());
+  }
+
+  @Test
+  public void heroStopsBeforeSkullAfterSliding() {
+    BoardEngine e = engine(6, new int[]{X, F, S, S, F, X}, new int[]{4}, NONE, 1);
+    MoveResult r = e.move(BoardConstants.MOVE_RIGHT);
+    assertEquals(3, r.getHeroEnd());
+    assertFalse(r.isPushed());
+  }
+
+  @Test
+  public void heroStopsBeforeSkullStandingOnIce() {
+    BoardEngine e = engine(7, new int[]{X, F, S, S, S, F, X}, new int[]{4}, NONE, 1);
+    MoveResult r = e.move(BoardConstants.MOVE_RIGHT);
+    assertEquals(3, r.getHeroEnd());
+    assertEquals(2, r.getIceSteps());
+    assertFalse(r.isPushed());
+  }
+
+  @Test
+  public void slideStopsBeforeNearestOfManySkulls() {
+    BoardEngine e = engine(9, new int[]{X, F, S, S, S, S, S, F, X}, new int[]{7, 5, 6}, NONE, 1);
+    MoveResult r = e.move(BoardConstants.MOVE_RIGHT);
+    assertEquals(4, r.getHeroEnd());
+    assertFalse(r.isPushed());
+  }
+
+  @Test
+  public void heroPushesSkullStandingOnIceNextToIt() {
+    BoardEngine e = engine(6, new int[]{X, F, S, S, F, X}, new int[]{2}, NONE, 1);
+    MoveResult r = e.move(BoardConstants.MOVE_RIGHT);
+    assertTrue(r.isPushed());
+    assertEquals(2, r.getHeroEnd());
+    assertEquals(4, e.getSkullPosition(0));
+  }
+
+  @Test
+  public void verticalSlideIgnoresSkullsInOtherColumns() {
+    BoardEngine e = engine(3, new int[]{
+        F, F, X,
+        S, S, X,
+        S, S, X,
+        F, F, X}, new int[]{4}, NONE, 0);
+    MoveResult r = e.move(BoardConstants.MOVE_DOWN);
+    assertEquals(9, r.getHeroEnd());
+    assertEquals(2, r.getIceSteps());
+  }
+
+  @Test
+  public void pushSlidesSkullOntoDestination() {
+    BoardEngine e = engine(6, new int[]{X, F, F, S, D, X}, new int[]{2}, NONE, 1);
+    MoveResult r = e.move(BoardConstants.MOVE_RIGHT);
+    assertTrue(r.isPushed());
+    assertEquals(2, r.getHeroEnd());
+    assertEquals(4, e.getSkullPosition(0));
+    assertTrue(r.isCompleted());
+  }
+
+  @Test
+  public void blockedPushChangesNothing() {
+    BoardEngine e = engine(4, new int[]{X, F, F, X}, new int[]{2}, NONE, 1);
+    assertFalse(e.move(BoardConstants.MOVE_RIGHT).isMoved());
+    assertFalse(e.canRevert());
+  }
+
+  @Test
+  public void portalMovesHeroAndSlideContinues() {
+    int[] map = {
+        X, X, X, X, X,
+        X, F, T, X, X,
+        X, X, T, F, X,
+        X, X, X, X, X};
+    BoardEngine e = engine(5, map, NONE, new int[]{7, 12, 12, 7}, 6);
+    MoveResult r = e.move(BoardConstants.MOVE_RIGHT);
+    assertEquals(13, r.getHeroEnd());
+    assertEquals(1, r.getPortalHops());
+    assertTrue(r.isHeroHop(2));
+  }
+
+  @Test
+  public void portalOntoSkullRefusesMove() {
+    int[] map = {
+        X, X, X, X, X,
+        X, F, T, X, X,
+        X, X, F, F, X,
+        X, X, X, X, X};
+    BoardEngine e = engine(5, map, new int[]{12}, new int[]{7, 12}, 6);
+    MoveResult r = e.move(BoardConstants.MOVE_RIGHT);
+    assertFalse(r.isMoved());
+    assertEquals(6, e.getHeroPosition());
+    assertEquals(12, e.getSkullPosition(0));
+    assertFalse(e.canRevert());
+  }
+
+  @Test
+  public void portalCycleStopsHero() {
+    BoardEngine e = engine(5, new int[]{X, S, S, T, X}, NONE, new int[]{3, 1}, 1);
+    MoveResult r = e.move(BoardConstants.MOVE_RIGHT);
+    assertEquals(2, r.getHeroEnd());
+    assertEquals(1, r.getPortalHops());
+  }
+
+  @Test
+  public void revertRestoresHeroAndSkull() {
+    BoardEngine e = engine(6, new int[]{X, F, F, S, D, X}, new int[]{2}, NONE, 1);
+    e.move(BoardConstants.MOVE_RIGHT);
+    MoveResult r = e.revert();
+    assertTrue(r.isPushed());
+    assertEquals(1, e.getHeroPosition());
+    assertEquals(2, e.getSkullPosition(0));
+    assertTrue(e.isSkull(2));
+    assertFalse(e.isSkull(4));
+    assertFalse(e.canRevert());
+  }
+
+  @Test
+  public void skullsOnDestinationFollowPushesAndReverts() {
+    BoardEngine e = engine(7, new int[]{X, F, F, D, F, D, X}, new int[]{2, 5}, NONE, 1);
+    assertEquals(1, e.countSkullsOnDestination());
+    assertTrue(e.move(BoardConstants.MOVE_RIGHT).isCompleted());
+    assertEquals(2, e.countSkullsOnDestination());
+    e.revert();
+    assertEquals(1, e.countSkullsOnDestination());
+  }
+
+  @Test
+  public void hashDependsOnlyOnState() {
+    int[] map = {X, F, F, F, D, X};
+    BoardEngine e = engine(6, map, new int[]{3}, NONE, 1);
+    long start = e.getHash();
+    e.move(BoardConstants.MOVE_RIGHT);
+    assertNotEquals(start, e.getHash());
+    e.move(BoardConstants.MOVE_LEFT);
+    assertEquals(start, e.getHash());
+    e.move(BoardConstants.MOVE_RIGHT);
+    e.revert();
+    assertEquals(start, e.getHash());
+    e.move(BoardConstants.MOVE_RIGHT);
+    assertEquals(engine(6, map, new int[]{3}, NONE, 2).getHash(), e.getHash());
+  }
+
+  @Test
+  public void restoreReturnsToSnapshot() {
+    int[] map = {X, F, F, D, F, D, X};
+    BoardEngine e = engine(7, map, new int[]{2, 5}, NONE, 1);
+    BoardState start = e.snapshot();
+    assertFalse(start.isCompleted(e.getDestinations()));
+    e.move(BoardConstants.MOVE_RIGHT);
+    BoardState end = e.snapshot();
+    assertTrue(end.isCompleted(e.getDestinations()));
+
+    e.restore(start);
+    assertEquals(start, e.snapshot());
+    assertEquals(1, e.countSkullsOnDestination());
+    assertEquals(0, e.getSkullId(2));
+    assertEquals(1, e.getSkullId(5));
+    assertFalse(e.isSkull(3));
+    assertFalse(e.canRevert());
+
+    e.restore(end);
+    assertEquals(end.getHash(), e.getHash());
+    assertTrue(e.isCompleted());
+    assertEquals(1, e.move(BoardConstants.MOVE_LEFT).getHeroEnd());
+  }
+}
@@ -0,0 +1,77 @@
+package com.game.engine;
+
+import static com.game.engine.TestBoards.engine;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Dead squares and freeze deadlocks on small hand made maps.
+ */
+public class DeadlockDetectorTest {
+
+  private static final int X = BoardConstants.BLOCK;
+  private static final int F = BoardConstants.FLOOR;
+  private static final int S = BoardConstants.SLIDE;
+  private static final int D = BoardConstants.DESTY;
+  private static final int T = BoardConstants.TELEP;
+
+  @Test
+  public void cornersAndWallsWithoutDestinationAreDead() {
+    BoardEngine e = engine(5, new int[]{
+        X, X, X, X, X,
+        X, F, F, F, X,
+        X, F, F, D, X,
+        X, X, X, X, X}, new int[0], new int[0], 8);
+    DeadlockDetector detector = new DeadlockDetector(e);
+    assertTrue(detector.isDeadSquare(6));
+    assertTrue(detector.isDeadSquare(7));
+    assertTrue(detector.isDeadSquare(11));
+    assertFalse(detector.isDeadSquare(12));
+    assertFalse(detector.isDeadSquare(13));
+  }
+
+  @Test
+  public void skullSlidesAcrossIceToDestination() {
+    BoardEngine e = engine(6, new int[]{
+        X, X, X, X, X, X,
+        X, F, S, S, D, X,
+        X, F, F, F, F, X,
+        X, X, X, X, X, X}, new int[0], new int[0], 13);
+    DeadlockDetector detector = new DeadlockDetector(e);
+    assertTrue(detector.isDeadSquare(7));
+    assertFalse(detector.isDeadSquare(8));
+    assertFalse(detector.isDeadSquare(9));
+  }
+
+  @Test
+  public void portalRelocatesSkullToDestination() {
+    // Skull on 7 is pushed through portal 8 to 13, then slides onto 14.
+    BoardEngine e = engine(5, new int[]{
+        X, X, X, X, X,
+        X, F, F, T, X,
+        X, X, F, T, D,
+        X, X, X, X, X}, new int[0], new int[]{8, 13, 13, 8}, 6);
+    DeadlockDetector detector = new DeadlockDetector(e);
+    assertFalse(detector.isDeadSquare(7));
+  }
+
+  @Test
+  public void skullsFrozenAgainstWallAreDeadlocked() {
+    int[] map = {
+        X, X, X, X, X, X, X,
+        X, F, F, F, F, F, X,
+        X, F, F, F, F, F, X,
+        X, F, F, D, F, F, X,
+        X, X, X, X, X, X, X};
+    BoardEngine single = engine(7, map, new int[]{23}, new int[0], 8);
+    assertFalse(new DeadlockDetector(single).isDeadlocked(23));
+
+    BoardEngine pair = engine(7, map, new int[]{23, 24}, new int[0], 8);
+    DeadlockDetector detector = new DeadlockDetector(pair);
+    assertTrue(detector.isDeadlocked(23));
+    assertTrue(detector.isDeadlocked(24));
+    assertTrue(detector.hasDeadlock());
+  }
+}
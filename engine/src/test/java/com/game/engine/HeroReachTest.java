@@ -0,0 +1,73 @@
+package com.game.engine;
+
+import static com.game.engine.TestBoards.engine;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Hero reach on directed maps and its incremental updates.
+ */
+public class HeroReachTest {
+
+  private static final int X = BoardConstants.BLOCK;
+  private static final int F = BoardConstants.FLOOR;
+  private static final int S = BoardConstants.SLIDE;
+  private static final int D = BoardConstants.DESTY;
+  private static final int T = BoardConstants.TELEP;
+
+  @Test
+  public void oneWayPortalSplitsRegions() {
+    // Portal 9 leads to 16, nothing leads back.
+    BoardEngine e = engine(7, new int[]{
+        X, X, X, X, X, X, X,
+        X, F, T, X, X, X, X,
+        X, X, F, F, D, X, X,
+        X, X, X, X, X, X, X}, new int[]{18}, new int[]{9, 16}, 8);
+    HeroReach reach = new HeroReach(e);
+    assertTrue(reach.isReachable(16));
+    assertTrue(reach.isReachable(17));
+    assertEquals(8, reach.getCanonicalHero());
+
+    e.placeHero(17);
+    assertFalse(reach.isReachable(8));
+    assertEquals(16, reach.getCanonicalHero());
+    BoardState state = reach.canonicalSnapshot();
+    assertEquals(16, state.getHeroPosition());
+    e.placeHero(16);
+    assertEquals(e.getHash(), state.getHash());
+  }
+
+  @Test
+  public void updatesMatchFreshReach() {
+    BoardEngine e = engine(8, new int[]{
+        X, X, X, X, X, X, X, X,
+        X, D, T, F, F, F, X, X,
+        X, F, X, F, S, S, F, X,
+        X, F, F, X, X, X, F, X,
+        X, D, F, F, T, F, F, X,
+        X, X, X, X, X, X, X, X}, new int[]{17, 35}, new int[]{10, 36, 36, 10}, 19);
+    HeroReach reach = new HeroReach(e);
+    long initial = reach.getEvaluations();
+    Random random = new Random(7);
+    int pushes = 0;
+    for (int i = 0; i < 300; i++) {
+      if (random.nextInt(3) == 0 && e.canRevert()) {
+        e.revert();
+      } else if (e.move(random.nextInt(BoardConstants.NUMBER_OF_MOVES)).isPushed()) {
+        pushes++;
+      }
+      HeroReach fresh = new HeroReach(e);
+      for (int cell = 0; cell < 48; cell++) {
+        assertEquals(fresh.isReachable(cell), reach.isReachable(cell));
+      }
+      assertEquals(fresh.getCanonicalHero(), reach.getCanonicalHero());
+    }
+    assertTrue(pushes > 10);
+    // Far fewer evaluations than rebuilding after each move.
+    assertTrue(reach.getEvaluations() - initial < 300 * initial / 4);
+  }
+}
@@ -0,0 +1,83 @@
+package com.game.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Level cache eviction and prefetch.
+ */
+public class LevelCacheTest {
+
+  private static Level level(int number) {
+    return new Level("level" + number, 1, 1, 0, 0, new int[2], new int[0], new int[]{-1, -1});
+  }
+
+  @Test
+  public void keepsRecentlyUsedLevels() {
+    AtomicInteger loads = new AtomicInteger();
+    LevelCache cache = new LevelCache(2, number -> {
+      loads.incrementAndGet();
+      return level(number);
+    });
+    Level first = cache.get(1);
+    cache.get(2);
+    assertSame(first, cache.get(1));
+    cache.get(3);
+    assertTrue(cache.contains(1));
+    assertFalse(cache.contains(2));
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  public void missingLevelIsNotCached() {
+    AtomicInteger loads = new AtomicInteger();
+    LevelCache cache = new LevelCache(2, number -> {
+      loads.incrementAndGet();
+      return null;
+    });
+    assertNull(cache.get(7));
+    assertNull(cache.get(7));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void getWaitsForPrefetch() throws InterruptedException {
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    LevelCache cache = new LevelCache(2, number -> {
+      loads.incrementAndGet();
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return level(number);
+    });
+    cache.prefetch(5);
+    started.await();
+    cache.prefetch(5);
+    release.countDown();
+    Level level = cache.get(5);
+    assertEquals("level5", level.getName());
+    assertSame(level, cache.get(5));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void cachedLevelCannotBeChanged() {
+    LevelCache cache = new LevelCache(2, LevelCacheTest::level);
+    cache.get(1).getGameBoard()[0] = BoardConstants.BLOCK;
+    cache.get(1).getPortalTargets()[0] = 1;
+    assertEquals(0, cache.get(1).getGameBoard()[0]);
+    assertEquals(-1, cache.get(1).getPortalTargets()[0]);
+  }
+}
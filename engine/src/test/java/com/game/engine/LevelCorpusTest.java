@@ -0,0 +1,202 @@
+package com.game.engine;
+
+import static org.junit.Assert.assertTrue;
+
+import com.game.engine.solver.Solution;
+import com.game.engine.solver.Solver;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Every level data file of the game, checked in parallel. All problems are
+ * reported at once, one line per problem.
+ */
+public class LevelCorpusTest {
+
+  /**
+   * Search node limit of the solvability check, levels needing more are not
+   * reported.
+   */
+  private static final int MAX_NODES = 300000;
+
+  private static List<Entry> entries;
+
+  /**
+   * Level file with its text and parsed level, null if parsing failed.
+   */
+  private static final class Entry {
+    private final String name;
+    private final List<String> lines;
+    private Level level;
+    private final List<String> problems = new ArrayList<>();
+
+    private Entry(File file) throws IOException {
+      name = file.getName();
+      lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    }
+  }
+
+  @BeforeClass
+  public static void readLevels() {
+    File directory = new File("app/src/main/levels");
+    File[] files = directory.listFiles(File::isFile);
+    assertTrue("No level files in " + directory, files != null && files.length > 0);
+    Arrays.sort(files);
+    entries = Arrays.stream(files).parallel().map(file -> {
+      try {
+        Entry entry = new Entry(file);
+        try {
+          entry.level = new LevelReader().parse(entry.name, entry.name,
+              new StringReader(String.join("\n", entry.lines)));
+        } catch (LevelFormatException e) {
+          entry.problems.add(e.getMessage());
+        }
+        return entry;
+      } catch (IOException e) {
+        throw new IllegalStateException(file.toString(), e);
+      }
+    }).collect(Collectors.toList());
+  }
+
+  @Test
+  public void levelsAreWellFormed() {
+    report(entries.parallelStream().flatMap(entry -> {
+      if (entry.level != null) {
+        checkMapText(entry);
+        checkPieces(entry);
+        checkPortals(entry);
+      }
+      return entry.problems.stream();
+    }).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void levelsAreSolvable() {
+    report(entries.parallelStream().filter(entry -> entry.level != null).map(entry -> {
+      Level level = entry.level;
+      Solver solver = new Solver(level, MAX_NODES);
+      if (PullPerimeter.supports(level)) {
+        solver.setPerimeter(new PullPerimeter(level, PullPerimeter.DEFAULT_MAX_STATES));
+      }
+      Solution solution = solver.solve();
+      if (solution == null) {
+        return solver.isLimitReached() ? null : entry.name + ": cannot be solved";
+      }
+      if (solution.getPushes() > level.getMinimumPushes()) {
+        return entry.name + ": pushes " + level.getMinimumPushes() + " below optimum "
+            + solution.getPushes();
+      }
+      return null;
+    }).filter(problem -> problem != null).collect(Collectors.toList()));
+  }
+
+  /**
+   * Map has rows lines of columns tiles and nothing follows it. The parser
+   * pads short lines and skips text it does not know, which hides mistakes.
+   */
+  private static void checkMapText(Entry entry) {
+    Level level = entry.level;
+    int start = 0;
+    while (!entry.lines.get(start).trim().startsWith("map")) {
+      start++;
+    }
+    for (int row = 0; row < level.getNumberOfRows(); row++) {
+      String line = entry.lines.get(start + 1 + row).trim();
+      if (line.length() != level.getNumberOfColumns()) {
+        entry.problems.add(entry.name + ": map row " + row + " has " + line.length() + " of "
+            + level.getNumberOfColumns() + " columns");
+      }
+    }
+    for (int i = start + 1 + level.getNumberOfRows(); i < entry.lines.size(); i++) {
+      if (!entry.lines.get(i).trim().isEmpty()) {
+        entry.problems.add(entry.name + ": text after map at line " + (i + 1));
+      }
+    }
+  }
+
+  /**
+   * Hero and skulls stand on walkable tiles, skulls on different cells, at
+   * least as many destinations as skulls.
+   */
+  private static void checkPieces(Entry entry) {
+    Level level = entry.level;
+    int[] board = level.getGameBoard();
+    if (!isWalkable(board[level.getHeroPosition()])) {
+      entry.problems.add(entry.name + ": hero on a wall at " + level.getHeroPosition());
+    }
+    boolean[] taken = new boolean[board.length];
+    for (int skull : level.getSkulls()) {
+      if (!isWalkable(board[skull])) {
+        entry.problems.add(entry.name + ": skull on a wall at " + skull);
+      }
+      if (taken[skull]) {
+        entry.problems.add(entry.name + ": two skulls at " + skull);
+      }
+      taken[skull] = true;
+    }
+    if (taken[level.getHeroPosition()]) {
+      entry.problems.add(entry.name + ": hero on a skull at " + level.getHeroPosition());
+    }
+    int destinations = 0;
+    for (int tile : board) {
+      if (tile == BoardConstants.DESTY) {
+        destinations++;
+      }
+    }
+    if (destinations < level.getNumberOfSkulls()) {
+      entry.problems.add(entry.name + ": " + destinations + " destinations for "
+          + level.getNumberOfSkulls() + " skulls");
+    }
+  }
+
+  /**
+   * Every portal starts on a portal tile and leads to a walkable tile, every
+   * portal tile has a destination and no portal was dropped for being off the
+   * board.
+   */
+  private static void checkPortals(Entry entry) {
+    Level level = entry.level;
+    int[] board = level.getGameBoard();
+    int[] portals = level.getPortalTargets();
+    int count = 0;
+    for (int cell = 0; cell + 1 < board.length; cell++) {
+      if (portals[cell] != -1) {
+        count++;
+        if (board[cell] != BoardConstants.TELEP) {
+          entry.problems.add(entry.name + ": portal " + cell + " is not on a portal tile");
+        }
+        if (!isWalkable(board[portals[cell]])) {
+          entry.problems.add(entry.name + ": portal " + cell + " leads to a wall");
+        }
+      } else if (board[cell] == BoardConstants.TELEP) {
+        entry.problems.add(entry.name + ": portal tile " + cell + " has no destination");
+      }
+    }
+    int declared = 0;
+    for (String line : entry.lines) {
+      if (line.startsWith("teleports")) {
+        declared = line.length() - line.replace("-", "").length();
+      }
+    }
+    if (declared != count) {
+      entry.problems.add(entry.name + ": " + (declared - count) + " portals off the board");
+    }
+  }
+
+  private static boolean isWalkable(int tile) {
+    return tile != BoardConstants.BLOCK && tile != BoardConstants.EMPTY;
+  }
+
+  private static void report(List<String> problems) {
+    assertTrue(problems.size() + " problems:\n" + String.join("\n", problems), problems.isEmpty());
+  }
+}
@@ -0,0 +1,72 @@
+package com.game.engine;
+
+import static com.game.engine.TestBoards.level;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * Level pack round trip and corrupted packs.
+ */
+public class LevelPackTest {
+
+  private static byte[] pack(Level... levels) throws IOException {
+    int[] numbers = new int[levels.length];
+    long[] hashes = new long[levels.length];
+    for (int i = 0; i < levels.length; i++) {
+      numbers[i] = i + 1;
+      hashes[i] = 100 + i;
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    LevelPack.write(out, numbers, hashes, Arrays.asList(levels));
+    return out.toByteArray();
+  }
+
+  @Test
+  public void decodesEveryTile() throws IOException {
+    Level first = level("columns: 8\nrows: 6\npushes: 4\nposition: 19\nskulls: 17, 36\nmap:\n"
+        + "XXXXXXXE\nXDX***XX\nX*X*X**X\nX**XXX*X\nXD*****X\nXXXXXXXX\n");
+    Level second = level("columns: 7\nrows: 4\npushes: 1\nposition: 8\nskulls: 17\n"
+        + "teleports: 9-16, 16-9\nmap:\nXXXXXXX\nX*TXXXX\nXXT*SDX\nXXXXXXX\n");
+    LevelPack pack = new LevelPack(pack(first, second));
+    assertEquals(2, pack.size());
+    assertFalse(pack.contains(3));
+    assertEquals(101, pack.getHash(2));
+    for (int i = 0; i < 2; i++) {
+      Level expected = i == 0 ? first : second;
+      Level level = pack.getLevel(i + 1, "level" + (i + 1));
+      assertEquals("level" + (i + 1), level.getName());
+      assertEquals(expected.getNumberOfColumns(), level.getNumberOfColumns());
+      assertEquals(expected.getNumberOfRows(), level.getNumberOfRows());
+      assertEquals(expected.getMinimumPushes(), level.getMinimumPushes());
+      assertEquals(expected.getHeroPosition(), level.getHeroPosition());
+      assertArrayEquals(expected.getGameBoard(), level.getGameBoard());
+      assertArrayEquals(expected.getSkulls(), level.getSkulls());
+      assertArrayEquals(expected.getPortalTargets(), level.getPortalTargets());
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsOtherFiles() throws IOException {
+    new LevelPack("columns: 8\n".getBytes("UTF-8"));
+  }
+
+  @Test
+  public void rejectsTruncatedLevel() throws IOException {
+    byte[] data = pack(level("columns: 5\nrows: 3\nposition: 6\nskulls: 7\nmap:\nXXXXX\nX**DX\nXXXXX\n"));
+    LevelPack pack = new LevelPack(Arrays.copyOf(data, data.length - 2));
+    try {
+      pack.getLevel(1, "level1");
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("level 1"));
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.game.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+/**
+ * Level data file parsing.
+ */
+public class LevelReaderTest {
+
+  private static Level read(String text) throws IOException {
+    return LevelReader.read("test", new BufferedReader(new StringReader(text)));
+  }
+
+  @Test
+  public void readsAllSections() throws IOException {
+    Level level = read("columns: 4\nrows: 3\npushes: 2\nposition: 5\nskulls: 6\n"
+        + "teleports: 1-10, 10-1, 40-1\nmap:\nXTXX\nX**D\nXSTE\n");
+    assertEquals(4, level.getNumberOfColumns());
+    assertEquals(3, level.getNumberOfRows());
+    assertEquals(2, level.getMinimumPushes());
+    assertEquals(5, level.getHeroPosition());
+    assertArrayEquals(new int[]{6}, level.getSkulls());
+    assertEquals(13, level.getGameBoard().length);
+    assertEquals(BoardConstants.DESTY, level.getGameBoard()[7]);
+    assertEquals(BoardConstants.EMPTY, level.getGameBoard()[11]);
+    assertEquals(10, level.getPortalTargets()[1]);
+    assertEquals(1, level.getPortalTargets()[10]);
+    assertEquals(-1, level.getPortalTargets()[2]);
+  }
+
+  @Test
+  public void levelWithoutPortalsHasEmptyTable() throws IOException {
+    Level level = read("columns: 3\nrows: 1\nposition: 1\nskulls: 2\nmap:\nX*D\n");
+    assertArrayEquals(new int[]{-1, -1, -1, -1}, level.getPortalTargets());
+    assertEquals(1, level.newEngine().countSkullsOnDestination());
+  }
+
+  @Test
+  public void readsWindowsLineEndingsAndShortLines() throws IOException {
+    Level level = read("columns: 3\r\nrows: 2\r\nposition: 1\r\nskulls: 2\r\nmap:\r\nX*D\r\nX\r\n");
+    assertArrayEquals(new int[]{BoardConstants.BLOCK, BoardConstants.FLOOR, BoardConstants.DESTY,
+        BoardConstants.BLOCK, BoardConstants.EMPTY, BoardConstants.EMPTY, 0}, level.getGameBoard());
+  }
+
+  @Test
+  public void reusedReaderKeepsLevelsApart() throws IOException {
+    LevelReader reader = new LevelReader();
+    Level first = reader.parse("a", "a", new StringReader("columns: 3\nrows: 1\nposition: 0\nskulls: 1, 2\nmap:\n**D"));
+    Level second = reader.parse("b", "b", new StringReader("columns: 2\nrows: 1\nposition: 0\nskulls:\nmap:\nD*\n"));
+    assertArrayEquals(new int[]{1, 2}, first.getSkulls());
+    assertArrayEquals(new int[0], second.getSkulls());
+    assertEquals(BoardConstants.DESTY, first.getGameBoard()[2]);
+  }
+
+  @Test
+  public void reportsLineAndColumnOfErrors() {
+    assertError("columns: 4\nrows: 1x\nmap:\n****\n", 2, 8);
+    assertError("columns: 4\nrows: 1\nskulls: 1,, 2\nmap:\n****\n", 3, 11);
+    assertError("columns: 4\nrows: 2\nmap:\n****\n**?*\n", 5, 3);
+    assertError("columns: 4\nrows: 2\nmap:\n****\n", 5, 1);
+    assertError("columns: 4\nrows: 1\nposition: 0\nskulls: 2, 7\nmap:\n****\n", 4, 12);
+    assertError("columns: 4\nrows: 1\nmap:\n****\n", 5, 1);
+    assertError("columns: 4\nrows: 1\nposition: 0\nmap:\nX***\n", 3, 11);
+    assertError("columns: 4\nrows: 1\nposition: 1\nskulls: 1\nmap:\n****\n", 3, 11);
+    assertError("columns 4\n", 1, 9);
+  }
+
+  private static void assertError(String text, int line, int column) {
+    try {
+      new LevelReader().parse("broken", "broken", new StringReader(text));
+      fail("Parsed " + text);
+    } catch (LevelFormatException e) {
+      assertEquals(e.getMessage(), line, e.getLine());
+      assertEquals(e.getMessage(), column, e.getColumn());
+      assertEquals("broken", e.getFile());
+    } catch (IOException e) {
+      fail(e.toString());
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.game.engine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Journal packing, serialization and replay.
+ */
+public class MoveJournalTest {
+
+  private static final int X = BoardConstants.BLOCK;
+  private static final int F = BoardConstants.FLOOR;
+  private static final int D = BoardConstants.DESTY;
+
+  private static BoardEngine engine() {
+    int[] map = {
+        X, X, X, X, X,
+        X, F, F, F, X,
+        X, F, F, D, X,
+        X, X, X, X, X};
+    return TestBoards.engine(5, map, new int[]{12}, new int[0], 11);
+  }
+
+  @Test
+  public void movesArePackedAndPopped() {
+    MoveJournal journal = new MoveJournal(false);
+    for (int i = 0; i < 10; i++) {
+      journal.record(i % BoardConstants.NUMBER_OF_MOVES);
+    }
+    journal.pop();
+    journal.record(BoardConstants.MOVE_LEFT);
+    assertEquals(10, journal.size());
+    assertEquals(BoardConstants.MOVE_DOWN, journal.getMove(6));
+    assertEquals(BoardConstants.MOVE_LEFT, journal.getMove(9));
+  }
+
+  @Test
+  public void timedJournalSurvivesSerialization() {
+    MoveJournal journal = new MoveJournal(true);
+    journal.record(BoardConstants.MOVE_UP, 1000);
+    journal.record(BoardConstants.MOVE_RIGHT, 1100);
+    journal.record(BoardConstants.MOVE_DOWN, 1100 + 300000);
+    journal.pop();
+    journal.record(BoardConstants.MOVE_LEFT, 301200);
+
+    MoveJournal copy = MoveJournal.fromByteArray(journal.toByteArray());
+    assertEquals(3, copy.size());
+    assertEquals(BoardConstants.MOVE_LEFT, copy.getMove(2));
+    assertArrayEquals(new long[]{0, 100, 300100}, copy.getDeltas());
+    copy.pop();
+    copy.pop();
+    copy.pop();
+    assertEquals(0, copy.getDeltas().length);
+  }
+
+  @Test
+  public void replayReproducesFinalState() {
+    BoardEngine played = engine();
+    MoveJournal journal = new MoveJournal(false);
+    int[] swipes = {BoardConstants.MOVE_RIGHT, BoardConstants.MOVE_LEFT, BoardConstants.MOVE_UP,
+        BoardConstants.MOVE_RIGHT, BoardConstants.MOVE_DOWN};
+    for (int move : swipes) {
+      if (played.move(move).isMoved()) {
+        journal.record(move);
+      }
+    }
+    played.revert();
+    journal.pop();
+    journal.setHash(played.getHash());
+
+    BoardEngine replayed = engine();
+    assertEquals(-1, MoveJournal.fromByteArray(journal.toByteArray()).replay(replayed));
+    assertEquals(played.getHash(), replayed.getHash());
+  }
+
+  @Test
+  public void replayChecksRecordedHash() {
+    MoveJournal journal = new MoveJournal(true);
+    journal.record(BoardConstants.MOVE_RIGHT, 1000);
+    journal.setHash(12345L);
+    MoveJournal copy = MoveJournal.fromByteArray(journal.toByteArray());
+    assertTrue(copy.isHashed());
+    assertEquals(1, copy.replay(engine()));
+
+    journal.record(BoardConstants.MOVE_LEFT, 2000);
+    assertFalse(journal.isHashed());
+    assertEquals(-1, MoveJournal.fromByteArray(journal.toByteArray()).replay(engine()));
+  }
+}
@@ -0,0 +1,43 @@
+package com.game.engine;
+
+import static com.game.engine.TestBoards.level;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import org.junit.Test;
+
+/**
+ * Reverse search from the goal.
+ */
+public class PullPerimeterTest {
+
+  // Level 1 of the game, solved with 4 pushes.
+  private static final String LEVEL = "columns: 8\nrows: 6\nposition: 19\nskulls: 17, 36\nmap:\n"
+      + "XXXXXXXE\nXDX***XX\nX*X*X**X\nX**XXX*X\nXD*****X\nXXXXXXXX\n";
+
+  @Test
+  public void onlyLevelsWithoutIceAndPortalsAreSupported() throws IOException {
+    assertTrue(PullPerimeter.supports(level(LEVEL)));
+    assertFalse(PullPerimeter.supports(level("columns: 7\nrows: 4\nposition: 8\nskulls: 17\nmap:\n"
+        + "XXXXXXX\nX**XXXX\nXX**SDX\nXXXXXXX\n")));
+  }
+
+  @Test
+  public void distancesAreExactNearGoal() throws IOException {
+    Level level = level(LEVEL);
+    BoardEngine engine = level.newEngine();
+    PullPerimeter full = new PullPerimeter(level, 100000);
+    assertEquals(4, full.getDistance(engine.snapshot()));
+    // Hero position inside its area does not matter.
+    engine.move(BoardConstants.MOVE_UP);
+    assertEquals(4, full.getDistance(engine.snapshot()));
+
+    PullPerimeter small = new PullPerimeter(level, 1);
+    assertEquals(0, small.getDepth());
+    assertEquals(-1, small.getDistance(engine.snapshot()));
+    assertEquals(1, small.bound(engine.snapshot(), 0));
+    assertEquals(3, small.bound(engine.snapshot(), 3));
+  }
+}
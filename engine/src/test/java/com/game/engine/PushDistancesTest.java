@@ -0,0 +1,62 @@
+package com.game.engine;
+
+import static com.game.engine.TestBoards.engine;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Push distance tables and assignment bound on small hand made maps.
+ */
+public class PushDistancesTest {
+
+  private static final int X = BoardConstants.BLOCK;
+  private static final int F = BoardConstants.FLOOR;
+  private static final int S = BoardConstants.SLIDE;
+  private static final int D = BoardConstants.DESTY;
+  private static final int[] NONE = new int[0];
+
+  @Test
+  public void iceSlideCountsAsOnePush() {
+    BoardEngine e = engine(7, new int[]{
+        X, X, X, X, X, X, X,
+        X, F, F, S, S, D, X,
+        X, F, F, F, F, F, X,
+        X, X, X, X, X, X, X}, new int[]{9}, NONE, 15);
+    PushDistances distances = new PushDistances(e);
+    assertEquals(1, distances.getDestinationCount());
+    assertEquals(1, distances.getDistance(0, 9));
+    // Hero can never stand below the bottom row to push skulls up.
+    assertEquals(PushDistances.UNREACHABLE, distances.getDistance(0, 16));
+    assertEquals(0, distances.getDistance(0, 12));
+    assertEquals(PushDistances.UNREACHABLE, distances.getDistance(0, 8));
+    assertEquals(1, distances.estimate(e.snapshot()));
+  }
+
+  @Test
+  public void skullsAreAssignedToDistinctDestinations() {
+    // Both skulls are closest to 8, the bound sends one of them to 12.
+    BoardEngine e = engine(7, new int[]{
+        X, X, X, X, X, X, X,
+        X, D, F, F, F, D, X,
+        X, F, F, F, F, F, X,
+        X, X, X, X, X, X, X}, new int[]{9, 10}, NONE, 15);
+    PushDistances distances = new PushDistances(e);
+    assertEquals(1, distances.getDistance(0, 9));
+    assertEquals(2, distances.getDistance(0, 10));
+    assertEquals(2, distances.getDistance(1, 10));
+    assertEquals(3, distances.estimate(e.snapshot()));
+  }
+
+  @Test
+  public void lonelyDestinationMakesStateInfeasible() {
+    // Both skulls can only reach destination 9.
+    BoardEngine e = engine(5, new int[]{
+        X, X, X, X, X,
+        X, D, F, F, X,
+        X, X, X, F, X,
+        X, D, X, X, X,
+        X, X, X, X, X}, new int[]{7, 8}, NONE, 13);
+    assertEquals(PushDistances.INFEASIBLE, new PushDistances(e).estimate(e.snapshot()));
+  }
+}
@@ -0,0 +1,71 @@
+package com.game.engine.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.game.engine.BoardConstants;
+import com.game.engine.BoardEngine;
+import com.game.engine.Level;
+import com.game.engine.TestBoards;
+import java.io.IOException;
+import org.junit.Test;
+
+/**
+ * Background hint search.
+ */
+public class HintEngineTest {
+
+  private static Level level() throws IOException {
+    return TestBoards.level("columns: 8\nrows: 6\nposition: 19\nskulls: 17, 36\nmap:\n"
+        + "XXXXXXXE\nXDX***XX\nX*X*X**X\nX**XXX*X\nXD*****X\nXXXXXXXX\n");
+  }
+
+  private static void await(HintEngine hints) throws InterruptedException {
+    for (int i = 0; i < 500 && hints.isBusy(); i++) {
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  public void hintStartsOptimalSolutionFromCurrentState() throws Exception {
+    Level level = level();
+    BoardEngine engine = level.newEngine();
+    engine.move(BoardConstants.MOVE_UP);
+    HintEngine hints = new HintEngine();
+    hints.request(level, engine.snapshot(), 1000);
+    await(hints);
+    int move = hints.poll();
+    assertEquals(new Solver(level, engine.snapshot(), Solver.DEFAULT_MAX_NODES).solve().getMoves()[0], move);
+    assertEquals(BoardConstants.NO_MOVE, hints.poll());
+    hints.shutdown();
+  }
+
+  @Test
+  public void nextRequestReusesTable() throws Exception {
+    Level level = level();
+    BoardEngine engine = level.newEngine();
+    HintEngine hints = new HintEngine();
+    hints.request(level, engine.snapshot(), 1000);
+    await(hints);
+    int first = hints.poll();
+    assertTrue(engine.move(first).isMoved());
+    hints.request(level, engine.snapshot(), 1000);
+    await(hints);
+    assertEquals(new Solver(level, engine.snapshot(), Solver.DEFAULT_MAX_NODES).solve().getMoves()[0],
+        hints.poll());
+    hints.shutdown();
+  }
+
+  @Test
+  public void cancelledHintIsDropped() throws Exception {
+    Level level = level();
+    HintEngine hints = new HintEngine();
+    hints.request(level, level.newEngine().snapshot(), 1000);
+    hints.cancel();
+    assertFalse(hints.isBusy());
+    Thread.sleep(50);
+    assertEquals(BoardConstants.NO_MOVE, hints.poll());
+    hints.shutdown();
+  }
+}
@@ -0,0 +1,70 @@
+package com.game.engine.solver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.game.engine.BoardConstants;
+import com.game.engine.BoardEngine;
+import com.game.engine.Level;
+import com.game.engine.LevelReader;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+/**
+ * Solution pack round trip and hints from it.
+ */
+public class SolutionPackTest {
+
+  private static final String LEVEL = "columns: 8\nrows: 6\nposition: 19\nskulls: 17, 36\nmap:\n"
+      + "XXXXXXXE\nXDX***XX\nX*X*X**X\nX**XXX*X\nXD*****X\nXXXXXXXX\n";
+
+  private static byte[] pack(int level, long hash, Solution solution) throws IOException {
+    SolutionPack pack = new SolutionPack();
+    pack.add(level + 1, 1L, new Solution(new int[]{BoardConstants.MOVE_UP}, 1, 0));
+    pack.add(level, hash, solution);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    pack.writeTo(out);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void readsSolutionOfLevel() throws IOException {
+    Level level = LevelReader.read("test", new BufferedReader(new StringReader(LEVEL)));
+    Solution solution = new Solver(level).solve();
+    long hash = SolutionPack.fingerprint(LEVEL.getBytes("UTF-8"));
+    byte[] data = pack(1, hash, solution);
+
+    Solution read = SolutionPack.load(new ByteArrayInputStream(data), 1, hash);
+    assertArrayEquals(solution.getMoves(), read.getMoves());
+    assertEquals(solution.getPushes(), read.getPushes());
+    assertNull(SolutionPack.load(new ByteArrayInputStream(data), 3, hash));
+  }
+
+  @Test
+  public void ignoresStaleSolution() throws IOException {
+    Level level = LevelReader.read("test", new BufferedReader(new StringReader(LEVEL)));
+    byte[] data = pack(1, SolutionPack.fingerprint(LEVEL.getBytes("UTF-8")), new Solver(level).solve());
+    long edited = SolutionPack.fingerprint((LEVEL + "\n").getBytes("UTF-8"));
+    assertNull(SolutionPack.load(new ByteArrayInputStream(data), 1, edited));
+  }
+
+  @Test
+  public void hintsNextMoveOnSolutionOnly() throws IOException {
+    Level level = LevelReader.read("test", new BufferedReader(new StringReader(LEVEL)));
+    Solution solution = new Solver(level).solve();
+    BoardEngine engine = level.newEngine();
+    assertEquals(solution.getMoves()[0], SolutionPack.nextMove(level, solution, engine.snapshot()));
+    engine.move(solution.getMoves()[0]);
+    assertEquals(solution.getMoves()[1], SolutionPack.nextMove(level, solution, engine.snapshot()));
+    for (int i = 1; i < solution.getMoves().length; i++) {
+      engine.move(solution.getMoves()[i]);
+    }
+    // Completed level has no next swipe.
+    assertEquals(BoardConstants.NO_MOVE, SolutionPack.nextMove(level, solution, engine.snapshot()));
+  }
+}
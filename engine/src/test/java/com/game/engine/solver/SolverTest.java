@@ -0,0 +1,54 @@
+package com.game.engine.solver;
+
+import static com.game.engine.TestBoards.level;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.game.engine.BoardEngine;
+import com.game.engine.Level;
+import java.io.IOException;
+import org.junit.Test;
+
+/**
+ * Solver on small hand made levels.
+ */
+public class SolverTest {
+
+  private static void assertSolves(Level level, Solution solution) {
+    BoardEngine engine = level.newEngine();
+    for (int move : solution.getMoves()) {
+      assertTrue(engine.move(move).isMoved());
+    }
+    assertTrue(engine.isCompleted());
+  }
+
+  @Test
+  public void findsMinimalPushes() throws IOException {
+    // Level 1 of the game.
+    Level level = level("columns: 8\nrows: 6\nposition: 19\nskulls: 17, 36\nmap:\n"
+        + "XXXXXXXE\nXDX***XX\nX*X*X**X\nX**XXX*X\nXD*****X\nXXXXXXXX\n");
+    Solution solution = new Solver(level).solve();
+    assertEquals(4, solution.getPushes());
+    assertSolves(level, solution);
+  }
+
+  @Test
+  public void usesIceAndPortals() throws IOException {
+    // Hero reaches the skull only through the portal, skull slides on ice.
+    Level level = level("columns: 7\nrows: 4\nposition: 8\nskulls: 17\nteleports: 9-16, 16-9\nmap:\n"
+        + "XXXXXXX\nX*TXXXX\nXXT*SDX\nXXXXXXX\n");
+    Solution solution = new Solver(level).solve();
+    assertEquals(1, solution.getPushes());
+    assertSolves(level, solution);
+  }
+
+  @Test
+  public void reportsUnsolvableLevel() throws IOException {
+    Level level = level("columns: 5\nrows: 3\nposition: 6\nskulls: 7\nmap:\nXXXXX\nX**XX\nXXXDX\n");
+    Solver solver = new Solver(level);
+    assertNull(solver.solve());
+    assertFalse(solver.isLimitReached());
+  }
+}
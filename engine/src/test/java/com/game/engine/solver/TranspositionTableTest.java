@@ -0,0 +1,70 @@
+package com.game.engine.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Fixed size state hash table.
+ */
+public class TranspositionTableTest {
+
+  private static final long BYTES = 64 * TranspositionTable.ENTRY_BYTES;
+
+  @Test
+  public void storesAndUpdatesValues() {
+    for (boolean offHeap : new boolean[] {false, true}) {
+      TranspositionTable table = new TranspositionTable(BYTES, TranspositionTable.Replacement.DEPTH_PREFERRED,
+          offHeap);
+      assertEquals(64, table.capacity());
+      assertEquals(TranspositionTable.MISSING, table.get(42L));
+      assertTrue(table.put(42L, 7, 3));
+      assertTrue(table.put(0L, 8, 1));
+      assertTrue(table.put(42L, 9, 2));
+      assertEquals(9, table.get(42L));
+      assertEquals(2, table.getDepth(42L));
+      assertEquals(8, table.get(0L));
+      assertEquals(2, table.size());
+      table.clear();
+      assertEquals(TranspositionTable.MISSING, table.get(42L));
+    }
+  }
+
+  @Test
+  public void capacityFitsIndexing() {
+    assertEquals(4, TranspositionTable.capacityFor(0, false));
+    assertEquals(64, TranspositionTable.capacityFor(BYTES + TranspositionTable.ENTRY_BYTES, true));
+    assertEquals(1 << 30, TranspositionTable.capacityFor(Long.MAX_VALUE, false));
+    assertEquals(1 << 26, TranspositionTable.capacityFor(4L << 30, true));
+    assertEquals(1 << 26, TranspositionTable.capacityFor(Long.MAX_VALUE, true));
+  }
+
+  @Test
+  public void depthPreferredKeepsDeeperEntries() {
+    TranspositionTable table = new TranspositionTable(BYTES, TranspositionTable.Replacement.DEPTH_PREFERRED, false);
+    // Same slot for all keys: low and high halves cancel out to 0.
+    for (long i = 1; i <= 4; i++) {
+      assertTrue(table.put(i << 32 | i, (int) i, 10));
+    }
+    assertFalse(table.put(5L << 32 | 5, 5, 9));
+    assertEquals(TranspositionTable.MISSING, table.get(5L << 32 | 5));
+    assertTrue(table.put(6L << 32 | 6, 6, 11));
+    assertEquals(6, table.get(6L << 32 | 6));
+    assertEquals(4, table.size());
+  }
+
+  @Test
+  public void agingReplacesOldGenerationFirst() {
+    TranspositionTable table = new TranspositionTable(BYTES, TranspositionTable.Replacement.AGING, false);
+    table.put(1L << 32 | 1, 1, 50);
+    table.newGeneration();
+    for (long i = 2; i <= 4; i++) {
+      table.put(i << 32 | i, (int) i, 1);
+    }
+    assertTrue(table.put(5L << 32 | 5, 5, 0));
+    assertEquals(TranspositionTable.MISSING, table.get(1L << 32 | 1));
+    assertEquals(2, table.get(2L << 32 | 2));
+  }
+}
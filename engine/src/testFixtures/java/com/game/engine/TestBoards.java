@@ -0,0 +1,45 @@
+package com.game.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+/**
+ * Hand made boards and levels of engine and solver tests.
+ */
+public final class TestBoards {
+
+  private TestBoards() {
+  }
+
+  /**
+   * Engine of a hand made map.
+   *
+   * @param columns Board width.
+   * @param map Tiles, row by row.
+   * @param skulls Skull cells.
+   * @param portals Pairs of portal cell and its destination.
+   * @param hero Hero cell.
+   * @return Engine of the map.
+   */
+  public static BoardEngine engine(int columns, int[] map, int[] skulls, int[] portals, int hero) {
+    int[] targets = new int[map.length];
+    Arrays.fill(targets, -1);
+    for (int i = 0; i < portals.length; i += 2) {
+      targets[portals[i]] = portals[i + 1];
+    }
+    return new BoardEngine(columns, map.length / columns, map, skulls, targets, hero);
+  }
+
+  /**
+   * Level of a text in level file format.
+   *
+   * @param text Level file contents.
+   * @return Parsed level.
+   * @throws IOException When the text is not a valid level.
+   */
+  public static Level level(String text) throws IOException {
+    return LevelReader.read("test", new BufferedReader(new StringReader(text)));
+  }
+}
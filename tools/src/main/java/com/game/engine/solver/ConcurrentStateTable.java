@@ -0,0 +1,113 @@
+package com.game.engine.solver;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free set of visited states shared by search threads. Keeps the lowest
+ * number of pushes each state hash was reached with. Slots are claimed with
+ * compare-and-set and never removed. When probing finds no free slot the state
+ * is not recorded, which only costs duplicate work.
+ *
+ * @author niewinskip
+ */
+final class ConcurrentStateTable {
+
+  /**
+   * Returned by {@link #get(long)} for unknown states.
+   */
+  static final int UNKNOWN = Integer.MAX_VALUE;
+
+  /**
+   * Longest probe sequence.
+   */
+  private static final int MAX_PROBES = 64;
+
+  /**
+   * Stored in place of hash 0, which marks free slots.
+   */
+  private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+
+  /**
+   * State hashes.
+   */
+  private final AtomicLongArray keys;
+
+  /**
+   * Cost of each state plus one, 0 while slot is being claimed.
+   */
+  private final AtomicIntegerArray costs;
+
+  /**
+   * Number of slots minus one.
+   */
+  private final int mask;
+
+  /**
+   * Constructor.
+   *
+   * @param expected Expected number of states, table gets at least twice as
+   * many slots.
+   */
+  ConcurrentStateTable(final int expected) {
+    int capacity = Integer.highestOneBit(Math.max(16, Math.min(expected, 1 << 29)) * 2 - 1) << 1;
+    keys = new AtomicLongArray(capacity);
+    costs = new AtomicIntegerArray(capacity);
+    mask = capacity - 1;
+  }
+
+  /**
+   * Record cost of a state if it is lower than known one.
+   *
+   * @param hash State hash.
+   * @param cost Number of pushes.
+   * @return True if state was unknown or reached with more pushes before.
+   */
+  boolean lower(final long hash, final int cost) {
+    long key = hash == 0 ? ZERO_KEY : hash;
+    int slot = (int) (key ^ (key >>> 32)) & mask;
+    for (int i = 0; i < MAX_PROBES; i++, slot = (slot + 1) & mask) {
+      long stored = keys.get(slot);
+      if (stored == 0 && keys.compareAndSet(slot, 0, key)) {
+        stored = key;
+      } else if (stored == 0) {
+        stored = keys.get(slot);
+      }
+      if (stored != key) {
+        continue;
+      }
+      while (true) {
+        int known = costs.get(slot);
+        if (known != 0 && known <= cost + 1) {
+          return false;
+        }
+        if (costs.compareAndSet(slot, known, cost + 1)) {
+          return true;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find lowest recorded cost of a state.
+   *
+   * @param hash State hash.
+   * @return Number of pushes, {@link #UNKNOWN} if state is not recorded.
+   */
+  int get(final long hash) {
+    long key = hash == 0 ? ZERO_KEY : hash;
+    int slot = (int) (key ^ (key >>> 32)) & mask;
+    for (int i = 0; i < MAX_PROBES; i++, slot = (slot + 1) & mask) {
+      long stored = keys.get(slot);
+      if (stored == key) {
+        int known = costs.get(slot);
+        return known == 0 ? UNKNOWN : known - 1;
+      }
+      if (stored == 0) {
+        return UNKNOWN;
+      }
+    }
+    return UNKNOWN;
+  }
+}
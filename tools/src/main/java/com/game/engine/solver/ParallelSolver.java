@@ -0,0 +1,488 @@
+package com.game.engine.solver;
+
+import com.game.engine.BoardState;
+import com.game.engine.Level;
+import com.game.engine.PullPerimeter;
+import com.game.engine.PushDistances;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Push optimal solver using all cores, meant for level validation on desktop
+ * and CI. Same A* as {@link Solver}, but open nodes are expanded in rounds,
+ * split across a {@link ForkJoinPool}. A round takes the nodes with most
+ * pushes of the cheapest bucket of equal estimated total cost, so like the
+ * serial solver it goes deep before wide and reaches the goal without
+ * expanding the whole bucket. Nodes of one round never depend on each other,
+ * so work stealing balances the expansion without locks.
+ *
+ * <p>Visited states are shared in a lock-free table keyed by state hash.
+ * Completed states are not opened, the cheapest one becomes the shared bound:
+ * nodes that cannot beat it are pruned and search stops as soon as all
+ * cheaper buckets are done.
+ *
+ * @author niewinskip
+ */
+public final class ParallelSolver {
+
+  /**
+   * Number of nodes expanded by one task without splitting.
+   */
+  private static final int LEAF_SIZE = 32;
+
+  /**
+   * Number of tasks of one round for each worker thread, enough for work
+   * stealing to balance them.
+   */
+  private static final int TASKS_PER_THREAD = 4;
+
+  /**
+   * Level to solve.
+   */
+  private final Level level;
+
+  /**
+   * Limit of stored search nodes.
+   */
+  private final int maxNodes;
+
+  /**
+   * Number of worker threads.
+   */
+  private final int threads;
+
+  /**
+   * Destinations bit board.
+   */
+  private final long[] destinations;
+
+  /**
+   * Lowest cost of each visited state.
+   */
+  private final ConcurrentStateTable visited;
+
+  /**
+   * Push generator of each worker thread.
+   */
+  private final ThreadLocal<PushGenerator> generators;
+
+  /**
+   * Reverse search copy of each worker thread, null to search forward only.
+   */
+  private ThreadLocal<PullPerimeter> perimeters;
+
+  /**
+   * Cheapest completed node found so far.
+   */
+  private final AtomicReference<Node> best = new AtomicReference<>();
+
+  /**
+   * Number of stored nodes.
+   */
+  private final AtomicInteger stored = new AtomicInteger();
+
+  /**
+   * Number of expanded nodes.
+   */
+  private final AtomicLong expanded = new AtomicLong();
+
+  /**
+   * True if search stopped at node limit.
+   */
+  private final AtomicBoolean limitReached = new AtomicBoolean();
+
+  /**
+   * Constructor.
+   *
+   * @param level Level to solve.
+   * @param maxNodes Limit of stored search nodes.
+   * @param threads Number of worker threads, 0 for number of processors.
+   */
+  public ParallelSolver(final Level level, final int maxNodes, final int threads) {
+    this.level = level;
+    this.maxNodes = maxNodes;
+    this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.destinations = level.newEngine().getDestinations();
+    this.visited = new ConcurrentStateTable(maxNodes);
+    this.generators = ThreadLocal.withInitial(() -> new PushGenerator(level.newEngine()));
+  }
+
+  /**
+   * Find solution with minimal number of pushes.
+   *
+   * @return Solution, null if level cannot be solved or node limit was
+   * reached, see {@link #isLimitReached()}.
+   */
+  public Solution solve() {
+    PushGenerator generator = new PushGenerator(level.newEngine());
+    if (generator.getDeadlocks().hasDeadlock()) {
+      return null;
+    }
+    BoardState start = generator.getEngine().snapshot();
+    int estimate = estimate(generator, start);
+    if (estimate == PushDistances.INFEASIBLE) {
+      return null;
+    }
+    Node root = new Node(start, null, -1, -1, 0, estimate);
+    if (start.isCompleted(destinations)) {
+      return buildSolution(generator, root);
+    }
+    visited.lower(start.getHash(), 0);
+    List<Bucket> buckets = new ArrayList<>();
+    open(buckets, root);
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      for (int f = 0; f < buckets.size(); f++) {
+        Bucket bucket = buckets.get(f);
+        while (!bucket.isEmpty()) {
+          Node goal = best.get();
+          if (goal != null && goal.cost <= f) {
+            return buildSolution(generator, goal);
+          }
+          List<Node> frontier = bucket.takeDeepest(threads * TASKS_PER_THREAD * LEAF_SIZE);
+          List<Node> children = pool.invoke(new Expansion(frontier, 0, frontier.size()));
+          if (limitReached.get()) {
+            return null;
+          }
+          for (Node child : children) {
+            open(buckets, child);
+          }
+        }
+      }
+      Node goal = best.get();
+      return goal == null ? null : buildSolution(generator, goal);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Setter. Call before solving.
+   *
+   * @param perimeter Reverse search of the same level, null to search forward
+   * only. Each worker thread queries its own copy.
+   */
+  public void setPerimeter(final PullPerimeter perimeter) {
+    this.perimeters = perimeter == null ? null : ThreadLocal.withInitial(perimeter::share);
+  }
+
+  /**
+   * Getter.
+   *
+   * @return True if last search stopped at node limit.
+   */
+  public boolean isLimitReached() {
+    return limitReached.get();
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of expanded nodes.
+   */
+  public long getExpanded() {
+    return expanded.get();
+  }
+
+  /**
+   * Add node to the bucket of its estimated total cost.
+   *
+   * @param buckets Open nodes by estimated total cost.
+   * @param node Node.
+   */
+  private void open(final List<Bucket> buckets, final Node node) {
+    int f = node.cost + node.estimate;
+    while (buckets.size() <= f) {
+      buckets.add(new Bucket());
+    }
+    buckets.get(f).add(node);
+  }
+
+  /**
+   * Lower bound of pushes left, exact inside the perimeter.
+   *
+   * @param generator Generator of calling thread.
+   * @param state State.
+   * @return Number of pushes, PushDistances.INFEASIBLE if level cannot be
+   * completed.
+   */
+  private int estimate(final PushGenerator generator, final BoardState state) {
+    int estimate = generator.estimate(state);
+    if (perimeters == null || estimate == PushDistances.INFEASIBLE) {
+      return estimate;
+    }
+    return perimeters.get().bound(state, estimate);
+  }
+
+  /**
+   * Expand one node on current thread.
+   *
+   * @param node Node to expand.
+   * @param children List receiving new open nodes.
+   * @return False if node limit was reached.
+   */
+  private boolean expand(final Node node, final List<Node> children) {
+    if (visited.get(node.state.getHash()) < node.cost) {
+      // Stale entry, state was reached cheaper later.
+      return true;
+    }
+    expanded.incrementAndGet();
+    final int cost = node.cost + 1;
+    final PushGenerator generator = generators.get();
+    return generator.expand(node.state, (state, cell, move) -> {
+      if (!visited.lower(state.getHash(), cost)) {
+        return true;
+      }
+      int estimate = estimate(generator, state);
+      Node goal = best.get();
+      if (estimate == PushDistances.INFEASIBLE || (goal != null && cost + estimate >= goal.cost)) {
+        return true;
+      }
+      if (stored.incrementAndGet() > maxNodes) {
+        limitReached.set(true);
+        return false;
+      }
+      Node child = new Node(state, node, cell, move, cost, estimate);
+      if (state.isCompleted(destinations)) {
+        offer(child);
+      } else {
+        children.add(child);
+      }
+      return true;
+    });
+  }
+
+  /**
+   * Make completed node the bound if it is cheaper than current one.
+   *
+   * @param goal Completed node.
+   */
+  private void offer(final Node goal) {
+    while (true) {
+      Node current = best.get();
+      if (current != null && current.cost <= goal.cost) {
+        return;
+      }
+      if (best.compareAndSet(current, goal)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Rebuild swipes leading to the node.
+   *
+   * @param generator Generator of calling thread.
+   * @param goal Goal node.
+   * @return Solution.
+   */
+  private Solution buildSolution(final PushGenerator generator, final Node goal) {
+    List<Node> chain = new ArrayList<>();
+    Node root = goal;
+    for (; root.parent != null; root = root.parent) {
+      chain.add(root);
+    }
+    // Stored states have hero on canonical cell, so real hero cell is
+    // followed from the start.
+    List<Integer> moves = new ArrayList<>();
+    BoardState state = root.state;
+    for (int i = chain.size() - 1; i >= 0; i--) {
+      Node node = chain.get(i);
+      state = generator.appendPush(moves, state, node.cell, node.move);
+    }
+    int[] result = new int[moves.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = moves.get(i);
+    }
+    return new Solution(result, goal.cost, expanded.get());
+  }
+
+  /**
+   * Search node. Immutable, shared between threads.
+   */
+  private static final class Node {
+
+    /**
+     * State after push.
+     */
+    final BoardState state;
+
+    /**
+     * Parent node, null for root.
+     */
+    final Node parent;
+
+    /**
+     * Hero cell from which parent's push was made.
+     */
+    final int cell;
+
+    /**
+     * Direction of parent's push.
+     */
+    final int move;
+
+    /**
+     * Number of pushes from start.
+     */
+    final int cost;
+
+    /**
+     * Lower bound of pushes left.
+     */
+    final int estimate;
+
+    /**
+     * Constructor.
+     *
+     * @param state State after push.
+     * @param parent Parent node.
+     * @param cell Hero cell before push.
+     * @param move Push direction.
+     * @param cost Number of pushes.
+     * @param estimate Lower bound of pushes left.
+     */
+    Node(final BoardState state, final Node parent, final int cell, final int move, final int cost,
+        final int estimate) {
+      this.state = state;
+      this.parent = parent;
+      this.cell = cell;
+      this.move = move;
+      this.cost = cost;
+      this.estimate = estimate;
+    }
+  }
+
+  /**
+   * Open nodes of equal estimated total cost, grouped by number of pushes.
+   * Used by the calling thread only.
+   */
+  private static final class Bucket {
+
+    /**
+     * Open nodes by number of pushes.
+     */
+    private final List<List<Node>> layers = new ArrayList<>();
+
+    /**
+     * Number of open nodes.
+     */
+    private int size;
+
+    /**
+     * Open node.
+     *
+     * @param node Node.
+     */
+    void add(final Node node) {
+      while (layers.size() <= node.cost) {
+        layers.add(new ArrayList<>());
+      }
+      layers.get(node.cost).add(node);
+      size++;
+    }
+
+    /**
+     * Check if bucket has no open nodes.
+     *
+     * @return True if empty.
+     */
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    /**
+     * Remove nodes with most pushes, last opened first.
+     *
+     * @param limit Maximal number of nodes.
+     * @return Nodes of the deepest layer, bucket must not be empty.
+     */
+    List<Node> takeDeepest(final int limit) {
+      int cost = layers.size() - 1;
+      while (layers.get(cost).isEmpty()) {
+        cost--;
+      }
+      List<Node> layer = layers.get(cost);
+      List<Node> taken;
+      if (layer.size() <= limit) {
+        taken = layer;
+        layers.set(cost, new ArrayList<>());
+      } else {
+        List<Node> tail = layer.subList(layer.size() - limit, layer.size());
+        taken = new ArrayList<>(tail);
+        tail.clear();
+      }
+      size -= taken.size();
+      return taken;
+    }
+  }
+
+  /**
+   * Expansion of a range of frontier nodes, split in halves until small.
+   */
+  private final class Expansion extends RecursiveTask<List<Node>> {
+
+    /**
+     * Serial version.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Frontier being expanded.
+     */
+    private final List<Node> frontier;
+
+    /**
+     * First node of the range.
+     */
+    private final int from;
+
+    /**
+     * End of the range, exclusive.
+     */
+    private final int to;
+
+    /**
+     * Constructor.
+     *
+     * @param frontier Frontier being expanded.
+     * @param from First node of the range.
+     * @param to End of the range, exclusive.
+     */
+    Expansion(final List<Node> frontier, final int from, final int to) {
+      this.frontier = frontier;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected List<Node> compute() {
+      if (to - from > LEAF_SIZE) {
+        int middle = (from + to) >>> 1;
+        Expansion left = new Expansion(frontier, from, middle);
+        left.fork();
+        List<Node> children = new Expansion(frontier, middle, to).compute();
+        children.addAll(left.join());
+        return children;
+      }
+      List<Node> children = new ArrayList<>();
+      for (int i = from; i < to && !limitReached.get(); i++) {
+        Node goal = best.get();
+        Node node = frontier.get(i);
+        if (goal != null && node.cost + node.estimate >= goal.cost) {
+          continue;
+        }
+        if (!expand(node, children)) {
+          break;
+        }
+      }
+      return children;
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package com.game.engine.solver;
+
+import com.game.engine.BoardState;
+import com.game.engine.Level;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Breadth first enumeration of all states reachable from the start of a
+ * level by pushes, used to measure level difficulty. Hero moves without a
+ * push are free, so a state is the board right after a push. Pushes into
+ * dead squares or freezing a skull are left out, like in the solver, so only
+ * states from which the level may still be completed are counted.
+ *
+ * @author niewinskip
+ */
+public final class StateSpace {
+
+  /**
+   * Number of distinct states found.
+   */
+  private int states;
+
+  /**
+   * Number of pushes generated by all expanded states, duplicates included.
+   */
+  private long pushes;
+
+  /**
+   * Number of expanded states.
+   */
+  private int expanded;
+
+  /**
+   * Largest number of pushes from start to a found state.
+   */
+  private int depth;
+
+  /**
+   * True if enumeration stopped at state limit.
+   */
+  private boolean limitReached;
+
+  /**
+   * Constructor. Runs enumeration.
+   *
+   * @param level Level.
+   * @param maxStates Limit of stored states.
+   */
+  public StateSpace(final Level level, final int maxStates) {
+    PushGenerator generator = new PushGenerator(level.newEngine());
+    if (generator.getDeadlocks().hasDeadlock()) {
+      states = 1;
+      return;
+    }
+    BoardState start = generator.getEngine().snapshot();
+    final Set<BoardState> known = new HashSet<>();
+    final ArrayDeque<BoardState> layer = new ArrayDeque<>();
+    known.add(start);
+    layer.add(start);
+    while (!layer.isEmpty()) {
+      int size = layer.size();
+      for (int i = 0; i < size; i++) {
+        expanded++;
+        boolean complete = generator.expand(layer.poll(), (state, cell, move) -> {
+          pushes++;
+          if (known.size() >= maxStates) {
+            return false;
+          }
+          if (known.add(state)) {
+            layer.add(state);
+          }
+          return true;
+        });
+        if (!complete) {
+          limitReached = true;
+          states = known.size();
+          return;
+        }
+      }
+      if (!layer.isEmpty()) {
+        depth++;
+      }
+    }
+    states = known.size();
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Number of distinct states, start included.
+   */
+  public int getStates() {
+    return states;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return Largest number of pushes from start to a found state.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * Getter.
+   *
+   * @return True if enumeration stopped at state limit, counts are lower
+   * bounds then.
+   */
+  public boolean isLimitReached() {
+    return limitReached;
+  }
+
+  /**
+   * Average number of pushes available in a state.
+   *
+   * @return Pushes per expanded state, 0 if nothing was expanded.
+   */
+  public double getBranching() {
+    return expanded == 0 ? 0 : (double) pushes / expanded;
+  }
+
+  /**
+   * Effective branching factor of a search: branching of a uniform tree of
+   * given depth holding given number of nodes, N = b + b^2 + ... + b^d.
+   *
+   * @param nodes Number of expanded nodes.
+   * @param depth Solution depth.
+   * @return Branching factor, 0 for empty or zero depth search.
+   */
+  public static double effectiveBranching(final long nodes, final int depth) {
+    if (nodes <= 0 || depth <= 0) {
+      return 0;
+    }
+    double low = 0;
+    double high = Math.max(1, nodes);
+    for (int i = 0; i < 100; i++) {
+      double middle = (low + high) / 2;
+      if (treeSize(middle, depth) < nodes) {
+        low = middle;
+      } else {
+        high = middle;
+      }
+    }
+    return (low + high) / 2;
+  }
+
+  /**
+   * Number of nodes of a uniform tree, root excluded.
+   *
+   * @param branching Branching factor.
+   * @param depth Depth.
+   * @return b + b^2 + ... + b^d.
+   */
+  private static double treeSize(final double branching, final int depth) {
+    double sum = 0;
+    double power = 1;
+    for (int i = 0; i < depth; i++) {
+      power *= branching;
+      sum += power;
+    }
+    return sum;
+  }
+}
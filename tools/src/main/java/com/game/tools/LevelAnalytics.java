@@ -0,0 +1,373 @@
+package com.game.tools;
+
+import com.game.engine.BoardEngine;
+import com.game.engine.Level;
+import com.game.engine.MoveResult;
+import com.game.engine.PullPerimeter;
+import com.game.engine.solver.Solution;
+import com.game.engine.solver.Solver;
+import com.game.engine.solver.StateSpace;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Difficulty report of every level: size of the reachable state space,
+ * branching, optimal pushes and swipes, ice slides and portal uses of the
+ * optimal line and solve time. Levels are also ranked by state space size
+ * and split into tiers of the same sizes as the game uses, so tiers based on level
+ * number can be compared with tiers based on data.
+ *
+ * <p>Usage: LevelAnalytics [--levels DIR] [--out FILE] [--format csv|json]
+ * [--max-nodes N] [--max-states N] [--tiers EASY,MEDIUM,HARD]
+ *
+ * <p>Report goes to standard output without --out. States column is a lower
+ * bound if states_limit is true.
+ *
+ * @author niewinskip
+ */
+public final class LevelAnalytics {
+
+  /**
+   * Default limit of enumerated states per level.
+   */
+  private static final int DEFAULT_MAX_STATES = 500000;
+
+  /**
+   * Default tier sizes, same as GlobalPreferences level counts.
+   */
+  private static final String DEFAULT_TIERS = "30,15,15";
+
+  /**
+   * Tier names, from the easiest.
+   */
+  private static final String[] TIER_NAMES = {"easy", "medium", "hard"};
+
+  /**
+   * Report columns.
+   */
+  private static final String[] COLUMNS = {"level", "tier", "suggested_tier", "declared_pushes", "pushes",
+      "swipes", "ice_slides", "portal_uses", "states", "states_limit", "state_depth", "branching",
+      "effective_branching", "expanded", "ms"};
+
+  /**
+   * Measurements of one level.
+   */
+  private static final class Row {
+
+    /**
+     * Level number.
+     */
+    private int number;
+
+    /**
+     * Level.
+     */
+    private Level level;
+
+    /**
+     * Tier by level number.
+     */
+    private String tier;
+
+    /**
+     * Tier by state space size.
+     */
+    private String suggestedTier;
+
+    /**
+     * Optimal solution, null if not found.
+     */
+    private Solution solution;
+
+    /**
+     * Swipes of the optimal line in which hero or skull slid on ice.
+     */
+    private int iceSlides;
+
+    /**
+     * Portals used in the optimal line.
+     */
+    private int portalUses;
+
+    /**
+     * Reachable state space.
+     */
+    private StateSpace space;
+
+    /**
+     * Nodes expanded by the solver.
+     */
+    private long expanded;
+
+    /**
+     * Solve time in milliseconds.
+     */
+    private long ms;
+  }
+
+  /**
+   * Private constructor.
+   */
+  private LevelAnalytics() {
+
+  }
+
+  /**
+   * Entry point.
+   *
+   * @param args Command line arguments.
+   * @throws IOException If levels cannot be read or report cannot be written.
+   */
+  public static void main(final String[] args) throws IOException {
+    String directory = LevelFiles.DEFAULT_DIRECTORY;
+    String out = null;
+    String format = "csv";
+    int maxNodes = Solver.DEFAULT_MAX_NODES;
+    int maxStates = DEFAULT_MAX_STATES;
+    String tiers = DEFAULT_TIERS;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      if ("--levels".equals(args[i])) {
+        directory = args[i + 1];
+      } else if ("--out".equals(args[i])) {
+        out = args[i + 1];
+      } else if ("--format".equals(args[i]) && ("csv".equals(args[i + 1]) || "json".equals(args[i + 1]))) {
+        format = args[i + 1];
+      } else if ("--max-nodes".equals(args[i])) {
+        maxNodes = Integer.parseInt(args[i + 1]);
+      } else if ("--max-states".equals(args[i])) {
+        maxStates = Integer.parseInt(args[i + 1]);
+      } else if ("--tiers".equals(args[i])) {
+        tiers = args[i + 1];
+      } else {
+        System.err.println("Unknown option " + args[i] + " " + args[i + 1]);
+        System.err.println("Usage: LevelAnalytics [--levels DIR] [--out FILE] [--format csv|json]"
+            + " [--max-nodes N] [--max-states N] [--tiers EASY,MEDIUM,HARD]");
+        System.exit(2);
+      }
+    }
+    int[] tierSizes = parseTiers(tiers);
+    List<Row> rows = new ArrayList<>();
+    for (File file : LevelFiles.list(new File(directory))) {
+      Row row = new Row();
+      row.number = LevelFiles.levelNumber(file);
+      row.level = LevelFiles.load(file, file.getName());
+      measure(row, maxNodes, maxStates);
+      System.err.println(row.level.getName() + " " + row.ms + " ms");
+      rows.add(row);
+    }
+    assignTiers(rows, tierSizes);
+    PrintWriter writer = out == null ? new PrintWriter(new OutputStreamWriter(System.out, "UTF-8"))
+        : new PrintWriter(new OutputStreamWriter(new FileOutputStream(out), "UTF-8"));
+    try {
+      if ("json".equals(format)) {
+        writeJson(writer, rows);
+      } else {
+        writeCsv(writer, rows);
+      }
+    } finally {
+      writer.flush();
+      if (out != null) {
+        writer.close();
+      }
+    }
+  }
+
+  /**
+   * Parse tier sizes.
+   *
+   * @param text Comma separated sizes, easiest first.
+   * @return Sizes.
+   */
+  private static int[] parseTiers(final String text) {
+    String[] parts = text.split(",");
+    if (parts.length != TIER_NAMES.length) {
+      throw new IllegalArgumentException("Expected " + TIER_NAMES.length + " tier sizes: " + text);
+    }
+    int[] sizes = new int[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      sizes[i] = Integer.parseInt(parts[i].trim());
+    }
+    return sizes;
+  }
+
+  /**
+   * Solve level, replay optimal line and enumerate its states.
+   *
+   * @param row Row with level set, receives measurements.
+   * @param maxNodes Solver node limit.
+   * @param maxStates State space limit.
+   */
+  private static void measure(final Row row, final int maxNodes, final int maxStates) {
+    Level level = row.level;
+    long start = System.nanoTime();
+    Solver solver = new Solver(level, maxNodes);
+    if (PullPerimeter.supports(level)) {
+      solver.setPerimeter(new PullPerimeter(level, PullPerimeter.DEFAULT_MAX_STATES));
+    }
+    row.solution = solver.solve();
+    row.ms = (System.nanoTime() - start) / 1000000;
+    row.expanded = solver.getExpanded();
+    if (row.solution != null) {
+      BoardEngine engine = level.newEngine();
+      for (int move : row.solution.getMoves()) {
+        MoveResult result = engine.move(move);
+        if (result.getIceSteps() > 0 || skullSlid(engine, result)) {
+          row.iceSlides++;
+        }
+        row.portalUses += result.getPortalHops();
+      }
+    }
+    row.space = new StateSpace(level, maxStates);
+  }
+
+  /**
+   * Check if pushed skull moved more than one cell without a portal, which
+   * only happens on ice.
+   *
+   * @param engine Engine of the level.
+   * @param result Result of the swipe.
+   * @return True if skull slid.
+   */
+  private static boolean skullSlid(final BoardEngine engine, final MoveResult result) {
+    if (!result.isPushed()) {
+      return false;
+    }
+    int columns = engine.getNumberOfColumns();
+    for (int i = 1; i < result.getSkullPathLength(); i++) {
+      if (result.isSkullHop(i)) {
+        continue;
+      }
+      int from = result.getSkullPoint(i - 1);
+      int to = result.getSkullPoint(i);
+      int distance = Math.abs(from % columns - to % columns) + Math.abs(from / columns - to / columns);
+      if (distance > 1) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Set tier by level number and tier by rank of state space size. Solver
+   * effort barely differs between levels, its estimate is nearly exact, so
+   * the number of states a player can wander through is used instead. Ties go
+   * to the longer solution, unsolved levels rank as the hardest.
+   *
+   * @param rows Rows ordered by level number.
+   * @param sizes Number of levels in each tier.
+   */
+  private static void assignTiers(final List<Row> rows, final int[] sizes) {
+    for (int i = 0; i < rows.size(); i++) {
+      rows.get(i).tier = tierOf(i, sizes);
+    }
+    Row[] ranked = rows.toArray(new Row[0]);
+    Arrays.sort(ranked, Comparator.comparingInt((Row row) -> row.solution == null ? Integer.MAX_VALUE
+        : row.space.getStates())
+        .thenComparingInt(row -> row.solution == null ? Integer.MAX_VALUE : row.solution.getPushes())
+        .thenComparingInt(row -> row.number));
+    for (int i = 0; i < ranked.length; i++) {
+      ranked[i].suggestedTier = tierOf(i, sizes);
+    }
+  }
+
+  /**
+   * Find tier of a position.
+   *
+   * @param index Position, 0 for the easiest level.
+   * @param sizes Number of levels in each tier.
+   * @return Tier name, the last tier takes all remaining levels.
+   */
+  private static String tierOf(final int index, final int[] sizes) {
+    int end = 0;
+    for (int i = 0; i < sizes.length - 1; i++) {
+      end += sizes[i];
+      if (index < end) {
+        return TIER_NAMES[i];
+      }
+    }
+    return TIER_NAMES[TIER_NAMES.length - 1];
+  }
+
+  /**
+   * Values of report columns.
+   *
+   * @param row Row.
+   * @return Values, null if level was not solved.
+   */
+  private static Object[] values(final Row row) {
+    Solution solution = row.solution;
+    return new Object[] {row.number, row.tier, row.suggestedTier, row.level.getMinimumPushes(),
+        solution == null ? null : solution.getPushes(), solution == null ? null : solution.getMoves().length,
+        solution == null ? null : row.iceSlides, solution == null ? null : row.portalUses,
+        row.space.getStates(), row.space.isLimitReached(), row.space.getDepth(),
+        round(row.space.getBranching()),
+        solution == null ? null : round(StateSpace.effectiveBranching(row.expanded, solution.getPushes())),
+        row.expanded, row.ms};
+  }
+
+  /**
+   * Round to two decimal places.
+   *
+   * @param value Value.
+   * @return Rounded value.
+   */
+  private static double round(final double value) {
+    return Math.round(value * 100) / 100.0;
+  }
+
+  /**
+   * Write report as CSV with header line, empty cells for unsolved levels.
+   *
+   * @param writer Writer.
+   * @param rows Rows.
+   */
+  private static void writeCsv(final PrintWriter writer, final List<Row> rows) {
+    writer.println(String.join(",", COLUMNS));
+    for (Row row : rows) {
+      StringBuilder line = new StringBuilder();
+      for (Object value : values(row)) {
+        if (line.length() > 0) {
+          line.append(',');
+        }
+        line.append(value == null ? "" : value);
+      }
+      writer.println(line);
+    }
+  }
+
+  /**
+   * Write report as JSON array of objects, null for unsolved levels.
+   *
+   * @param writer Writer.
+   * @param rows Rows.
+   */
+  private static void writeJson(final PrintWriter writer, final List<Row> rows) {
+    writer.println("[");
+    for (int r = 0; r < rows.size(); r++) {
+      Object[] values = values(rows.get(r));
+      StringBuilder line = new StringBuilder("  {");
+      for (int i = 0; i < COLUMNS.length; i++) {
+        if (i > 0) {
+          line.append(", ");
+        }
+        Object value = values[i];
+        line.append('"').append(COLUMNS[i]).append("\": ");
+        if (value instanceof String) {
+          line.append('"').append(value).append('"');
+        } else {
+          line.append(value);
+        }
+      }
+      line.append(r + 1 < rows.size() ? "}," : "}");
+      writer.println(line);
+    }
+    writer.println("]");
+  }
+}
@@ -0,0 +1,112 @@
+package com.game.tools;
+
+import com.game.engine.Level;
+import com.game.engine.LevelReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Loader of level data files from a directory, used by command line tools.
+ *
+ * @author niewinskip
+ */
+public final class LevelFiles {
+
+  /**
+   * Default levels directory, relative to project root.
+   */
+  public static final String DEFAULT_DIRECTORY = "app/src/main/levels";
+
+  /**
+   * Private constructor.
+   */
+  private LevelFiles() {
+
+  }
+
+  /**
+   * Load every level of a directory. Levels are ordered by number, so level10
+   * follows level9.
+   *
+   * @param directory Levels directory.
+   * @return Parsed levels.
+   * @throws IOException If directory or any file cannot be read.
+   */
+  public static List<Level> load(final File directory) throws IOException {
+    List<Level> levels = new ArrayList<>();
+    LevelReader reader = new LevelReader();
+    for (File file : list(directory)) {
+      levels.add(load(file, file.getName(), reader));
+    }
+    return levels;
+  }
+
+  /**
+   * List level files of a directory, ordered by number.
+   *
+   * @param directory Levels directory.
+   * @return Level files.
+   * @throws IOException If directory cannot be read.
+   */
+  public static File[] list(final File directory) throws IOException {
+    File[] files = directory.listFiles(File::isFile);
+    if (files == null) {
+      throw new IOException("Not a directory: " + directory);
+    }
+    Arrays.sort(files, Comparator.comparingInt(LevelFiles::levelNumber).thenComparing(File::getName));
+    return files;
+  }
+
+  /**
+   * Load single level file.
+   *
+   * @param file Level file.
+   * @param name Level name.
+   * @return Parsed level.
+   * @throws IOException If file cannot be read.
+   */
+  public static Level load(final File file, final String name) throws IOException {
+    return load(file, name, new LevelReader());
+  }
+
+  /**
+   * Load single level file with a reused parser.
+   *
+   * @param file Level file.
+   * @param name Level name.
+   * @param parser Level parser.
+   * @return Parsed level.
+   * @throws IOException If file cannot be read or is malformed.
+   */
+  private static Level load(final File file, final String name, final LevelReader parser)
+      throws IOException {
+    try (Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8")) {
+      return parser.parse(file.getPath(), name, reader);
+    }
+  }
+
+  /**
+   * Get number at the end of file name.
+   *
+   * @param file Level file.
+   * @return Level number, Integer.MAX_VALUE if name has no number.
+   */
+  public static int levelNumber(final File file) {
+    String name = file.getName();
+    int i = name.length();
+    while (i > 0 && Character.isDigit(name.charAt(i - 1))) {
+      i--;
+    }
+    if (i == name.length() || name.length() - i > 9) {
+      return Integer.MAX_VALUE;
+    }
+    return Integer.parseInt(name.substring(i));
+  }
+}
@@ -0,0 +1,107 @@
+package com.game.tools;
+
+import com.game.engine.Level;
+import com.game.engine.LevelPack;
+import com.game.engine.LevelReader;
+import com.game.engine.solver.SolutionPack;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiles level text files into the binary level pack asset. Run by the app
+ * build, every level is decoded again and compared with its text file, so a
+ * broken pack fails the build.
+ *
+ * <p>Usage: LevelPackCompiler [--levels DIR] --out FILE
+ *
+ * @author niewinskip
+ */
+public final class LevelPackCompiler {
+
+  /**
+   * Private constructor.
+   */
+  private LevelPackCompiler() {
+
+  }
+
+  /**
+   * Entry point.
+   *
+   * @param args Command line arguments.
+   * @throws IOException If levels cannot be read or pack cannot be written.
+   */
+  public static void main(final String[] args) throws IOException {
+    String directory = LevelFiles.DEFAULT_DIRECTORY;
+    String out = null;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      if ("--levels".equals(args[i])) {
+        directory = args[i + 1];
+      } else if ("--out".equals(args[i])) {
+        out = args[i + 1];
+      } else {
+        System.err.println("Unknown option " + args[i]);
+        out = null;
+        break;
+      }
+    }
+    if (out == null) {
+      System.err.println("Usage: LevelPackCompiler [--levels DIR] --out FILE");
+      System.exit(2);
+    }
+    File[] files = LevelFiles.list(new File(directory));
+    int[] numbers = new int[files.length];
+    long[] hashes = new long[files.length];
+    List<Level> levels = new ArrayList<>();
+    LevelReader reader = new LevelReader();
+    for (int i = 0; i < files.length; i++) {
+      numbers[i] = LevelFiles.levelNumber(files[i]);
+      if (numbers[i] == Integer.MAX_VALUE || (i > 0 && numbers[i] == numbers[i - 1])) {
+        throw new IOException("Level file name needs a unique number: " + files[i]);
+      }
+      byte[] data = Files.readAllBytes(files[i].toPath());
+      hashes[i] = SolutionPack.fingerprint(data);
+      levels.add(reader.parse(files[i].getPath(), files[i].getName(),
+          new InputStreamReader(new ByteArrayInputStream(data), "UTF-8")));
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    LevelPack.write(bytes, numbers, hashes, levels);
+    LevelPack pack = new LevelPack(bytes.toByteArray());
+    for (int i = 0; i < files.length; i++) {
+      if (!same(levels.get(i), pack.getLevel(numbers[i], files[i].getName()))) {
+        throw new IOException("Level pack does not match " + files[i]);
+      }
+    }
+    File target = new File(out);
+    if (target.getParentFile() != null) {
+      target.getParentFile().mkdirs();
+    }
+    try (OutputStream os = new FileOutputStream(target)) {
+      bytes.writeTo(os);
+    }
+    System.out.println("Wrote " + files.length + " levels, " + bytes.size() + " bytes to " + out);
+  }
+
+  /**
+   * Compare two levels field by field.
+   *
+   * @param a Level.
+   * @param b Level.
+   * @return True if all level data is equal.
+   */
+  private static boolean same(final Level a, final Level b) {
+    return a.getNumberOfColumns() == b.getNumberOfColumns() && a.getNumberOfRows() == b.getNumberOfRows()
+        && a.getMinimumPushes() == b.getMinimumPushes() && a.getHeroPosition() == b.getHeroPosition()
+        && Arrays.equals(a.getGameBoard(), b.getGameBoard()) && Arrays.equals(a.getSkulls(), b.getSkulls())
+        && Arrays.equals(a.getPortalTargets(), b.getPortalTargets());
+  }
+}
@@ -0,0 +1,276 @@
+package com.game.tools;
+
+import com.game.engine.BoardConstants;
+import com.game.engine.BoardEngine;
+import com.game.engine.Level;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Headless batch simulator. Runs random or scripted swipes through
+ * {@link BoardEngine} on every level and reports throughput, allocation per
+ * swipe and final states.
+ *
+ * <p>Usage: Simulator [--levels DIR] [--moves N] [--seed S] [--rounds R]
+ * [--script URDL...]
+ *
+ * <ul>
+ * <li>--levels Levels directory, default app/src/main/levels.</li>
+ * <li>--moves Random swipes per level, default 100000. Every 8th swipe on
+ * average is a revert.</li>
+ * <li>--seed Random seed, default 1.</li>
+ * <li>--rounds Number of runs over all levels, only the last one is reported.
+ * Earlier rounds warm up the JIT. Default 3.</li>
+ * <li>--script Swipes to run once on every level instead of random ones,
+ * letters U, R, D and L. Reverts can be scripted with B.</li>
+ * </ul>
+ *
+ * @author niewinskip
+ */
+public final class Simulator {
+
+  /**
+   * Script letter of a revert.
+   */
+  private static final char REVERT = 'B';
+
+  /**
+   * One random swipe in this many is a revert.
+   */
+  private static final int REVERT_ONE_IN = 8;
+
+  /**
+   * Private constructor.
+   */
+  private Simulator() {
+
+  }
+
+  /**
+   * Entry point.
+   *
+   * @param args Command line arguments.
+   * @throws IOException If levels cannot be read.
+   */
+  public static void main(final String[] args) throws IOException {
+    String directory = LevelFiles.DEFAULT_DIRECTORY;
+    int moves = 100000;
+    long seed = 1;
+    int rounds = 3;
+    String script = null;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (i + 1 == args.length) {
+        usage("Missing value of " + arg);
+      }
+      String value = args[++i];
+      if ("--levels".equals(arg)) {
+        directory = value;
+      } else if ("--moves".equals(arg)) {
+        moves = Integer.parseInt(value);
+      } else if ("--seed".equals(arg)) {
+        seed = Long.parseLong(value);
+      } else if ("--rounds".equals(arg)) {
+        rounds = Math.max(1, Integer.parseInt(value));
+      } else if ("--script".equals(arg)) {
+        script = value.toUpperCase(Locale.ROOT);
+      } else {
+        usage("Unknown option " + arg);
+      }
+    }
+    List<Level> levels = LevelFiles.load(new File(directory));
+    if (levels.isEmpty()) {
+      usage("No levels in " + directory);
+    }
+    for (int round = 1; round < rounds; round++) {
+      for (Level level : levels) {
+        run(level, script, moves, seed);
+      }
+    }
+    System.out.println("level\tswipes\tmoved\tmoves/s\tbytes/move\tskulls\thero\thash");
+    long totalSwipes = 0;
+    long totalNanos = 0;
+    for (Level level : levels) {
+      Stats stats = run(level, script, moves, seed);
+      totalSwipes += stats.swipes;
+      totalNanos += stats.nanos;
+      System.out.println(stats);
+    }
+    System.out.printf(Locale.ROOT, "total\t%d\t\t%.0f%n", totalSwipes, rate(totalSwipes, totalNanos));
+  }
+
+  /**
+   * Run swipes on a fresh engine of a level.
+   *
+   * @param level Level.
+   * @param script Scripted swipes, null for random ones.
+   * @param moves Number of random swipes.
+   * @param seed Random seed.
+   * @return Run statistics.
+   */
+  private static Stats run(final Level level, final String script, final int moves, final long seed) {
+    BoardEngine engine = level.newEngine();
+    Stats stats = new Stats(level.getName());
+    long allocated = allocatedBytes();
+    long start = System.nanoTime();
+    if (script != null) {
+      for (int i = 0; i < script.length(); i++) {
+        char c = script.charAt(i);
+        boolean moved = c == REVERT ? engine.revert().isMoved() : engine.move(toMove(c)).isMoved();
+        stats.count(moved);
+      }
+    } else {
+      Random random = new Random(seed ^ level.getName().hashCode());
+      for (int i = 0; i < moves; i++) {
+        // Revert is decided first, so the directions stay equally likely.
+        boolean moved = random.nextInt(REVERT_ONE_IN) == 0 ? engine.revert().isMoved()
+            : engine.move(random.nextInt(BoardConstants.NUMBER_OF_MOVES)).isMoved();
+        stats.count(moved);
+      }
+    }
+    stats.nanos = System.nanoTime() - start;
+    long after = allocatedBytes();
+    stats.bytes = allocated < 0 || after < 0 ? -1 : after - allocated;
+    stats.skulls = engine.countSkullsOnDestination() + "/" + engine.getNumberOfSkulls();
+    stats.hero = engine.getHeroPosition();
+    stats.hash = engine.getHash();
+    return stats;
+  }
+
+  /**
+   * Map script letter to move.
+   *
+   * @param c Letter.
+   * @return Move constant.
+   */
+  private static int toMove(final char c) {
+    switch (c) {
+      case 'U':
+        return BoardConstants.MOVE_UP;
+      case 'R':
+        return BoardConstants.MOVE_RIGHT;
+      case 'D':
+        return BoardConstants.MOVE_DOWN;
+      case 'L':
+        return BoardConstants.MOVE_LEFT;
+      default:
+        return BoardConstants.NO_MOVE;
+    }
+  }
+
+  /**
+   * Get bytes allocated by current thread, if JVM supports it.
+   *
+   * @return Allocated bytes, -1 if unknown.
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+          Thread.currentThread().getId());
+    }
+    return -1;
+  }
+
+  /**
+   * Compute swipes per second.
+   *
+   * @param swipes Number of swipes.
+   * @param nanos Duration in nanoseconds.
+   * @return Swipes per second.
+   */
+  private static double rate(final long swipes, final long nanos) {
+    return nanos == 0 ? 0 : swipes * 1e9 / nanos;
+  }
+
+  /**
+   * Print error and usage, then exit.
+   *
+   * @param message Error message.
+   */
+  private static void usage(final String message) {
+    System.err.println(message);
+    System.err.println("Usage: Simulator [--levels DIR] [--moves N] [--seed S] [--rounds R] [--script URDLB]");
+    System.exit(2);
+  }
+
+  /**
+   * Statistics of one level run.
+   */
+  private static final class Stats {
+
+    /**
+     * Level name.
+     */
+    private final String name;
+
+    /**
+     * Number of swipes and reverts.
+     */
+    private long swipes;
+
+    /**
+     * Number of swipes and reverts that changed the board.
+     */
+    private long moved;
+
+    /**
+     * Duration in nanoseconds.
+     */
+    private long nanos;
+
+    /**
+     * Allocated bytes, -1 if unknown.
+     */
+    private long bytes;
+
+    /**
+     * Skulls on destination and total.
+     */
+    private String skulls;
+
+    /**
+     * Final hero position.
+     */
+    private int hero;
+
+    /**
+     * Final state hash.
+     */
+    private long hash;
+
+    /**
+     * Constructor.
+     *
+     * @param name Level name.
+     */
+    Stats(final String name) {
+      this.name = name;
+    }
+
+    /**
+     * Count one swipe.
+     *
+     * @param changed True if board changed.
+     */
+    void count(final boolean changed) {
+      swipes++;
+      if (changed) {
+        moved++;
+      }
+    }
+
+    @Override
+    public String toString() {
+      String perMove = bytes < 0 || swipes == 0 ? "n/a"
+          : String.format(Locale.ROOT, "%.2f", (double) bytes / swipes);
+      return String.format(Locale.ROOT, "%s\t%d\t%d\t%.0f\t%s\t%s\t%d\t%016x", name, swipes, moved,
+          rate(swipes, nanos), perMove, skulls, hero, hash);
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.game.tools;
+
+import com.game.engine.Level;
+import com.game.engine.LevelReader;
+import com.game.engine.PullPerimeter;
+import com.game.engine.solver.Solution;
+import com.game.engine.solver.SolutionPack;
+import com.game.engine.solver.Solver;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Solves every level and writes push optimal solutions into the solution pack
+ * asset used by the game for hints and solution playback.
+ *
+ * <p>Usage: SolutionPackBuilder [--levels DIR] [--out FILE] [--max-nodes N]
+ *
+ * <p>Levels that cannot be solved within the node limit are left out, the
+ * game falls back to searching on device.
+ *
+ * @author niewinskip
+ */
+public final class SolutionPackBuilder {
+
+  /**
+   * Default output file.
+   */
+  private static final String DEFAULT_OUT = "app/src/main/assets/" + SolutionPack.ASSET;
+
+  /**
+   * Private constructor.
+   */
+  private SolutionPackBuilder() {
+
+  }
+
+  /**
+   * Entry point.
+   *
+   * @param args Command line arguments.
+   * @throws IOException If levels cannot be read or pack cannot be written.
+   */
+  public static void main(final String[] args) throws IOException {
+    String directory = LevelFiles.DEFAULT_DIRECTORY;
+    String out = DEFAULT_OUT;
+    int maxNodes = Solver.DEFAULT_MAX_NODES;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      if ("--levels".equals(args[i])) {
+        directory = args[i + 1];
+      } else if ("--out".equals(args[i])) {
+        out = args[i + 1];
+      } else if ("--max-nodes".equals(args[i])) {
+        maxNodes = Integer.parseInt(args[i + 1]);
+      } else {
+        System.err.println("Unknown option " + args[i]);
+        System.err.println("Usage: SolutionPackBuilder [--levels DIR] [--out FILE] [--max-nodes N]");
+        System.exit(2);
+      }
+    }
+    SolutionPack pack = new SolutionPack();
+    int solved = 0;
+    int swipes = 0;
+    File[] files = LevelFiles.list(new File(directory));
+    LevelReader reader = new LevelReader();
+    for (File file : files) {
+      byte[] data = Files.readAllBytes(file.toPath());
+      Level level = reader.parse(file.getPath(), file.getName(),
+          new InputStreamReader(new ByteArrayInputStream(data), "UTF-8"));
+      Solver solver = new Solver(level, maxNodes);
+      if (PullPerimeter.supports(level)) {
+        solver.setPerimeter(new PullPerimeter(level, PullPerimeter.DEFAULT_MAX_STATES));
+      }
+      Solution solution = solver.solve();
+      if (solution == null) {
+        System.err.println(file.getName() + ": no solution, skipped");
+        continue;
+      }
+      pack.add(LevelFiles.levelNumber(file), SolutionPack.fingerprint(data), solution);
+      solved++;
+      swipes += solution.getMoves().length;
+    }
+    try (OutputStream os = new FileOutputStream(out)) {
+      pack.writeTo(os);
+    }
+    System.out.println("Wrote " + solved + " of " + files.length + " solutions, " + swipes + " swipes, "
+        + new File(out).length() + " bytes to " + out);
+  }
+}
@@ -0,0 +1,147 @@
+package com.game.tools;
+
+import com.game.engine.BoardEngine;
+import com.game.engine.Level;
+import com.game.engine.PullPerimeter;
+import com.game.engine.solver.ParallelSolver;
+import com.game.engine.solver.Solution;
+import com.game.engine.solver.Solver;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Solves every level and compares the minimal number of pushes with the
+ * "pushes:" value of the level file, which is used for awards.
+ *
+ * <p>Usage: SolverReport [--levels DIR] [--max-nodes N] [--table-mb MB]
+ * [--threads N] [--first LEVEL] [--reverse STATES]
+ *
+ * <p>With --threads levels are solved by {@link ParallelSolver}, 0 uses all
+ * processors. --first skips levels with lower numbers. Levels without ice and
+ * portals are also searched backward from the goal, --reverse limits stored
+ * states of that search, 0 turns it off.
+ *
+ * <p>Status column: OK if both values match, UNREACHABLE if the declared
+ * value is lower than the optimum (award can never be reached), LOOSE if it
+ * is higher, LIMIT if the node limit was hit and UNSOLVABLE if the search space
+ * was exhausted.
+ *
+ * @author niewinskip
+ */
+public final class SolverReport {
+
+  /**
+   * Private constructor.
+   */
+  private SolverReport() {
+
+  }
+
+  /**
+   * Entry point.
+   *
+   * @param args Command line arguments.
+   * @throws IOException If levels cannot be read.
+   */
+  public static void main(final String[] args) throws IOException {
+    String directory = LevelFiles.DEFAULT_DIRECTORY;
+    int maxNodes = Solver.DEFAULT_MAX_NODES;
+    long tableBytes = 0;
+    int threads = -1;
+    int first = 1;
+    int reverse = PullPerimeter.DEFAULT_MAX_STATES;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      if ("--levels".equals(args[i])) {
+        directory = args[i + 1];
+      } else if ("--max-nodes".equals(args[i])) {
+        maxNodes = Integer.parseInt(args[i + 1]);
+      } else if ("--table-mb".equals(args[i])) {
+        tableBytes = Long.parseLong(args[i + 1]) << 20;
+      } else if ("--threads".equals(args[i])) {
+        threads = Integer.parseInt(args[i + 1]);
+      } else if ("--first".equals(args[i])) {
+        first = Integer.parseInt(args[i + 1]);
+      } else if ("--reverse".equals(args[i])) {
+        reverse = Integer.parseInt(args[i + 1]);
+      } else {
+        System.err.println("Unknown option " + args[i]);
+        System.err.println("Usage: SolverReport [--levels DIR] [--max-nodes N] [--table-mb MB]"
+            + " [--threads N] [--first LEVEL] [--reverse STATES]");
+        System.exit(2);
+      }
+    }
+    List<Level> levels = LevelFiles.load(new File(directory));
+    System.out.println("level\tdeclared\toptimal\tstatus\texpanded\tms\tsolution");
+    long total = System.nanoTime();
+    for (Level level : levels.subList(Math.min(first - 1, levels.size()), levels.size())) {
+      long start = System.nanoTime();
+      Solution solution;
+      boolean limitReached;
+      long expanded;
+      if (threads >= 0) {
+        ParallelSolver solver = new ParallelSolver(level, maxNodes, threads);
+        if (reverse > 0 && PullPerimeter.supports(level)) {
+          solver.setPerimeter(new PullPerimeter(level, reverse));
+        }
+        solution = solver.solve();
+        limitReached = solver.isLimitReached();
+        expanded = solver.getExpanded();
+      } else {
+        Solver solver = tableBytes > 0 ? new Solver(level, null, maxNodes, tableBytes)
+            : new Solver(level, maxNodes);
+        if (reverse > 0 && PullPerimeter.supports(level)) {
+          solver.setPerimeter(new PullPerimeter(level, reverse));
+        }
+        solution = solver.solve();
+        limitReached = solver.isLimitReached();
+        expanded = solver.getExpanded();
+      }
+      long ms = (System.nanoTime() - start) / 1000000;
+      String optimal = solution == null ? "-" : Integer.toString(solution.getPushes());
+      System.out.printf(Locale.ROOT, "%s\t%d\t%s\t%s\t%d\t%d\t%s%n", level.getName(),
+          level.getMinimumPushes(), optimal, status(level, limitReached, solution), expanded, ms,
+          solution == null ? "" : solution.toString());
+    }
+    System.out.printf(Locale.ROOT, "total\t%d ms%n", (System.nanoTime() - total) / 1000000);
+  }
+
+  /**
+   * Compare declared pushes with solution.
+   *
+   * @param level Level.
+   * @param limitReached True if solver stopped at node limit.
+   * @param solution Solution, may be null.
+   * @return Status text.
+   */
+  private static String status(final Level level, final boolean limitReached, final Solution solution) {
+    if (solution == null) {
+      return limitReached ? "LIMIT" : "UNSOLVABLE";
+    }
+    if (!verify(level, solution)) {
+      return "INVALID";
+    }
+    if (solution.getPushes() == level.getMinimumPushes()) {
+      return "OK";
+    }
+    return solution.getPushes() > level.getMinimumPushes() ? "UNREACHABLE" : "LOOSE";
+  }
+
+  /**
+   * Replay solution on a fresh engine.
+   *
+   * @param level Level.
+   * @param solution Solution.
+   * @return True if every swipe moves and the level ends completed.
+   */
+  private static boolean verify(final Level level, final Solution solution) {
+    BoardEngine engine = level.newEngine();
+    for (int move : solution.getMoves()) {
+      if (!engine.move(move).isMoved()) {
+        return false;
+      }
+    }
+    return engine.isCompleted();
+  }
+}
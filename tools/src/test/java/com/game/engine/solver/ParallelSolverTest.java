@@ -0,0 +1,74 @@
+package com.game.engine.solver;
+
+import static com.game.engine.TestBoards.level;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.game.engine.BoardEngine;
+import com.game.engine.Level;
+import com.game.engine.PullPerimeter;
+import com.game.tools.LevelFiles;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Parallel solver against the single threaded one.
+ */
+public class ParallelSolverTest {
+
+  private static void assertSolves(Level level, Solution solution) {
+    BoardEngine engine = level.newEngine();
+    for (int move : solution.getMoves()) {
+      assertTrue(engine.move(move).isMoved());
+    }
+    assertTrue(engine.isCompleted());
+  }
+
+  @Test
+  public void findsMinimalPushes() throws IOException {
+    Level level = level("columns: 8\nrows: 6\nposition: 19\nskulls: 17, 36\nmap:\n"
+        + "XXXXXXXE\nXDX***XX\nX*X*X**X\nX**XXX*X\nXD*****X\nXXXXXXXX\n");
+    Solution solution = new ParallelSolver(level, 10000, 4).solve();
+    assertEquals(4, solution.getPushes());
+    assertSolves(level, solution);
+  }
+
+  @Test
+  public void reportsUnsolvableLevel() throws IOException {
+    Level level = level("columns: 5\nrows: 3\nposition: 6\nskulls: 7\nmap:\nXXXXX\nX**XX\nXXXDX\n");
+    ParallelSolver solver = new ParallelSolver(level, 10000, 4);
+    assertNull(solver.solve());
+    assertFalse(solver.isLimitReached());
+  }
+
+  @Test
+  public void matchesSolverOnGameLevels() throws IOException {
+    List<Level> levels = LevelFiles.load(new File(LevelFiles.DEFAULT_DIRECTORY));
+    for (Level level : levels.subList(0, 20)) {
+      Solution expected = new Solver(level).solve();
+      Solution solution = new ParallelSolver(level, Solver.DEFAULT_MAX_NODES, 4).solve();
+      assertEquals(level.getName(), expected.getPushes(), solution.getPushes());
+      assertSolves(level, solution);
+    }
+  }
+
+  @Test
+  public void usesPerimeterOnHardLevel() throws IOException {
+    List<Level> levels = LevelFiles.load(new File(LevelFiles.DEFAULT_DIRECTORY));
+    Level level = levels.get(58);
+    assertEquals("level59", level.getName());
+    PullPerimeter perimeter = new PullPerimeter(level, PullPerimeter.DEFAULT_MAX_STATES);
+    Solver expected = new Solver(level);
+    expected.setPerimeter(perimeter);
+    ParallelSolver solver = new ParallelSolver(level, Solver.DEFAULT_MAX_NODES, 4);
+    solver.setPerimeter(perimeter);
+    Solution solution = solver.solve();
+    assertEquals(expected.solve().getPushes(), solution.getPushes());
+    assertSolves(level, solution);
+    assertTrue(solver.getExpanded() < 10000);
+  }
+}
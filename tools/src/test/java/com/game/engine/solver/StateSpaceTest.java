@@ -0,0 +1,44 @@
+package com.game.engine.solver;
+
+import static com.game.engine.TestBoards.level;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.game.engine.Level;
+import java.io.IOException;
+import org.junit.Test;
+
+/**
+ * State space enumeration and branching factors.
+ */
+public class StateSpaceTest {
+
+  @Test
+  public void countsStatesOfCorridor() throws IOException {
+    // Skull can only be pushed right, twice.
+    Level level = level("columns: 6\nrows: 3\nposition: 7\nskulls: 8\nmap:\nXXXXXX\nX***DX\nXXXXXX\n");
+    StateSpace space = new StateSpace(level, 1000);
+    assertEquals(3, space.getStates());
+    assertEquals(2, space.getDepth());
+    assertFalse(space.isLimitReached());
+    assertEquals(2.0 / 3, space.getBranching(), 1e-9);
+  }
+
+  @Test
+  public void stopsAtLimit() throws IOException {
+    Level level = level("columns: 8\nrows: 6\nposition: 19\nskulls: 17, 36\nmap:\n"
+        + "XXXXXXXE\nXDX***XX\nX*X*X**X\nX**XXX*X\nXD*****X\nXXXXXXXX\n");
+    StateSpace space = new StateSpace(level, 2);
+    assertEquals(2, space.getStates());
+    assertTrue(space.isLimitReached());
+  }
+
+  @Test
+  public void solvesEffectiveBranching() {
+    // 2 + 4 + 8 nodes.
+    assertEquals(2.0, StateSpace.effectiveBranching(14, 3), 1e-6);
+    assertEquals(1.0, StateSpace.effectiveBranching(5, 5), 1e-6);
+    assertEquals(0.0, StateSpace.effectiveBranching(0, 5), 1e-9);
+  }
+}